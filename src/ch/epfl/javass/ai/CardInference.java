@@ -0,0 +1,139 @@
+package ch.epfl.javass.ai;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.PackedCard;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PlayerId;
+
+/**
+ * The class keeps track, during a turn, of the cards each player can still hold given
+ * the cards that were played, as a packed card set per player. It is fed with the tricks
+ * of the turn (see updateTrick(int)), and infers from each card played that:
+ *  - nobody holds it anymore
+ *  - the player who played it does not hold some cards (see cardsShownMissing(_,_)),
+ *      for example the cards of a color it did not follow
+ *
+ * The players which search the turn (MCTS, minimax and the determinizations of MctsDeterminizer)
+ * use these sets to skip the cards a player cannot play, which would otherwise be explored.
+ * The sets do not know the hand of the searching player, which it removes itself.
+ *
+ * The tricks can be given several times (for example by Player.updateTrick(Trick) and then
+ * by the TurnState given to Player.cardToPlay(_,_)): a card is only taken into account the first
+ * time it is seen. A trick which comes before the last one given starts a new turn, where the
+ * players can hold any card again.
+ *
+ * @author xavier
+ *
+ */
+final class CardInference {
+    private final long[] possibleCards = new long[PlayerId.COUNT];
+    private int trickIndex;
+    private int seenCards;
+
+    CardInference() {
+        clear();
+    }
+
+    /**
+     * Forgets everything that was inferred: every player can hold any card
+     */
+    void clear() {
+        for(int p=0; p<PlayerId.COUNT; p++)
+            possibleCards[p] = PackedCardSet.ALL_CARDS;
+        trickIndex = 0;
+        seenCards = 0;
+    }
+
+    /**
+     * Takes into account the cards of the given trick which were not seen yet
+     * @param pkTrick a trick of the turn, which may be full
+     */
+    void updateTrick(int pkTrick) {
+        int index = PackedTrick.index(pkTrick);
+        int size = PackedTrick.size(pkTrick);
+        if(index < trickIndex || (index == trickIndex && size < seenCards))
+            clear();
+        if(index > trickIndex) {
+            trickIndex = index;
+            seenCards = 0;
+        }
+
+        for(int i=seenCards; i<size; i++) {
+            int pkCard = PackedTrick.card(pkTrick, i);
+            for(int p=0; p<PlayerId.COUNT; p++)
+                possibleCards[p] = PackedCardSet.remove(possibleCards[p], pkCard);
+            if(i > 0) {
+                int player = PackedTrick.player(pkTrick, i).ordinal();
+                possibleCards[player] = PackedCardSet.difference(possibleCards[player], cardsShownMissing(pkTrick, i));
+            }
+        }
+        seenCards = Math.max(seenCards, size);
+    }
+
+    /**
+     * @param player
+     * @return the cards the given player can hold
+     */
+    long possibleCards(PlayerId player) {
+        return possibleCards[player.ordinal()];
+    }
+
+    /**
+     * Gives the cards of the given set the given player can hold. If it cannot hold any of
+     * them, which happens when the set comes from a sequence of cards which did not actually
+     * happen (a node of a search tree), the whole set is given.
+     * @param player
+     * @param pkCards
+     * @return
+     */
+    long possibleCards(PlayerId player, long pkCards) {
+        long possible = PackedCardSet.intersection(pkCards, possibleCards[player.ordinal()]);
+        return PackedCardSet.isEmpty(possible) ? pkCards : possible;
+    }
+
+    /**
+     * Gives the cards the player who played the card at the given index of the trick
+     * has shown it did not hold (when it played it), according to the rules of
+     * PackedTrick.playableCards(_,_):
+     *  - if it did not follow the color of a trick whose color is not trump, without
+     *      playing a trump either, it has no card of this color
+     *  - if it did not follow the color of a trick whose color is trump, it has no trump,
+     *      but maybe the jack of trump, which never has to be played
+     *  - if it played a trump below a trump already played, it has no trump above the latter
+     * @param pkTrick
+     * @param index index of a card of the trick, which is not the first
+     * @return
+     */
+    static long cardsShownMissing(int pkTrick, int index) {
+        assert index > 0 && index < PackedTrick.size(pkTrick);
+
+        Card.Color trump = PackedTrick.trump(pkTrick);
+        Card.Color baseColor = PackedCard.color(PackedTrick.card(pkTrick, 0));
+        int pkCard = PackedTrick.card(pkTrick, index);
+        Card.Color color = PackedCard.color(pkCard);
+
+        long missing = PackedCardSet.EMPTY;
+        if(color != baseColor) {
+            long baseColorCards = PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS, baseColor);
+            if(baseColor == trump)
+                missing = PackedCardSet.remove(baseColorCards, PackedCard.pack(trump, Card.Rank.JACK));
+            else if(color != trump)
+                missing = baseColorCards;
+        }
+
+        if(color == trump) {
+            int bestTrump = PackedCard.INVALID;
+            for(int i=0; i<index; i++) {
+                int previous = PackedTrick.card(pkTrick, i);
+                if(PackedCard.color(previous) == trump
+                        && (bestTrump == PackedCard.INVALID || PackedCard.isBetter(trump, previous, bestTrump)))
+                    bestTrump = previous;
+            }
+            if(bestTrump != PackedCard.INVALID && PackedCard.isBetter(trump, bestTrump, pkCard))
+                missing = PackedCardSet.union(missing, PackedCardSet.trumpAbove(bestTrump));
+        }
+
+        return missing;
+    }
+}
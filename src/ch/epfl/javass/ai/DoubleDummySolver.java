@@ -0,0 +1,339 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.PackedCard;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PackedTrickSummary;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TeamId;
+
+/**
+ * The class solves the end of a turn exactly when the hands of all the players are known
+ * (a "double dummy" position, as in a determinization, see MctsDeterminizer): it gives
+ * the points each team makes till the end of the turn when both teams play perfectly.
+ *
+ * Both teams try to maximize the difference between their points and the points of the other
+ * team, which is searched with alpha-beta pruning on the packed representations of the
+ * trick, of its summary and of the hands, the cards being played and removed in place:
+ *  - the cards are tried in an order which makes cutoffs likely (see orderCards(_,_,_,_,_)),
+ *      the best card found the last time a position was searched being tried first
+ *  - a card is not tried if the player can play an equivalent better card instead
+ *  - the positions at the beginning of a trick are stored in a transposition table,
+ *      as many orders of the cards of the previous tricks lead to the same hands.
+ *      The value stored is the points made from the position on, which only depends on
+ *      the hands, the trump, the first player of the trick and which teams have not
+ *      won any trick yet (for the additional points of a match), so that the table can
+ *      be kept from one search to the other.
+ *
+ * The points of both teams are packed in an (int), TEAM_1 in the bits 0 to 15 and TEAM_2
+ * in the bits 16 to 31, so that the points of two parts of a turn are added with a single
+ * addition (see points(_,_)).
+ *
+ * The end of a turn is solved at each call rather than read from a precomputed table of
+ * all the endgames: the last two tricks alone have C(36,8) * 8!/(2!^4) deals of their
+ * cards for each trump and first player (about 1.2 * 10^12 positions, and 7 * 10^15 for the
+ * last three tricks), while solving them only takes a few dozens of nodes (a few hundreds for
+ * three tricks). A table of the last trick only would not help, as its cards are forced.
+ *
+ * @author xavier
+ *
+ */
+final class DoubleDummySolver {
+    private static final int POINTS_SIZE = 16;
+    private static final int POINTS_MASK = (1 << POINTS_SIZE) - 1;
+
+    // more than the difference of points of any turn
+    private static final int INFINITY = 1 << 10;
+
+    // one level per card of the turn
+    private static final int MAX_DEPTH = Jass.TRICKS_PER_TURN * Jass.CARDS_PER_TRICK;
+
+    private static final byte EXACT = 0;
+    private static final byte LOWER_BOUND = 1;
+    private static final byte UPPER_BOUND = 2;
+
+    /**
+     * Gives the points of the given team in a result of solve(_,_,_)
+     * @param result
+     * @param team
+     * @return
+     */
+    static int points(int result, TeamId team) {
+        return (result >>> (team.ordinal() * POINTS_SIZE)) & POINTS_MASK;
+    }
+
+    private static int difference(int result) {
+        return points(result, TeamId.TEAM_1) - points(result, TeamId.TEAM_2);
+    }
+
+    /**
+     * Gives the points of the turn of both teams in the given score, packed as a result of solve(_,_,_)
+     * @param pkScore
+     * @return
+     */
+    static int turnPoints(long pkScore) {
+        return PackedScore.turnPoints(pkScore, TeamId.TEAM_1) | (PackedScore.turnPoints(pkScore, TeamId.TEAM_2) << POINTS_SIZE);
+    }
+
+    /*
+     * The transposition table: the hands are stored as the set of the remaining cards
+     * and two bit planes giving the ordinal of the player who holds each of them, which
+     * together with the other components of the key (first player, trump and teams without
+     * trick) identify a position exactly.
+     */
+    private final int mask;
+    private final long[] remainingCards;
+    private final long[] lowPlanes;
+    private final long[] highPlanes;
+    private final int[] others;
+    private final int[] results;
+    private final byte[] bounds;
+    private final byte[] bestCards;
+
+    // the hands of the position being searched, and the cards to try at each depth
+    private final long[] hands = new long[PlayerId.COUNT];
+    private final int[][] orderedCards = new int[MAX_DEPTH][Jass.HAND_SIZE];
+    private final int[] orderKeys = new int[Jass.HAND_SIZE];
+
+    private int bestRootCard;
+    private long searchedNodes = 0;
+
+    /**
+     * @param tableSize number of positions the transposition table can hold, a power of two
+     */
+    DoubleDummySolver(int tableSize) {
+        checkArgument(tableSize > 0 && Integer.bitCount(tableSize) == 1);
+
+        this.mask = tableSize - 1;
+        this.remainingCards = new long[tableSize];
+        this.lowPlanes = new long[tableSize];
+        this.highPlanes = new long[tableSize];
+        this.others = new int[tableSize];
+        this.results = new int[tableSize];
+        this.bounds = new byte[tableSize];
+        this.bestCards = new byte[tableSize];
+        // no position has an empty set of remaining cards: an entry is empty iff it has one
+    }
+
+    /**
+     * Gives the points each team makes from the given position till the end of the turn,
+     * when both play perfectly
+     * @param pkScore
+     * @param pkTrick collected trick
+     * @param pkHands the hands of the players, indexed by the ordinal of their id. They are not
+     *  modified, and must only contain unplayed cards.
+     * @return the points of both teams (see points(_,_))
+     */
+    int solve(long pkScore, int pkTrick, long[] pkHands) {
+        System.arraycopy(pkHands, 0, hands, 0, PlayerId.COUNT);
+        bestRootCard = PackedCard.INVALID;
+        if(PackedRollouts.isTerminal(pkTrick))
+            return 0;
+        return search(pkScore, pkTrick, PackedTrickSummary.ofPackedTrick(pkTrick), -INFINITY, INFINITY, 0);
+    }
+
+    /**
+     * @return the best card to play found by the last call of solve(_,_,_),
+     *  or PackedCard.INVALID if the turn was over
+     */
+    int bestCard() {
+        return bestRootCard;
+    }
+
+    /**
+     * @return the number of positions searched since the construction of the solver
+     */
+    long searchedNodes() {
+        return searchedNodes;
+    }
+
+    private int search(long pkScore, int pkTrick, int pkSummary, int alpha, int beta, int depth) {
+        searchedNodes++;
+
+        int size = PackedTrickSummary.size(pkSummary);
+        int player = PackedTrick.player(pkTrick, size).ordinal();
+        boolean maximizes = PlayerId.ALL.get(player).team() == TeamId.TEAM_1;
+
+        int slot = -1;
+        int other = 0;
+        int firstCard = PackedCard.INVALID;
+        int initialAlpha = alpha, initialBeta = beta;
+        if(size == 0) {
+            other = player | (PackedTrickSummary.trump(pkSummary).ordinal() << 2)
+                    | ((PackedScore.turnTricks(pkScore, TeamId.TEAM_1) == 0 ? 1 : 0) << 4)
+                    | ((PackedScore.turnTricks(pkScore, TeamId.TEAM_2) == 0 ? 1 : 0) << 5);
+            slot = slotOf(other);
+            if(isStoredIn(slot, other)) {
+                int stored = results[slot];
+                int storedDifference = difference(stored);
+                if(bounds[slot] == EXACT
+                        || (bounds[slot] == LOWER_BOUND && storedDifference >= beta)
+                        || (bounds[slot] == UPPER_BOUND && storedDifference <= alpha)) {
+                    if(depth == 0)
+                        bestRootCard = bestCards[slot];
+                    return stored;
+                }
+                firstCard = bestCards[slot];
+            }
+        }
+
+        long playable = PackedTrickSummary.playableCards(pkSummary, hands[player]);
+        int count = orderCards(playable, pkTrick, pkSummary, firstCard, orderedCards[depth]);
+
+        int best = 0;
+        int bestDifference = maximizes ? -INFINITY : INFINITY;
+        int bestCard = PackedCard.INVALID;
+        for(int i=0; i<count; i++) {
+            int pkCard = orderedCards[depth][i];
+
+            hands[player] = PackedCardSet.remove(hands[player], pkCard);
+            int nextTrick = PackedTrick.withAddedCard(pkTrick, pkCard, size);
+            int nextSummary = PackedTrickSummary.withAddedCard(pkSummary, pkCard);
+            long nextScore = pkScore;
+            int trickPoints = 0;
+            if(PackedTrickSummary.isFull(nextSummary)) {
+                PlayerId winningPlayer = PackedTrick.player(nextTrick, PackedTrickSummary.winningIndex(nextSummary));
+                nextScore = PackedScore.withAdditionalTrick(pkScore, winningPlayer.team(), PackedTrick.points(nextTrick));
+                trickPoints = turnPoints(nextScore) - turnPoints(pkScore);
+                nextTrick = PackedTrick.nextEmpty(nextTrick, winningPlayer);
+                nextSummary = PackedTrickSummary.empty(PackedTrickSummary.trump(pkSummary));
+            }
+
+            int result = trickPoints;
+            if(!PackedRollouts.isTerminal(nextTrick)) {
+                int trickDifference = difference(trickPoints);
+                result += search(nextScore, nextTrick, nextSummary, alpha - trickDifference, beta - trickDifference, depth+1);
+            }
+            hands[player] = PackedCardSet.add(hands[player], pkCard);
+
+            int resultDifference = difference(result);
+            if(maximizes ? resultDifference > bestDifference : resultDifference < bestDifference) {
+                best = result;
+                bestDifference = resultDifference;
+                bestCard = pkCard;
+            }
+            if(maximizes)
+                alpha = Math.max(alpha, resultDifference);
+            else
+                beta = Math.min(beta, resultDifference);
+            if(alpha >= beta)
+                break;
+        }
+
+        if(depth == 0)
+            bestRootCard = bestCard;
+        if(slot >= 0) {
+            byte bound = bestDifference <= initialAlpha ? UPPER_BOUND
+                    : bestDifference >= initialBeta ? LOWER_BOUND
+                    : EXACT;
+            store(slot, other, best, bound, bestCard);
+        }
+        return best;
+    }
+
+    /**
+     * Orders the playable cards so that the ones which are the most likely to be the best
+     * are tried first, leaving out the ones which have an equivalent (see hasEquivalentAbove(_,_,_,_,_)):
+     *  - the given first card (the best one of a previous search), if it is playable
+     *  - if the trick is empty, the cards which give the most points
+     *  - if the team of the player wins the trick so far, the cards which give the most
+     *      points, as they will probably be won
+     *  - otherwise, the cheapest cards which win the trick, then the cheapest cards
+     * @return the number of cards
+     */
+    private int orderCards(long playable, int pkTrick, int pkSummary, int firstCard, int[] cards) {
+        Card.Color trump = PackedTrickSummary.trump(pkSummary);
+        int size = PackedTrickSummary.size(pkSummary);
+        int winningCard = PackedCard.INVALID;
+        boolean teamWins = false;
+        if(size > 0) {
+            winningCard = PackedTrickSummary.winningCard(pkSummary);
+            PlayerId winningPlayer = PackedTrick.player(pkTrick, PackedTrickSummary.winningIndex(pkSummary));
+            teamWins = winningPlayer.team() == PackedTrick.player(pkTrick, size).team();
+        }
+
+        long liveCards = remainingCards();
+        for(int i=0; i<size; i++)
+            liveCards = PackedCardSet.add(liveCards, PackedTrick.card(pkTrick, i));
+
+        int count = 0;
+        for(long remaining = playable; remaining != PackedCardSet.EMPTY; remaining &= remaining-1) {
+            int pkCard = Long.numberOfTrailingZeros(remaining);
+            int points = PackedCard.points(trump, pkCard);
+            if(pkCard != firstCard && hasEquivalentAbove(pkCard, points, playable, liveCards, trump))
+                continue;
+            int key;
+            if(pkCard == firstCard)
+                key = Integer.MAX_VALUE;
+            else if(size == 0 || teamWins)
+                key = points;
+            else if(PackedCard.isBetter(trump, pkCard, winningCard))
+                key = 2*INFINITY - points;
+            else
+                key = INFINITY - points;
+
+            // insertion by decreasing key
+            int i = count++;
+            while(i > 0 && orderKeys[i-1] < key) {
+                orderKeys[i] = orderKeys[i-1];
+                cards[i] = cards[i-1];
+                i--;
+            }
+            orderKeys[i] = key;
+            cards[i] = pkCard;
+        }
+        return count;
+    }
+
+    /**
+     * Determines if the given playable card has an equivalent card which is better and
+     * playable too, in which case it does not have to be tried: the next better card of its
+     * color among the cards which are not played yet or in the trick is also playable and
+     * gives as many points. The two cards then win and lose against the same cards.
+     */
+    private static boolean hasEquivalentAbove(int pkCard, int points, long playable, long liveCards, Card.Color trump) {
+        long sameColor = PackedCardSet.subsetOfColor(liveCards, PackedCard.color(pkCard));
+        int nextBetter = PackedCard.INVALID;
+        for(; sameColor != PackedCardSet.EMPTY; sameColor &= sameColor-1) {
+            int other = Long.numberOfTrailingZeros(sameColor);
+            if(PackedCard.isBetter(trump, other, pkCard)
+                    && (nextBetter == PackedCard.INVALID || PackedCard.isBetter(trump, nextBetter, other)))
+                nextBetter = other;
+        }
+        return nextBetter != PackedCard.INVALID && PackedCardSet.contains(playable, nextBetter)
+                && PackedCard.points(trump, nextBetter) == points;
+    }
+
+    private long remainingCards() {
+        return hands[0] | hands[1] | hands[2] | hands[3];
+    }
+
+    private int slotOf(int other) {
+        long hash = remainingCards() * 0x9E3779B97F4A7C15L
+                ^ (hands[1] | hands[3]) * 0xC2B2AE3D27D4EB4FL
+                ^ (hands[2] | hands[3]) * 0x165667B19E3779F9L
+                ^ other * 0x27D4EB2F165667C5L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private boolean isStoredIn(int slot, int other) {
+        return remainingCards[slot] == remainingCards() && lowPlanes[slot] == (hands[1] | hands[3])
+                && highPlanes[slot] == (hands[2] | hands[3]) && others[slot] == other;
+    }
+
+    private void store(int slot, int other, int result, byte bound, int bestCard) {
+        // the entry of another position is replaced
+        remainingCards[slot] = remainingCards();
+        lowPlanes[slot] = hands[1] | hands[3];
+        highPlanes[slot] = hands[2] | hands[3];
+        others[slot] = other;
+        results[slot] = result;
+        bounds[slot] = bound;
+        bestCards[slot] = (byte) bestCard;
+    }
+}
@@ -1,40 +1,25 @@
 package ch.epfl.javass.ai;
 
-import static ch.epfl.javass.Preconditions.checkArgument;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.SplittableRandom;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import ch.epfl.javass.ai.benchmark.PlayerBenchmarkable;
 import ch.epfl.javass.jass.Card;
 import ch.epfl.javass.jass.CardSet;
-import ch.epfl.javass.jass.Jass;
 import ch.epfl.javass.jass.Player;
 import ch.epfl.javass.jass.PlayerId;
-import ch.epfl.javass.jass.Score;
 import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.Trick;
 import ch.epfl.javass.jass.TurnState;
 
-import static java.lang.Math.sqrt;
-import static java.lang.Math.log;
-import static java.lang.Math.min;
-import static java.lang.Math.pow;
-
 /**
  * We implement a player who is going to make an informed decision on its own (i.e. an AI)
  * The algorithm used to determine the next card to play is Monte Carlo Tree Search (MCTS)
  * Here is a summary of what it does:
  *  - As soon as you are asked what card to play via cardToPlay(_;_),
  *  the algorithm creates a tree, which root represents the given state
- *  - The tree is given how many iterations it should perform at construction,
- *  and it is going to perform the following at each iteration:
+ *  - The tree is given how many iterations it should perform (or how long it may search,
+ *  see MctsBudget) at construction, and it is going to perform the following at each iteration:
  *      - You add a node to the tree, which is going to represent a turn state
  *      not yet explored.
  *      - Once the node is created, you play a turn from the state of the node, with a given default policy
@@ -52,13 +37,19 @@ import static java.lang.Math.pow;
  * The way you choose the card to play is thus choosing which child node of the root leads to the best
  * outcome for this Player's team
  * 
+ * The search is done by MctsEngine with root parallelism (each thread searches its own tree),
+ * selecting the children with UCB1-Tuned and rewarding a node with the points its team won 
+ * in the turn divided by the ones of the other team.
+ * 
  * @author xavier
  *
  */
 public final class ImprovedMctsPlayer implements Player, PlayerBenchmarkable {
+    // seed of the players constructed without one
+    private static final long DEFAULT_RNG_SEED = 0;
+    
     private PlayerId ownId;
-    private int iterations;
-    private int threads;
+    private final MctsEngine engine;
         
     private static double c = 1.0;
     
@@ -67,18 +58,136 @@ public final class ImprovedMctsPlayer implements Player, PlayerBenchmarkable {
      * the Monte Carlo Search Tree Algorithm, with root parallelization, 
      * UCB1-Tuned heuristic and a better default policy
      * @param ownId id of this player
-     * @param rngSeed used to play random games 
      * @param iterations number of iterations in the algorithm
+     * @param threads number of tasks among which the iterations are divided, 
+     *  or null to use one per available processor
      */
     public ImprovedMctsPlayer(PlayerId ownId, int iterations, Integer threads) {
-        checkArgument(iterations >= Jass.HAND_SIZE);
-        
+        this(ownId, DEFAULT_RNG_SEED, iterations, threads);
+    }
+    
+    /**
+     * Same as ImprovedMctsPlayer(_,_,_), where the order in which each tree explores
+     * the cards is drawn from the given seed. For a given seed and number of threads,
+     * the player always plays the same card in the same state.
+     * @param ownId id of this player
+     * @param rngSeed used to choose the cards explored
+     * @param iterations number of iterations in the algorithm
+     * @param threads number of tasks among which the iterations are divided, 
+     *  or null to use one per available processor
+     */
+    public ImprovedMctsPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads) {
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), threads, RolloutPolicy.simple(), MctsExecutors.shared());
+    }
+    
+    /**
+     * Same as ImprovedMctsPlayer(_,_,_), where the searches run on the given executor
+     * instead of the shared one (see MctsExecutors). The player never shuts it down.
+     * @param ownId id of this player
+     * @param iterations number of iterations in the algorithm
+     * @param threads number of tasks among which the iterations are divided, 
+     *  or null to use one per available processor
+     * @param executor
+     */
+    public ImprovedMctsPlayer(PlayerId ownId, int iterations, Integer threads, ExecutorService executor) {
+        this(ownId, DEFAULT_RNG_SEED, MctsBudget.ofIterations(iterations), threads, RolloutPolicy.simple(), executor);
+    }
+    
+    /**
+     * Same as ImprovedMctsPlayer(_,_,_,_), where the searches run on the given executor
+     * instead of the shared one (see MctsExecutors). The player never shuts it down.
+     * @param ownId id of this player
+     * @param rngSeed used to choose the cards explored
+     * @param iterations number of iterations in the algorithm
+     * @param threads number of tasks among which the iterations are divided, 
+     *  or null to use one per available processor
+     * @param executor
+     */
+    public ImprovedMctsPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads, ExecutorService executor) {
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), threads, RolloutPolicy.simple(), executor);
+    }
+    
+    /**
+     * Mcts Player with root parallelization which iterates until timeBudget has elapsed, 
+     * and then plays the best card found so far by all its threads together 
+     * (each thread always performs at least Jass.HAND_SIZE iterations)
+     * @param ownId id of this player
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param threads number of threads, or null to use one per available processor
+     */
+    public ImprovedMctsPlayer(PlayerId ownId, Duration timeBudget, Integer threads) {
+        this(ownId, DEFAULT_RNG_SEED, MctsBudget.ofDuration(timeBudget), threads, RolloutPolicy.simple(), MctsExecutors.shared());
+    }
+    
+    /**
+     * Same as ImprovedMctsPlayer(_,Duration,_), where the order in which each tree explores
+     * the cards is drawn from the given seed
+     * @param ownId id of this player
+     * @param rngSeed used to choose the cards explored
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param threads number of threads, or null to use one per available processor
+     */
+    public ImprovedMctsPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, Integer threads) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), threads, RolloutPolicy.simple(), MctsExecutors.shared());
+    }
+    
+    /**
+     * Same as ImprovedMctsPlayer(_,Duration,_), where the searches run on the given executor
+     * instead of the shared one (see MctsExecutors). The player never shuts it down.
+     * @param ownId id of this player
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param threads number of tasks searching at the same time, or null to use one per available processor
+     * @param executor
+     */
+    public ImprovedMctsPlayer(PlayerId ownId, Duration timeBudget, Integer threads, ExecutorService executor) {
+        this(ownId, DEFAULT_RNG_SEED, MctsBudget.ofDuration(timeBudget), threads, RolloutPolicy.simple(), executor);
+    }
+    
+    /**
+     * Same as ImprovedMctsPlayer(_,_,Duration,_), where the searches run on the given executor.
+     * As the number of iterations depends on the time they take, the card played does not
+     * only depend on the seed.
+     * @param ownId id of this player
+     * @param rngSeed used to choose the cards explored
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param threads number of tasks searching at the same time, or null to use one per available processor
+     * @param executor
+     */
+    public ImprovedMctsPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, Integer threads, ExecutorService executor) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), threads, RolloutPolicy.simple(), executor);
+    }
+    
+    /**
+     * Same as ImprovedMctsPlayer(_,_,_,_), where the turns are simulated with the given policy
+     * instead of the one of SimplePlayer
+     * @param ownId id of this player
+     * @param rngSeed used to choose the cards explored and by the policy
+     * @param iterations number of iterations in the algorithm
+     * @param threads number of tasks among which the iterations are divided, 
+     *  or null to use one per available processor
+     * @param policy chooses the cards of the simulated turns
+     */
+    public ImprovedMctsPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), threads, policy, MctsExecutors.shared());
+    }
+    
+    /**
+     * Same as ImprovedMctsPlayer(_,_,Duration,_), where the turns are simulated with the given policy
+     * instead of the one of SimplePlayer
+     * @param ownId id of this player
+     * @param rngSeed used to choose the cards explored and by the policy
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param threads number of threads, or null to use one per available processor
+     * @param policy chooses the cards of the simulated turns
+     */
+    public ImprovedMctsPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, Integer threads, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), threads, policy, MctsExecutors.shared());
+    }
+    
+    private ImprovedMctsPlayer(PlayerId ownId, long rngSeed, MctsBudget budget, Integer threads, RolloutPolicy policy, ExecutorService executor) {
         this.ownId = ownId;
-        this.iterations = iterations;
-        if(threads != null)
-            this.threads = threads;
-        else 
-            this.threads = Runtime.getRuntime().availableProcessors();
+        this.engine = new MctsEngine(ownId, rngSeed, budget, MctsSelection.ucb1Tuned(c), MctsReward.fraction(), 
+                policy, MctsParallelism.root(threads, executor));
     }
     
     private int wins = 0;
@@ -101,6 +210,19 @@ public final class ImprovedMctsPlayer implements Player, PlayerBenchmarkable {
         return totalExecutions;
     }
     
+    /**
+     * @return the number of iterations performed by all the threads together
+     * during the last call of cardToPlay(_;_)
+     */
+    public int getLastNumberOfIterations() {
+        return engine.lastIterations();
+    }
+    
+    @Override
+    public void updateTrick(Trick newTrick) {
+        engine.updateTrick(newTrick.packed());
+    }
+    
     @Override
     public void setWinningTeam(TeamId winningTeam) {
         if(ownId.team().equals(winningTeam))
@@ -115,382 +237,11 @@ public final class ImprovedMctsPlayer implements Player, PlayerBenchmarkable {
     public Card cardToPlay(TurnState state, CardSet hand) {
         totalExecutions++;
         long beginTime = System.nanoTime();
-                
-        /**
-         * A simulation result has is composed of the list of total points and number of
-         * total turns played while simulating. The list size is the number of children the root
-         * node has (i.e. the number of possibilities for what is going to be the next card).
-         */
-        List<Future<SimulationResult>> futureResults = new ArrayList<Future<SimulationResult>>();
-        ExecutorService service = Executors.newFixedThreadPool(threads);
         
-        /**
-         * We don't need to use any CountDownLatch in this implementation as
-         * we will wait to get all futureResults anyway.
-         */
-        
-        for(int i=0; i<threads; i++) {
-            futureResults.add(service.submit(new Callable<SimulationResult>() {
-                @Override
-                public SimulationResult call() {
-                    int actualIterations = iterations/threads;
-                    
-                    Node startingNode = new Node(state, hand, ownId);
-                    
-                    while(actualIterations-->0) {
-                        // SELECTION - EXPANSION
-                        List<Integer> trivialPath = new ArrayList<Integer>();
-                        List<Integer> path = startingNode.addNodeIfPossible(trivialPath);
-                        Node addedNode = getNodeForPath(path, startingNode);
-                        
-                        // SIMULATION
-                        Score score = defaultPolicy(addedNode);
-                        
-                        // BACKPROPAGATION
-                        propagatePointsToNodesOf(path, startingNode, score);
-                    }
-                                        
-                    int numberOfPossibilities = startingNode.children.length;
-                    
-                    double[] totalFractionsOfChildren = new double[numberOfPossibilities];
-                    int[] totalTurnsPlayedOfChildren = new int[numberOfPossibilities];
-                    
-                    for(int j=0; j<numberOfPossibilities; j++){
-                        totalFractionsOfChildren[j] = startingNode.children[j].totalFraction;
-                        totalTurnsPlayedOfChildren[j] = startingNode.children[j].totalTurns;
-                    }
-                                        
-                    return new SimulationResult(totalFractionsOfChildren, totalTurnsPlayedOfChildren);
-                }
-            }));
-        }
-                       
-        // DECIDING WHICH IS THE BEST CHILD
-        
-        List<SimulationResult> results = new ArrayList<SimulationResult>();
-        for(Future<SimulationResult> futureResult: futureResults) {
-            try {
-                results.add(futureResult.get());
-            } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
-            }
-        }
-        
-        service.shutdownNow();
-        
-        /**
-         * Each direct child must have been visited once, which means that picking the number of children
-         * of one tree is reasonable. (a result represents a tree)
-         */
-        int numberOfPossibilities = results.get(0).childrenFractions.length;
-        
-        // as in summed over the set of results
-        double[] summedFractions = new double[numberOfPossibilities];
-        Arrays.fill(summedFractions, 0);
-        
-        int[] summedTurnsPlayed = new int[numberOfPossibilities];
-        Arrays.fill(summedTurnsPlayed, 0);
-        
-        // we sum over the set of results
-        for(int i=0; i<numberOfPossibilities; i++) {
-            for(SimulationResult result: results) {
-                summedFractions[i] += result.childrenFractions[i];
-                summedTurnsPlayed[i] += result.childrenTurnsPlayed[i];
-            }
-        }
-        
-        // Getting the index of children with the max estimated value
-        int bestChildIndex = -1;
-        double bestChildEstimatedValue = -1;
-        for(int i=0; i<numberOfPossibilities; i++) {
-            double childValue = (summedFractions[i])/((double) summedTurnsPlayed[i]);
-            if(childValue > bestChildEstimatedValue) {
-                bestChildIndex = i;
-                bestChildEstimatedValue = childValue;
-            }
-        }
-
-        Card bestCard = state.trick().playableCards(hand).get(bestChildIndex);
+        Card bestCard = engine.cardToPlay(state, hand);
         
         totalExecutionTime += (System.nanoTime()-beginTime);
         
         return bestCard;
     }
-    
-    /**
-     * Get the playable cards that are not in the hand nor in the cards
-     * already played in the turn.
-     * @param state
-     * @param hand
-     * @return
-     */
-    private CardSet getPlayableCards(TurnState state, CardSet hand) {
-        CardSet unplayedCards = state.unplayedCards();
-        CardSet handSoFar = unplayedCards.intersection(hand);
-        
-        if(ownId == state.nextPlayer())
-            return state.trick().playableCards(handSoFar);
-                
-        CardSet unplayedNotInHand = unplayedCards.difference(handSoFar);
-        return state.trick().playableCards(unplayedNotInHand);
-//        return unplayedNotInHand;
-    }
-
-    private Node getNodeForPath(List<Integer> path, Node startingNode) {
-        Node child = startingNode;
-        for(Integer index: path) {
-            child = child.children[index];
-        }
-        return child;
-    }
-    
-    private Score defaultPolicy(Node node) {
-        Player defaultPolicyPlayer = new SimplePlayer();
-        defaultPolicyPlayer.setPlayers(ownId, null);
-        
-        TurnState turn = node.correspondingTurnState;
-        CardSet hand = node.handSoFar;
-        
-        while(!turn.isTerminal()) {
-            CardSet playable = getPlayableCards(turn, hand);
-            
-            Card nextCard = defaultPolicyPlayer.cardToPlay(turn, playable);
-                        
-            turn = turn.withNewCardPlayedAndTrickCollected(nextCard);
-            // we don't need to update the hand because in getPlayableCards(_,_),
-            // we return unplayedCard.intersection(hand) and not just hand.
-        }
-        
-        return turn.score();
-    }
-    
-    private void propagatePointsToNodesOf(List<Integer> path, Node startingNode, Score score) {
-        startingNode.addTurn(score, ownId.team());
-        PlayerId nextPlayer = startingNode.correspondingTurnState.nextPlayer();
-        Node node = startingNode;
-        for(Integer index: path) {
-            node = node.children[index];
-            node.addTurn(score, nextPlayer.team());
-            nextPlayer = node.correspondingTurnState.nextPlayer();
-        }
-    }
-    
-    private final static class SimulationResult {
-        double[] childrenFractions;
-        int[] childrenTurnsPlayed;
-        
-        public SimulationResult(double[] totalPoints, int[] totalTurnsPlayed) {
-            this.childrenFractions = totalPoints;
-            this.childrenTurnsPlayed = totalTurnsPlayed;
-        }
-    }
-    
-    private final static class Node {
-        /**
-         * @param state should be collected by convention
-         * @param handSoFar
-         * @param playerId
-         */
-        private Node(TurnState state, CardSet handSoFar, PlayerId playerId) {
-            this.correspondingTurnState = state;
-            this.handSoFar = handSoFar;
-            this.playerId = playerId;
-            this.unplayedCards = getUnplayedCards();
-            this.children = new Node[this.unplayedCards.size()];
-        }
-        
-        private CardSet getUnplayedCards() {
-            if(correspondingTurnState.isTerminal())
-                return CardSet.EMPTY;
-            if(correspondingTurnState.nextPlayer() == playerId) 
-                return correspondingTurnState.trick().playableCards(handSoFar);
-            CardSet notInHand = correspondingTurnState.unplayedCards().difference(handSoFar);
-            CardSet notInHandPlayable = correspondingTurnState.trick().playableCards(notInHand);
-            return notInHandPlayable;
-        }
-        
-        /**
-         * This is the turn state of this node. The trick of the turn is always
-         * collected by convention.
-         * It is easier to know the unplayed cards at construction and the next player.
-         */
-        final TurnState correspondingTurnState;
-        /**
-         * When the Node is create, none of its children actually exist,
-         * they are all initialized to null at the beginning.
-         * They will eventually be correctly instantiated.
-         * (Will they be instantiated as soon as a new turn state stemming 
-         * from the turn state of this node is simulated randomly ?)
-         * 
-         * The number of children depends on how many possibilities there actually 
-         * is for the turn state after the corresponding turn state
-         */
-        Node[] children;
-        /**
-         * As soon as a new child is added, the corresponding card is removed
-         * from unplayedCards. This is because a new child added means a state that is different from any other 
-         * child, thus using a card thus far unused, and we need to inform the node 
-         * that the card has actually been used in a simulation
-         */
-        CardSet unplayedCards;
-        
-        /**
-         * We keep track of the hand so far to get a correct tree of possible turn states.
-         * We use this attribute to compute the next child node if the next player
-         * was the playerId.
-         */
-        CardSet handSoFar;
-        PlayerId playerId;
-                
-        /*
-         * Noted S(n), it gives the points that were so far gained from 
-         * randomly played turns, which contains the corresponding turn state.
-         * 
-         * What this means is that every time the algorithm is going to simulate a new 
-         * turn, if the turn happens to randomly come at one point to the corresponding
-         * turn state of the node, it would credit the node for the points 
-         * gained in the turn.
-         * 
-         * Also, it is going to augment the counter (int totalRandomlyPlayedTurns)
-         * every time a randomly played turn happens to have the turn state of this 
-         * node at one point
-         * 
-         * Thus we can compute the average points of a game knowing that such game came at the 
-         * corresponding turn state at one point. 
-         * 
-         * So for example, if the corresponding turn state is a trick of index 5, where the first
-         * player is PLAYER_2, where the trump is Heart and the played cards are (six of heart, seven of spade),
-         * if the algorithm is randomly playing a turn and it eventually reaches a trick
-         * of index five, if the underlying variables are equal then the algorithm is going to tell the 
-         * node the points that were gained after it's done simulating the whole turn, 
-         * and it is going to add 1 to the counter of playedTurns of the node.
-         */
-        double totalFraction = 0;
-        double totalSquaredFraction = 0;
-        int totalTurns = 0;
-        
-        private double computeChildV(Node child, double c) {
-            assert child != null;
-            
-            // T_j/N_j
-            double empiricalFraction = child.totalFraction/((double) child.totalTurns);
-            
-            // to avoid unnecessary computations
-            if(c == 0)
-                return empiricalFraction;
-            
-            // ln(N_i)/N_j
-            double explorationSubterm = log(((double) this.totalTurns)/((double) child.totalTurns));
-            
-            // U_j/N_j
-            double varianceTermFirst = (child.totalSquaredFraction)/((double) child.totalTurns);
-            // (T_j/N_j)^2
-            double varianceTermSecond = pow(empiricalFraction, 2);
-            
-            // sqrt(2ln(N_i)/N_j)
-            double varianceExplorationTerm = sqrt(2*explorationSubterm);
-            
-            // U_j/n_j - (T_j/N_j)^2 + sqrt(2ln(N_i)/N_j)
-            double varianceFullTerm = varianceTermFirst - varianceTermSecond + varianceExplorationTerm;
-            
-            // min(0.25, U_j/n_j - (T_j/N_j)^2 + sqrt(2ln(N_i)/N_j))
-            double varianceFullAdjusted = min(0.25, varianceFullTerm);
-            
-            // c.sqrt((ln(N_i)/N_j)*min(0.25, U_j/n_j - (T_j/N_j)^2 + sqrt(2ln(N_i)/N_j)))
-            double explorationTerm = c*sqrt(explorationSubterm*varianceFullAdjusted);
-            
-            // T_j/N_j + c.sqrt((ln(N_i)/N_j)*min(0.25, U_j/n_j - (T_j/N_j)^2 + sqrt(2ln(N_i)/N_j)))
-            return empiricalFraction+explorationTerm;
-        }
-        
-        private int getBestChildIndex(double c) {
-            double maxV = -1;
-            int indexOfBest = -1;
-            for(int i=0; i<children.length; i++) {
-                Node child = children[i];
-                if(child != null) {
-                    double V = this.computeChildV(child, c);
-                    if(V > maxV) {
-                        maxV = V;
-                        indexOfBest = i;
-                    }
-                }
-            }
-            
-            return indexOfBest;
-        }
-        
-        private List<Integer> addNodeIfPossible(List<Integer> previousPath) {
-            if(correspondingTurnState.isTerminal())
-                return previousPath;
-            if(!unplayedCards.isEmpty()) {
-                previousPath.add(setNewChild());
-                return previousPath;
-            }
-            
-            int bestChildIndex = getBestChildIndex(ImprovedMctsPlayer.c);
-            previousPath.add(bestChildIndex);
-            return children[bestChildIndex].addNodeIfPossible(previousPath);
-        }
-        
-        private int setNewChild() {
-            assert !unplayedCards.isEmpty();
-                        
-            Card nextRemaining = unplayedCards.get(0);
-            unplayedCards = unplayedCards.remove(nextRemaining);
-            
-            TurnState newState;
-            /* 
-             * We collect the trick before passing it the the new child constructor by convention.
-             */
-            newState = correspondingTurnState.withNewCardPlayedAndTrickCollected(nextRemaining);
-            
-            Node newChild = new Node(newState, getNextHand(nextRemaining), playerId);
-            for(int i=0; i<children.length; i++) {
-                if(children[i] == null) {
-                    children[i] = newChild;
-                    return i;
-                }
-            }
-            return -1;
-        }
-        
-        private CardSet getNextHand(Card played) {
-            if(correspondingTurnState.nextPlayer() == playerId)
-                return handSoFar.remove(played);
-            return handSoFar;
-        }
-       
-        private void addTurn(Score score, TeamId teamId) {
-            double fraction = ((double) score.turnPoints(teamId)/((double) score.turnPoints(teamId.other())+1));
-            totalFraction += fraction;
-            totalSquaredFraction += pow(fraction, 2);
-            totalTurns++;
-        }
-        
-        // for debugging purpose
-        private void display() {
-            System.out.print(correspondingTurnState.trick().toString() + "|");
-            System.out.print(this.computeChildV(this, 0));
-            System.out.print("|");
-            System.out.print(this.totalFraction);
-            System.out.print("(");
-            System.out.print(this.totalTurns);
-            System.out.println(")");
-            for(Node child: children) {
-                if(child == null) 
-                    System.out.println(" - {null} ");
-                else {
-                    System.out.print(" - {" + child.correspondingTurnState.trick().toString() + "|");
-                    System.out.print(this.computeChildV(child, 0));
-                    System.out.print("|");
-                    System.out.print(child.totalFraction);
-                    System.out.print("(");
-                    System.out.print(child.totalTurns);
-                    System.out.println(")}");
-                }
-            }
-            System.out.println();
-        }
-    }
 }
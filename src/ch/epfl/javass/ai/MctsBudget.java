@@ -0,0 +1,135 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.time.Duration;
+
+import ch.epfl.javass.jass.Jass;
+
+/**
+ * The class tells a Monte Carlo player how long it may search before choosing its card.
+ * A budget is either:
+ *  - a number of iterations, which is performed whatever time it takes
+ *  - a duration, in which case the player iterates until the deadline of the search
+ *      has passed, and then plays the best child of the root found so far
+ *      (anytime search)
+ *
+ * A search always performs at least MIN_ITERATIONS iterations, so that every child of the
+ * root has been created and simulated once before the best one is chosen, even if the
+ * duration is very short.
+ *
+ * @author xavier
+ *
+ */
+final class MctsBudget {
+    /**
+     * The root of a search has at most one child per card of the hand
+     */
+    static final int MIN_ITERATIONS = Jass.HAND_SIZE;
+
+    // iterations of a budget which is given as a duration
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final int iterations;
+    private final long nanos;
+
+    private MctsBudget(int iterations, long nanos) {
+        this.iterations = iterations;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Budget of a search that performs exactly the given number of iterations
+     * @param iterations must be at least MIN_ITERATIONS, and less than Integer.MAX_VALUE
+     *  (which is used for the budgets given as a duration)
+     * @return
+     */
+    static MctsBudget ofIterations(int iterations) {
+        checkArgument(iterations >= MIN_ITERATIONS && iterations < UNBOUNDED);
+
+        return new MctsBudget(iterations, 0);
+    }
+
+    /**
+     * Budget of a search that iterates until the given duration has elapsed
+     * @param duration must be strictly positive
+     * @return
+     */
+    static MctsBudget ofDuration(Duration duration) {
+        checkArgument(!duration.isNegative() && !duration.isZero());
+
+        return new MctsBudget(UNBOUNDED, duration.toNanos());
+    }
+
+    /**
+     * @return whether the budget is given as a duration
+     */
+    boolean isTimed() {
+        return iterations == UNBOUNDED;
+    }
+
+    /**
+     * @return the number of iterations of the budget, which must not be timed
+     */
+    int iterations() {
+        assert !isTimed();
+
+        return iterations;
+    }
+
+    /**
+     * Gives the budget of one of the workers among which the search is shared:
+     * the iterations are divided between the workers (each still performing at least
+     * MIN_ITERATIONS), whereas each worker has the full duration since they all search 
+     * at the same time.
+     * @param workers
+     * @return
+     */
+    MctsBudget perWorker(int workers) {
+        checkArgument(workers > 0);
+
+        return divided(workers);
+    }
+
+    /**
+     * Gives the budget, in added nodes, of a search which simulates rolloutsPerLeaf turns 
+     * from each node it adds: the iterations are divided by rolloutsPerLeaf (the search still 
+     * adding at least MIN_ITERATIONS nodes), whereas the duration is the same.
+     * @param rolloutsPerLeaf strictly positive, and at most the iterations of the budget
+     * @return
+     */
+    MctsBudget perLeaf(int rolloutsPerLeaf) {
+        checkArgument(rolloutsPerLeaf > 0 && (isTimed() || rolloutsPerLeaf <= iterations));
+
+        return divided(rolloutsPerLeaf);
+    }
+
+    private MctsBudget divided(int parts) {
+        if(isTimed() || parts == 1)
+            return this;
+        return new MctsBudget(Math.max(iterations/parts, MIN_ITERATIONS), 0);
+    }
+
+    /**
+     * Gives the time (as given by System.nanoTime()) after which a search
+     * started at beginTime must not start a new iteration
+     * @param beginTime
+     * @return
+     */
+    long deadline(long beginTime) {
+        return isTimed() ? beginTime + nanos : Long.MAX_VALUE;
+    }
+
+    /**
+     * Tells whether a search which has already performed doneIterations may start one more
+     * @param doneIterations
+     * @param deadline as given by deadline(long)
+     * @return
+     */
+    boolean canIterate(int doneIterations, long deadline) {
+        if(!isTimed())
+            return doneIterations < iterations;
+        // we compare the difference as System.nanoTime() may overflow
+        return doneIterations < MIN_ITERATIONS || System.nanoTime() - deadline < 0;
+    }
+}
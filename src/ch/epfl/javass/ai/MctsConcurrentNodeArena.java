@@ -0,0 +1,328 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+import static ch.epfl.javass.Preconditions.checkState;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import ch.epfl.javass.jass.PackedCard;
+import ch.epfl.javass.jass.PackedCardSet;
+
+/**
+ * The class is used to store the nodes of a Monte Carlo search tree that several threads
+ * search at the same time. As in MctsNodeArena, a node is an index in arrays which hold
+ * its attributes, and the arrays are allocated once and reused by calling clear().
+ *
+ * No lock is ever taken:
+ *  - the attributes of the state of a node (score, unplayed cards, trick, hand, card, parent)
+ *      are written once, before the node is published, and are only read afterwards
+ *  - a card of the unexpanded cards of a node is claimed with a compare-and-set, so that
+ *      only one thread creates the child of a given card
+ *  - a child is published by pushing it at the head of the list of its parent with a
+ *      compare-and-set, after its attributes have been written, so that a thread which
+ *      reaches the child through its parent always sees them
+ *  - the statistics of a node (visits, total reward and total squared reward) are each
+ *      updated with an atomic operation (the rewards, which are doubles, are stored as their
+ *      bits and added with a compare-and-set)
+ * The statistics of a node are thus not updated together: a thread can see the visit of a turn
+ * whose reward is not added yet. This is what MctsEngine does on purpose with tree parallelism:
+ * a turn is counted in the visits of a node as soon as a thread goes through the node, and until
+ * its reward is added, the visit is a virtual loss, which leads the other threads to prefer
+ * other paths.
+ *
+ * Contrary to MctsNodeArena, the arrays cannot grow while the threads add nodes: they are
+ * grown beforehand by reserve(int), and addChild(_,_,_,_,_,_,_) fails if the arena is full.
+ * clear(), keepSubtreeOf(int) and reserve(int) must not be called while a thread is using the arena.
+ *
+ * @author xavier
+ *
+ */
+final class MctsConcurrentNodeArena implements MctsTree {
+    private int capacity;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private long[] scores;
+    private long[] unplayedCards;
+    private int[] tricks;
+    private long[] hands;
+    private int[] cards;
+    private int[] parents;
+    private int[] nextSiblings;
+
+    private AtomicLongArray unexpandedCards;
+    private AtomicIntegerArray firstChildren;
+    private AtomicIntegerArray visits;
+    private AtomicLongArray rewards;
+    private AtomicLongArray squaredRewards;
+
+    // used by keepSubtreeOf(int) to map the old indices of the nodes to the new ones
+    private int[] relocations;
+
+    /**
+     * Allocates all the arrays needed to store up to capacity nodes
+     * @param capacity number of nodes the tree can hold before reserve(int) has to grow it
+     */
+    MctsConcurrentNodeArena(int capacity) {
+        checkArgument(capacity > 0);
+
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.scores = new long[capacity];
+        this.unplayedCards = new long[capacity];
+        this.tricks = new int[capacity];
+        this.hands = new long[capacity];
+        this.cards = new int[capacity];
+        this.parents = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.unexpandedCards = new AtomicLongArray(capacity);
+        this.firstChildren = new AtomicIntegerArray(capacity);
+        this.visits = new AtomicIntegerArray(capacity);
+        this.rewards = new AtomicLongArray(capacity);
+        this.squaredRewards = new AtomicLongArray(capacity);
+        this.relocations = new int[capacity];
+    }
+
+    /**
+     * Removes every node of the tree. The arrays are kept for the next search.
+     */
+    @Override
+    public void clear() {
+        size.set(0);
+    }
+
+    /**
+     * Removes every node of the tree which is not in the subtree of the given node,
+     * which becomes the root (the node 0), as MctsNodeArena.keepSubtreeOf(int) does.
+     * @param node the new root
+     * @return the index of the new root
+     */
+    @Override
+    public int keepSubtreeOf(int node) {
+        int size = this.size.get();
+        checkArgument(node >= 0 && node < size);
+
+        int keptSize = 0;
+        for(int old = 0; old < size; old++) {
+            boolean isKept = old == node
+                    || (old > node && parents[old] != NONE && relocations[parents[old]] != NONE);
+            relocations[old] = isKept ? keptSize++ : NONE;
+        }
+
+        for(int old = node; old < size; old++) {
+            int relocated = relocations[old];
+            if(relocated == NONE)
+                continue;
+            scores[relocated] = scores[old];
+            unplayedCards[relocated] = unplayedCards[old];
+            tricks[relocated] = tricks[old];
+            hands[relocated] = hands[old];
+            cards[relocated] = cards[old];
+            parents[relocated] = old == node ? NONE : relocations[parents[old]];
+            nextSiblings[relocated] = old == node ? NONE : relocate(nextSiblings[old]);
+            unexpandedCards.set(relocated, unexpandedCards.get(old));
+            firstChildren.set(relocated, relocate(firstChildren.get(old)));
+            visits.set(relocated, visits.get(old));
+            rewards.set(relocated, rewards.get(old));
+            squaredRewards.set(relocated, squaredRewards.get(old));
+        }
+
+        this.size.set(keptSize);
+        return 0;
+    }
+
+    private int relocate(int old) {
+        return old == NONE ? NONE : relocations[old];
+    }
+
+    /**
+     * Grows the arrays, if needed, so that the given number of nodes can be added to the tree
+     * @param nodes
+     */
+    void reserve(int nodes) {
+        int size = this.size.get();
+        checkState(nodes <= Integer.MAX_VALUE - size);
+        if(size + nodes <= capacity)
+            return;
+
+        long[] scores = this.scores, unplayedCards = this.unplayedCards, hands = this.hands;
+        int[] tricks = this.tricks, cards = this.cards, parents = this.parents, nextSiblings = this.nextSiblings;
+        AtomicLongArray unexpandedCards = this.unexpandedCards, rewards = this.rewards, squaredRewards = this.squaredRewards;
+        AtomicIntegerArray firstChildren = this.firstChildren, visits = this.visits;
+
+        allocate((int) Math.min(Math.max(2L*capacity, (long) size + nodes), Integer.MAX_VALUE));
+        System.arraycopy(scores, 0, this.scores, 0, size);
+        System.arraycopy(unplayedCards, 0, this.unplayedCards, 0, size);
+        System.arraycopy(tricks, 0, this.tricks, 0, size);
+        System.arraycopy(hands, 0, this.hands, 0, size);
+        System.arraycopy(cards, 0, this.cards, 0, size);
+        System.arraycopy(parents, 0, this.parents, 0, size);
+        System.arraycopy(nextSiblings, 0, this.nextSiblings, 0, size);
+        for(int node = 0; node < size; node++) {
+            this.unexpandedCards.set(node, unexpandedCards.get(node));
+            this.firstChildren.set(node, firstChildren.get(node));
+            this.visits.set(node, visits.get(node));
+            this.rewards.set(node, rewards.get(node));
+            this.squaredRewards.set(node, squaredRewards.get(node));
+        }
+    }
+
+    /**
+     * @return the number of nodes currently in the tree
+     */
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return the number of nodes the tree can hold before reserve(int) has to grow it
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds a node without parent. It should be called right after clear(), before the
+     * arena is given to the threads, so that the root is always the node 0.
+     * @return the index of the root
+     */
+    @Override
+    public int addRoot(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, long pkUnexpandedCards) {
+        return addNode(NONE, PackedCard.INVALID, pkScore, pkUnplayedCards, pkTrick, pkHand, pkUnexpandedCards);
+    }
+
+    @Override
+    public int claimUnexpandedCard(int node, SplittableRandom rng) {
+        while(true) {
+            long unexpanded = unexpandedCards.get(node);
+            if(PackedCardSet.isEmpty(unexpanded))
+                return PackedCard.INVALID;
+            int pkCard = PackedCardSet.get(unexpanded, rng == null ? 0 : rng.nextInt(PackedCardSet.size(unexpanded)));
+            if(unexpandedCards.compareAndSet(node, unexpanded, PackedCardSet.remove(unexpanded, pkCard)))
+                return pkCard;
+        }
+    }
+
+    /**
+     * Adds a node, not visited yet, as the first child of parent.
+     * Throws IllegalStateException if the arena is full (see reserve(int))
+     * @param parent index of the parent node
+     * @param pkCard the card played to get from the parent to the new node,
+     *  which must have been claimed by claimUnexpandedCard(_,_)
+     * @return the index of the new node
+     */
+    @Override
+    public int addChild(int parent, int pkCard, long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, long pkUnexpandedCards) {
+        int child = addNode(parent, pkCard, pkScore, pkUnplayedCards, pkTrick, pkHand, pkUnexpandedCards);
+        int head;
+        do {
+            head = firstChildren.get(parent);
+            nextSiblings[child] = head;
+        } while(!firstChildren.compareAndSet(parent, head, child));
+        return child;
+    }
+
+    private int addNode(int parent, int pkCard, long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, long pkUnexpandedCards) {
+        int node = size.getAndIncrement();
+        checkState(node < capacity);
+
+        scores[node] = pkScore;
+        unplayedCards[node] = pkUnplayedCards;
+        tricks[node] = pkTrick;
+        hands[node] = pkHand;
+        cards[node] = pkCard;
+        parents[node] = parent;
+        nextSiblings[node] = NONE;
+        unexpandedCards.set(node, pkUnexpandedCards);
+        firstChildren.set(node, NONE);
+        visits.set(node, 0);
+        rewards.set(node, 0);
+        squaredRewards.set(node, 0);
+        return node;
+    }
+
+    @Override
+    public long score(int node) {
+        return scores[node];
+    }
+
+    @Override
+    public long unplayedCards(int node) {
+        return unplayedCards[node];
+    }
+
+    @Override
+    public int trick(int node) {
+        return tricks[node];
+    }
+
+    @Override
+    public long hand(int node) {
+        return hands[node];
+    }
+
+    @Override
+    public int card(int node) {
+        return cards[node];
+    }
+
+    int parent(int node) {
+        return parents[node];
+    }
+
+    @Override
+    public int firstChild(int node) {
+        return firstChildren.get(node);
+    }
+
+    @Override
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    @Override
+    public int visits(int node) {
+        return visits.get(node);
+    }
+
+    @Override
+    public double rewards(int node) {
+        return Double.longBitsToDouble(rewards.get(node));
+    }
+
+    @Override
+    public double squaredRewards(int node) {
+        return Double.longBitsToDouble(squaredRewards.get(node));
+    }
+
+    @Override
+    public void addTurn(int node, double reward) {
+        addVisits(node, 1);
+        addRewards(node, reward, reward*reward);
+    }
+
+    @Override
+    public void addVisits(int node, int turns) {
+        visits.getAndAdd(node, turns);
+    }
+
+    @Override
+    public void addRewards(int node, double rewards, double squaredRewards) {
+        add(this.rewards, node, rewards);
+        add(this.squaredRewards, node, squaredRewards);
+    }
+
+    private static void add(AtomicLongArray doubles, int node, double value) {
+        long bits;
+        do {
+            bits = doubles.get(node);
+        } while(!doubles.compareAndSet(node, bits, Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + value)));
+    }
+}
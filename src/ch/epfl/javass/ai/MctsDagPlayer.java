@@ -0,0 +1,458 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+import static ch.epfl.javass.Preconditions.checkState;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.ai.benchmark.PlayerBenchmarkable;
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.Trick;
+import ch.epfl.javass.jass.TurnState;
+
+import static java.lang.Math.log;
+
+/**
+ * We implement a player who is going to make an informed decision on its own (i.e. an AI)
+ * The algorithm used to determine the next card to play is Monte Carlo Tree Search (MCTS),
+ * as in MctsPlayer, except that the searched graph is not a tree but a directed acyclic graph (DAG):
+ * different orders of the same cards often lead to the same state (same score, unplayed cards,
+ * trick and hand). Within a trick, the trick holds the card of each player, so that the
+ * orders only merge once the trick is collected: for example two tricks made of the same cards,
+ * played by other players, with the same winner (and thus the same points).
+ *
+ * As in MctsEngine, the cards of a node where another player plays are restricted to the ones
+ * this player can hold given the tricks of the turn (see CardInference).
+ *
+ * All the nodes are registered in a transposition table (MctsTranspositionTable), and when a
+ * card leads to a state which already has a node, the new edge goes to this node instead
+ * of to a new one. The turns simulated through a state are thus all counted in a single node,
+ * which gives better estimates for the same number of iterations, and the nodes that would have
+ * been created for the transposed states are not needed anymore.
+ *
+ * As a node can have several parents, the points are propagated along the path followed by the
+ * iteration, and a node holds the points of both teams: the mean of a node for one of its parents
+ * is the average points of the team of the player who plays from the parent, which does not depend
+ * on the parent.
+ *
+ * The edges are selected with UCB1 adapted to DAGs: the mean of an edge is the one of the node it
+ * leads to, which gathers the turns of all its parents, but its exploration term counts the turns
+ * which went through the edge itself. A node reached from several parents can have more turns than
+ * any of them, thus with its own turns instead, its exploration term would vanish for each of them.
+ *
+ * @author xavier
+ *
+ */
+public final class MctsDagPlayer implements Player, PlayerBenchmarkable {
+    private static final int NONE = MctsTranspositionTable.NONE;
+
+    // the root, and at most one node per card of the turn
+    private static final int MAX_DEPTH = Jass.TRICKS_PER_TURN * Jass.CARDS_PER_TRICK + 1;
+
+    private PlayerId ownId;
+    private SplittableRandom rng;
+    private final MctsBudget budget;
+    private final RolloutPolicy policy;
+    private int lastIterations = 0;
+
+    // number of nodes allocated at first when the iterations are not known in advance
+    private static final int TIMED_INITIAL_CAPACITY = 1 << 16;
+    // bound of the transposition table when the iterations are not known in advance
+    private static final int TIMED_TABLE_ENTRIES = 1 << 18;
+
+    private static double c = 40.0;
+    private static final MctsSelection EXPLORATION = MctsSelection.ucb1(c);
+    private static final MctsSelection MEAN = MctsSelection.ucb1(0);
+
+    /*
+     * The nodes (states) and the edges (cards) of the graph are stored in arrays,
+     * allocated once and reused from one call of cardToPlay(_;_) to the other,
+     * as in MctsNodeArena (they grow if the budget is a duration).
+     * A node holds its packed state (where the trick is collected by convention), the cards for
+     * which it does not have an edge yet, its first outgoing edge, its number of simulated
+     * turns and the total (and total squared) points of each team in these turns.
+     * An edge holds its card, the node it leads to, the next edge of the same node and the
+     * number of simulated turns which went through it.
+     */
+    private int nodes = 0;
+    private long[] scores;
+    private long[] unplayedCards;
+    private int[] tricks;
+    private long[] hands;
+    private long[] unexpandedCards;
+    private int[] firstEdges;
+    private int[] visits;
+    // indexed by the ordinal of the team, then by the node
+    private final double[][] points = new double[TeamId.COUNT][];
+    private final double[][] squaredPoints = new double[TeamId.COUNT][];
+
+    // an iteration can add several edges (see addNodeIfPossible(int)), thus their arrays can grow
+    private int edges = 0;
+    private int[] edgeCards;
+    private int[] edgeTargets;
+    private int[] nextEdges;
+    private int[] edgeVisits;
+
+    private final MctsTranspositionTable table;
+
+    // the cards the other players can hold, given the tricks of the turn
+    private final CardInference inference = new CardInference();
+
+    // the nodes gone through by the current iteration, and the edges between them
+    private final int[] path = new int[MAX_DEPTH];
+    private final int[] edgePath = new int[MAX_DEPTH-1];
+
+    /**
+     * Mcts Player which searches a graph of the states of the turn,
+     * where transposed states share a single node.
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param iterations number of iterations in the algorithm
+     */
+    public MctsDagPlayer(PlayerId ownId, long rngSeed, int iterations) {
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), RolloutPolicy.uniform());
+    }
+
+    /**
+     * Same as MctsDagPlayer(_,_,_), where the turns are simulated with the given policy
+     * instead of uniformly at random
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param iterations number of iterations in the algorithm
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsDagPlayer(PlayerId ownId, long rngSeed, int iterations, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), policy);
+    }
+
+    /**
+     * Mcts Player which searches a graph of the states of the turn until timeBudget has elapsed,
+     * and then plays the best card found so far (it always performs at least Jass.HAND_SIZE iterations)
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param timeBudget time given to the algorithm for each card to play
+     */
+    public MctsDagPlayer(PlayerId ownId, long rngSeed, Duration timeBudget) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), RolloutPolicy.uniform());
+    }
+
+    /**
+     * Same as MctsDagPlayer(_,_,Duration), where the turns are simulated with the given policy
+     * instead of uniformly at random
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsDagPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), policy);
+    }
+
+    private MctsDagPlayer(PlayerId ownId, long rngSeed, MctsBudget budget, RolloutPolicy policy) {
+        checkArgument(budget.isTimed() || budget.iterations() < MctsTranspositionTable.MAX_ENTRIES);
+
+        this.ownId = ownId;
+        this.rng = new SplittableRandom(rngSeed);
+        this.budget = budget;
+        this.policy = Objects.requireNonNull(policy);
+
+        // the root and at most one new node per iteration
+        int capacity = budget.isTimed() ? TIMED_INITIAL_CAPACITY : budget.iterations()+1;
+        this.scores = new long[capacity];
+        this.unplayedCards = new long[capacity];
+        this.tricks = new int[capacity];
+        this.hands = new long[capacity];
+        this.unexpandedCards = new long[capacity];
+        this.firstEdges = new int[capacity];
+        this.visits = new int[capacity];
+        for(int t=0; t<TeamId.COUNT; t++) {
+            points[t] = new double[capacity];
+            squaredPoints[t] = new double[capacity];
+        }
+        this.edgeCards = new int[capacity];
+        this.edgeTargets = new int[capacity];
+        this.nextEdges = new int[capacity];
+        this.edgeVisits = new int[capacity];
+        // with a time budget, the nodes added once the table is full are simply not transposed
+        this.table = new MctsTranspositionTable(budget.isTimed() ? TIMED_TABLE_ENTRIES : capacity);
+    }
+
+    private int wins = 0;
+
+    private long totalExecutionTime = 0;
+    private long totalExecutions = 0;
+
+    @Override
+    public int getNumberOfWins() {
+        return wins;
+    }
+
+    @Override
+    public long getTotalExecutionTime() {
+        return totalExecutionTime;
+    }
+
+    @Override
+    public long getTotalNumberOfExecutions() {
+        return totalExecutions;
+    }
+
+    /**
+     * @return the number of iterations performed during the last call of cardToPlay(_;_)
+     */
+    public int getLastNumberOfIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * @return the number of nodes of the graph built by the last call of cardToPlay(_;_)
+     */
+    public int getLastNumberOfNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the number of edges of the graph built by the last call of cardToPlay(_;_),
+     *  which is greater than the number of nodes minus one as soon as a node has several parents
+     */
+    public int getLastNumberOfEdges() {
+        return edges;
+    }
+
+    @Override
+    public void updateTrick(Trick newTrick) {
+        inference.updateTrick(newTrick.packed());
+    }
+
+    @Override
+    public void setWinningTeam(TeamId winningTeam) {
+        if(ownId.team().equals(winningTeam))
+            wins++;
+    }
+
+    /**
+     * This is the method that implements the Monte Carlo Search Tree algorithm
+     * The steps are explained in the documentation of this class
+     */
+    @Override
+    public Card cardToPlay(TurnState state, CardSet hand) {
+        totalExecutions++;
+        long beginTime = System.nanoTime();
+
+        // the trick may not have been given to updateTrick(Trick)
+        inference.updateTrick(state.packedTrick());
+
+        nodes = 0;
+        edges = 0;
+        table.clear();
+        int root = addNode(state.packedScore(), state.packedUnplayedCards(), state.packedTrick(), hand.packed());
+
+        long deadline = budget.deadline(beginTime);
+        int doneIterations = 0;
+        for(; budget.canIterate(doneIterations, deadline); doneIterations++) {
+            // SELECTION - EXPANSION
+            int depth = addNodeIfPossible(root);
+
+            // SIMULATION
+            long pkScore = playTurnFromNode(path[depth-1]);
+
+            // BACKPROPAGATION
+            propagatePointsAlongPath(depth, pkScore);
+        }
+        lastIterations = doneIterations;
+
+        int bestEdge = getBestEdge(root, MEAN);
+        Card bestCard = Card.ofPacked(edgeCards[bestEdge]);
+
+        totalExecutionTime += (System.nanoTime()-beginTime);
+
+        return bestCard;
+    }
+
+    /**
+     * Gives the node of the given state: the one of the transposition table if there is one,
+     * or a new node otherwise
+     */
+    private int getOrAddNode(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand) {
+        long hash = MctsTranspositionTable.hash(pkScore, pkUnplayedCards, pkTrick, pkHand);
+        int node = table.get(hash);
+        // two states can have the same hash
+        if(node != NONE && scores[node] == pkScore && unplayedCards[node] == pkUnplayedCards
+                && tricks[node] == pkTrick && hands[node] == pkHand)
+            return node;
+
+        node = addNode(pkScore, pkUnplayedCards, pkTrick, pkHand);
+        table.put(hash, node);
+        return node;
+    }
+
+    private int addNode(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand) {
+        if(nodes == scores.length)
+            growNodes();
+        int node = nodes++;
+        scores[node] = pkScore;
+        unplayedCards[node] = pkUnplayedCards;
+        tricks[node] = pkTrick;
+        hands[node] = pkHand;
+        unexpandedCards[node] = MctsEngine.nodeCards(ownId, inference, pkUnplayedCards, pkTrick, pkHand);
+        firstEdges[node] = NONE;
+        visits[node] = 0;
+        for(int t=0; t<TeamId.COUNT; t++) {
+            points[t][node] = 0;
+            squaredPoints[t][node] = 0;
+        }
+        return node;
+    }
+
+    /**
+     * Goes down the graph, always choosing the best edge, until it finds a node
+     * which does not have all its edges yet. It then adds one edge to this node, leading
+     * either to a new node or to the node of the same state if there is one. In the latter
+     * case, if this node already has edges, the turns simulated from it are already counted
+     * and the iteration would add nothing new below it: the selection thus goes on from it.
+     * @param root
+     * @return the depth of the path followed, whose last node is the one the turn
+     * must be simulated from
+     */
+    private int addNodeIfPossible(int root) {
+        int depth = 0;
+        int node = root;
+        path[depth++] = node;
+        while(!PackedRollouts.isTerminal(tricks[node])) {
+            if(!PackedCardSet.isEmpty(unexpandedCards[node])) {
+                int previousNodes = nodes;
+                int edge = addNewEdge(node);
+                edgePath[depth-1] = edge;
+                node = edgeTargets[edge];
+                path[depth++] = node;
+                if(nodes != previousNodes || firstEdges[node] == NONE)
+                    return depth;
+                continue;
+            }
+            int edge = getBestEdge(node, EXPLORATION);
+            edgePath[depth-1] = edge;
+            node = edgeTargets[edge];
+            path[depth++] = node;
+        }
+        return depth;
+    }
+
+    /**
+     * Adds an edge to the given node, for the first card it does not have an edge for yet
+     * @param parent
+     * @return the added edge
+     */
+    private int addNewEdge(int parent) {
+        long unexpanded = unexpandedCards[parent];
+        assert !PackedCardSet.isEmpty(unexpanded);
+
+        int pkCard = PackedCardSet.get(unexpanded, 0);
+        unexpandedCards[parent] = PackedCardSet.remove(unexpanded, pkCard);
+
+        int pkTrick = tricks[parent];
+        int child = getOrAddNode(MctsEngine.childScore(scores[parent], pkTrick, pkCard),
+                PackedCardSet.remove(unplayedCards[parent], pkCard), MctsEngine.childTrick(pkTrick, pkCard),
+                MctsEngine.childHand(ownId, pkTrick, hands[parent], pkCard));
+
+        if(edges == edgeCards.length)
+            growEdges();
+        int edge = edges++;
+        edgeCards[edge] = pkCard;
+        edgeTargets[edge] = child;
+        nextEdges[edge] = firstEdges[parent];
+        edgeVisits[edge] = 0;
+        firstEdges[parent] = edge;
+        return edge;
+    }
+
+    private void growNodes() {
+        checkState(nodes <= Integer.MAX_VALUE/2);
+
+        int capacity = 2*nodes;
+        scores = Arrays.copyOf(scores, capacity);
+        unplayedCards = Arrays.copyOf(unplayedCards, capacity);
+        tricks = Arrays.copyOf(tricks, capacity);
+        hands = Arrays.copyOf(hands, capacity);
+        unexpandedCards = Arrays.copyOf(unexpandedCards, capacity);
+        firstEdges = Arrays.copyOf(firstEdges, capacity);
+        visits = Arrays.copyOf(visits, capacity);
+        for(int t=0; t<TeamId.COUNT; t++) {
+            points[t] = Arrays.copyOf(points[t], capacity);
+            squaredPoints[t] = Arrays.copyOf(squaredPoints[t], capacity);
+        }
+    }
+
+    private void growEdges() {
+        checkState(edges <= Integer.MAX_VALUE/2);
+
+        int capacity = 2*edges;
+        edgeCards = Arrays.copyOf(edgeCards, capacity);
+        edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+        nextEdges = Arrays.copyOf(nextEdges, capacity);
+        edgeVisits = Arrays.copyOf(edgeVisits, capacity);
+    }
+
+    /**
+     * Gives the edge of greatest value for the player who plays from the given node: the
+     * statistics of the node an edge leads to are scaled to the turns of the edge, so that the
+     * selection sees the mean of the node but the visits of the edge (see the documentation
+     * of this class)
+     * @param node
+     * @param selection
+     * @return
+     */
+    private int getBestEdge(int node, MctsSelection selection) {
+        double logOfTurns = log((double) visits[node]);
+        int team = PackedRollouts.nextPlayer(tricks[node]).team().ordinal();
+
+        double maxV = Double.NEGATIVE_INFINITY;
+        int best = NONE;
+        for(int edge = firstEdges[node]; edge != NONE; edge = nextEdges[edge]) {
+            int child = edgeTargets[edge];
+            double scale = ((double) edgeVisits[edge])/visits[child];
+            double V = selection.value(points[team][child]*scale, squaredPoints[team][child]*scale, edgeVisits[edge], logOfTurns);
+            // edges are linked from the last added to the first added,
+            // thus we use >= to keep the lowest card in case of equality
+            if(V >= maxV) {
+                maxV = V;
+                best = edge;
+            }
+        }
+
+        return best;
+    }
+
+    private long playTurnFromNode(int node) {
+        return PackedRollouts.turn(scores[node], unplayedCards[node], tricks[node], hands[node], ownId, policy, rng);
+    }
+
+    /**
+     * Each node of the path of the iteration is credited with the points of both teams,
+     * and each edge of the path with the turn.
+     * @param depth
+     * @param pkScore
+     */
+    private void propagatePointsAlongPath(int depth, long pkScore) {
+        for(int i=0; i<depth; i++) {
+            int node = path[i];
+            visits[node]++;
+            for(TeamId team: TeamId.ALL) {
+                int teamPoints = PackedScore.turnPoints(pkScore, team);
+                points[team.ordinal()][node] += teamPoints;
+                squaredPoints[team.ordinal()][node] += teamPoints*teamPoints;
+            }
+            if(i > 0)
+                edgeVisits[edgePath[i-1]]++;
+        }
+    }
+}
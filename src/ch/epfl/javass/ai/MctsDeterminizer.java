@@ -0,0 +1,146 @@
+package ch.epfl.javass.ai;
+
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PlayerId;
+
+/**
+ * The class deals the cards which the searching player (ownId) cannot see, i.e. the unplayed
+ * cards which are not in its hand, to the other players. Such a deal is called a determinization:
+ * once it is done, every hand is known and the turn can be searched as a game of perfect information.
+ *
+ * A determinization is consistent with what ownId knows:
+ *  - every player gets exactly as many cards as it still holds (see handSize(_,_,_))
+ *  - a player only gets cards it can still hold, given by a packed card set per player
+ *      (see CardInference), which lacks for example the colors it did not follow
+ *
+ * The cards are dealt from the most constrained (which only one player can hold) to the least
+ * constrained, each to one of the players who can hold it, chosen with a probability
+ * proportional to the number of cards this player still has to receive. Among the deals
+ * consistent with the constraints, all the deals are thus not exactly equally likely, but
+ * they are when there is no constraint. If a dead end is reached (a card that no player
+ * can receive anymore), the cards are dealt again, and after MAX_ATTEMPTS attempts the
+ * constraints on the colors are dropped: the sets given may then be inconsistent.
+ *
+ * The hands are stored in an array allocated once, which is overwritten by each deal.
+ *
+ * @author xavier
+ *
+ */
+final class MctsDeterminizer {
+    private static final int MAX_ATTEMPTS = 16;
+
+    private final PlayerId ownId;
+    private final long[] hands = new long[PlayerId.COUNT];
+    private final int[] missingCards = new int[PlayerId.COUNT];
+
+    /**
+     * @param ownId the player who is searching, and whose hand is known
+     */
+    MctsDeterminizer(PlayerId ownId) {
+        this.ownId = ownId;
+    }
+
+    /**
+     * Gives the number of cards a player still holds
+     * @param player
+     * @param pkUnplayedCards
+     * @param pkTrick collected trick, which is not terminal
+     * @return
+     */
+    static int handSize(PlayerId player, long pkUnplayedCards, int pkTrick) {
+        int size = PackedTrick.size(pkTrick);
+        // the trick being played is not over: its cards are not unplayed anymore
+        int tricksLeft = (PackedCardSet.size(pkUnplayedCards) + size) / Jass.CARDS_PER_TRICK;
+        for(int i=0; i<size; i++) {
+            if(PackedTrick.player(pkTrick, i) == player)
+                return tricksLeft-1;
+        }
+        return tricksLeft;
+    }
+
+    /**
+     * Deals the unplayed cards which are not in the hand of ownId to the other players
+     * @param pkUnplayedCards
+     * @param pkTrick collected trick, which is not terminal
+     * @param pkHand hand of ownId
+     * @param possibleCards cards each player can hold, indexed by the ordinal of its id
+     * @param rng
+     * @return the hands of the players, indexed by the ordinal of their id. The array
+     *  is overwritten by the next deal.
+     */
+    long[] deal(long pkUnplayedCards, int pkTrick, long pkHand, long[] possibleCards, SplittableRandom rng) {
+        assert !PackedRollouts.isTerminal(pkTrick);
+
+        long hiddenCards = PackedCardSet.difference(pkUnplayedCards, pkHand);
+        for(int attempt=0; attempt<MAX_ATTEMPTS; attempt++) {
+            if(tryToDeal(hiddenCards, pkUnplayedCards, pkTrick, pkHand, possibleCards, rng))
+                return hands;
+        }
+
+        long[] anyCards = new long[PlayerId.COUNT];
+        for(int p=0; p<PlayerId.COUNT; p++)
+            anyCards[p] = hiddenCards;
+        boolean isDealt = tryToDeal(hiddenCards, pkUnplayedCards, pkTrick, pkHand, anyCards, rng);
+        assert isDealt;
+        return hands;
+    }
+
+    private boolean tryToDeal(long hiddenCards, long pkUnplayedCards, int pkTrick, long pkHand, long[] possibleCards, SplittableRandom rng) {
+        for(PlayerId player: PlayerId.ALL) {
+            int p = player.ordinal();
+            hands[p] = player == ownId ? PackedCardSet.intersection(pkHand, pkUnplayedCards) : PackedCardSet.EMPTY;
+            missingCards[p] = player == ownId ? 0 : handSize(player, pkUnplayedCards, pkTrick);
+        }
+
+        // the cards that the fewest players can hold are dealt first
+        for(int holders=1; holders<PlayerId.COUNT; holders++) {
+            long cards = hiddenCards;
+            while(cards != PackedCardSet.EMPTY) {
+                int pkCard = Long.numberOfTrailingZeros(cards);
+                cards &= cards-1;
+                if(numberOfHolders(pkCard, possibleCards) == holders && !dealCard(pkCard, possibleCards, rng))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private int numberOfHolders(int pkCard, long[] possibleCards) {
+        int holders = 0;
+        for(int p=0; p<PlayerId.COUNT; p++) {
+            if(p != ownId.ordinal() && PackedCardSet.contains(possibleCards[p], pkCard))
+                holders++;
+        }
+        // a card nobody can hold is dealt with the cards a single player can hold, and fails
+        return Math.max(holders, 1);
+    }
+
+    private boolean dealCard(int pkCard, long[] possibleCards, SplittableRandom rng) {
+        int total = 0;
+        for(int p=0; p<PlayerId.COUNT; p++) {
+            if(p != ownId.ordinal() && PackedCardSet.contains(possibleCards[p], pkCard))
+                total += missingCards[p];
+        }
+        if(total == 0)
+            return false;
+
+        int chosen = rng.nextInt(total);
+        for(int p=0; p<PlayerId.COUNT; p++) {
+            if(p != ownId.ordinal() && PackedCardSet.contains(possibleCards[p], pkCard)) {
+                chosen -= missingCards[p];
+                if(chosen < 0) {
+                    hands[p] = PackedCardSet.add(hands[p], pkCard);
+                    missingCards[p]--;
+                    return true;
+                }
+            }
+        }
+        // chosen < total, thus a player is always chosen
+        assert false;
+        return false;
+    }
+}
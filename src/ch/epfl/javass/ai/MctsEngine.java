@@ -0,0 +1,760 @@
+package ch.epfl.javass.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PackedCard;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.TurnState;
+
+import static java.lang.Math.log;
+
+/**
+ * The class implements the Monte Carlo Tree Search (MCTS) shared by the Monte Carlo players
+ * (MctsPlayer, MctsTunedPlayer, ImprovedMctsPlayer, MctsRootParallelisationPlayer,
+ * MctsLeafParallelisationPlayer and MctsTreeParallelisationPlayer), which only differ by the
+ * strategies they give at construction:
+ *  - the budget of a search (see MctsBudget)
+ *  - the formula with which a child is selected (see MctsSelection)
+ *  - the reward of a simulated turn (see MctsReward)
+ *  - the policy with which the turns are simulated (see RolloutPolicy)
+ *  - how the search is shared among threads (see MctsParallelism)
+ *
+ * The tree of a search is stored in a MctsNodeArena (one per thread with root parallelism,
+ * and a MctsConcurrentNodeArena shared by the threads with tree parallelism), and each iteration:
+ *  - goes down the tree from the root, always choosing the child of greatest value,
+ *      until it finds a node which does not have all its children yet, and adds one of them
+ *  - simulates the rest of the turn from the state of the added node
+ *  - credits each node gone through, which the selection recorded in a MctsPath, with the
+ *      reward of the turn for the team which played the card leading to the node
+ *
+ * The children of a node are the cards the next player can play from its point of view:
+ * the playable cards of its hand so far if it is its turn, and otherwise the playable cards
+ * that are neither in its hand nor known to be missing from the next player (see CardInference).
+ * The players which search other structures than a tree (MctsDagPlayer and MctsInformationSetPlayer)
+ * build their nodes with the same static methods (see nodeCards(_,_,_,_,_) and childScore(_,_,_)).
+ *
+ * The card played is the child of the root of greatest mean reward (over all the trees).
+ * The trees are kept from one call of cardToPlay(_,_) to the next: if the state given is in the
+ * tree of the previous call, the search goes on from its node, with the turns that were already
+ * simulated from it.
+ *
+ * If the calling thread is interrupted while it waits for the tasks, or if one of them fails,
+ * the search is stopped and cardToPlay(_,_) throws (see resultsOf(List)). No task uses the trees
+ * anymore once it has thrown, and they are not reused by the next call.
+ *
+ * @author xavier
+ *
+ */
+final class MctsEngine {
+    // number of nodes allocated at first when the iterations are not known in advance
+    private static final int TIMED_INITIAL_CAPACITY = 1 << 16;
+
+    private final PlayerId ownId;
+    private final SplittableRandom rng;
+    private final MctsBudget budget;
+    private final MctsSelection selection;
+    private final MctsReward reward;
+    private final RolloutPolicy policy;
+    private final MctsParallelism parallelism;
+
+    // the budget of each tree
+    private final MctsBudget treeBudget;
+    /**
+     * The nodes of the trees are allocated once and for all here
+     * and reused from one call of cardToPlay(_,_) to the other
+     */
+    private final MctsTree[] trees;
+    // false if the last search was stopped, leaving the trees with partial statistics
+    private boolean areTreesReusable = true;
+    // set when the search is stopped, so that the tasks searching a tree end their loop
+    private volatile boolean isStopped = false;
+
+    // the cards the other players can hold, given the tricks of the turn
+    private final CardInference inference = new CardInference();
+
+    private int lastIterations = 0;
+    private int lastReusedTurns = 0;
+
+    /**
+     * @param ownId id of the player searching
+     * @param rngSeed used to play random games (and to split the generators of the tasks)
+     * @param budget of each call of cardToPlay(_,_), for all the threads together
+     * @param selection
+     * @param reward
+     * @param policy
+     * @param parallelism
+     */
+    MctsEngine(PlayerId ownId, long rngSeed, MctsBudget budget, MctsSelection selection, MctsReward reward,
+            RolloutPolicy policy, MctsParallelism parallelism) {
+        this.ownId = Objects.requireNonNull(ownId);
+        this.rng = new SplittableRandom(rngSeed);
+        this.budget = Objects.requireNonNull(budget);
+        this.selection = Objects.requireNonNull(selection);
+        this.reward = Objects.requireNonNull(reward);
+        this.policy = Objects.requireNonNull(policy);
+        this.parallelism = Objects.requireNonNull(parallelism);
+
+        switch(parallelism.mode()) {
+        case ROOT:
+            this.treeBudget = budget.perWorker(parallelism.threads());
+            this.trees = new MctsTree[parallelism.threads()];
+            break;
+        case LEAF:
+            this.treeBudget = budget.perLeaf(parallelism.rolloutsPerLeaf());
+            this.trees = new MctsTree[1];
+            break;
+        default:
+            this.treeBudget = budget;
+            this.trees = new MctsTree[1];
+        }
+        // the root and at most one new node per iteration
+        int capacity = treeBudget.isTimed() ? TIMED_INITIAL_CAPACITY : treeBudget.iterations()+1;
+        for(int i=0; i<trees.length; i++) {
+            if(parallelism.mode() == MctsParallelism.Mode.TREE)
+                trees[i] = new MctsConcurrentNodeArena(capacity);
+            else
+                trees[i] = new MctsNodeArena(capacity);
+        }
+    }
+
+    /**
+     * @return the number of turns simulated during the last call of cardToPlay(_,_),
+     *  by all the threads together
+     */
+    int lastIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * @return the number of turns that had already been simulated from the state given
+     * to the last call of cardToPlay(_,_) by the previous calls (see reusableNode(_,_,_))
+     */
+    int lastReusedTurns() {
+        return lastReusedTurns;
+    }
+
+    /**
+     * Takes into account the cards played in the given trick (see CardInference)
+     * @param pkTrick
+     */
+    void updateTrick(int pkTrick) {
+        inference.updateTrick(pkTrick);
+    }
+
+    /**
+     * Searches the given state within the budget
+     * @param state
+     * @param hand of the player searching
+     * @return the card of greatest mean reward
+     * @throws CancellationException if the calling thread is interrupted while it waits for the tasks
+     *  (its interrupt is then restored)
+     */
+    Card cardToPlay(TurnState state, CardSet hand) {
+        long deadline = budget.deadline(System.nanoTime());
+
+        // the trick may not have been given to updateTrick(int)
+        inference.updateTrick(state.packedTrick());
+
+        if(!areTreesReusable) {
+            for(MctsTree tree : trees)
+                tree.clear();
+        }
+        areTreesReusable = false;
+        isStopped = false;
+        switch(parallelism.mode()) {
+        case ROOT:
+            lastIterations = searchRootParallel(state, hand, deadline);
+            break;
+        case LEAF:
+            lastIterations = searchLeafParallel(trees[0], state, hand, deadline);
+            break;
+        case TREE:
+            lastIterations = searchTreeParallel((MctsConcurrentNodeArena) trees[0], state, hand, deadline);
+            break;
+        default:
+            lastIterations = search(trees[0], state, hand, deadline, rng, false);
+        }
+        areTreesReusable = true;
+
+        // each turn simulated was counted once at the root
+        int rootTurns = 0;
+        for(MctsTree tree : trees)
+            rootTurns += tree.visits(0);
+        lastReusedTurns = rootTurns - lastIterations;
+
+        return Card.ofPacked(bestCard(PackedTrick.playableCards(state.packedTrick(), hand.packed())));
+    }
+
+    /**
+     * Searches the tree on the calling thread
+     * @param tree
+     * @param state
+     * @param hand
+     * @param deadline
+     * @param rng random generator of the thread
+     * @param randomExpansion whether the cards are expanded in a random order, or in the order of the bits
+     * @return the number of iterations performed
+     */
+    private int search(MctsTree tree, TurnState state, CardSet hand, long deadline, SplittableRandom rng, boolean randomExpansion) {
+        int root = rootOf(tree, state, hand);
+        MctsPath path = new MctsPath();
+
+        int doneIterations = 0;
+        while(treeBudget.canIterate(doneIterations, deadline) && !isStopped) {
+            // SELECTION - EXPANSION
+            int addedNode = addNodeIfPossible(tree, root, randomExpansion ? rng : null, path, false);
+
+            // SIMULATION
+            long pkScore = playTurnFromNode(tree, addedNode, rng);
+
+            // BACKPROPAGATION
+            propagateRewardsAlong(tree, path, pkScore, false);
+            doneIterations++;
+        }
+        return doneIterations;
+    }
+
+    /**
+     * Each task searches its own tree, and the calling thread waits for all of them
+     * @param state
+     * @param hand
+     * @param deadline
+     * @return the number of iterations performed by all the tasks together
+     */
+    private int searchRootParallel(TurnState state, CardSet hand, long deadline) {
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for(MctsTree tree : trees) {
+            // SplittableRandom is not thread-safe: each task has its own, split in order
+            // so that the card chosen only depends on the seed and on the number of threads
+            SplittableRandom taskRng = rng.split();
+            futures.add(parallelism.executor().submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return search(tree, state, hand, deadline, taskRng, true);
+                }
+            }));
+        }
+
+        int doneIterations = 0;
+        for(int taskIterations : resultsOf(futures))
+            doneIterations += taskIterations;
+        return doneIterations;
+    }
+
+    /**
+     * The tree is only ever read and written by the calling thread. The tasks only
+     * simulate turns from the packed state of a leaf, each with its own random generator
+     * (split from the one of the engine, so that the card chosen only depends on the seed),
+     * and return the sums of the rewards of their turns, which the calling thread then propagates.
+     *
+     * The search is pipelined: while the turns of a leaf are being simulated, the calling
+     * thread already selects and expands the next leaf. The visits of a leaf and of its
+     * parents are counted as soon as its turns are submitted, so that the next selection
+     * sees them (virtual loss), and their rewards are added once they are known.
+     * @param tree
+     * @param state
+     * @param hand
+     * @param deadline
+     * @return the number of turns simulated
+     */
+    private int searchLeafParallel(MctsTree tree, TurnState state, CardSet hand, long deadline) {
+        int root = rootOf(tree, state, hand);
+        int rolloutsPerLeaf = parallelism.rolloutsPerLeaf();
+
+        // the path of the leaf being selected, and the one of the leaf whose turns are being simulated
+        MctsPath path = new MctsPath();
+        MctsPath pendingPath = new MctsPath();
+
+        int doneLeaves = 0;
+        List<Future<Rewards>> pendingBatch = null;
+        while(treeBudget.canIterate(doneLeaves, deadline)) {
+            // SELECTION - EXPANSION
+            int addedNode = addNodeIfPossible(tree, root, null, path, false);
+
+            // SIMULATION
+            List<Future<Rewards>> batch = simulateBatch(tree, addedNode);
+            for(int i=0; i<path.depth(); i++)
+                tree.addVisits(path.node(i), rolloutsPerLeaf);
+
+            // BACKPROPAGATION of the previous leaf, whose turns were simulated during this selection
+            if(pendingBatch != null)
+                propagateBatchAlong(tree, pendingPath, pendingBatch);
+            MctsPath selectedPath = path;
+            path = pendingPath;
+            pendingPath = selectedPath;
+            pendingBatch = batch;
+            doneLeaves++;
+        }
+        propagateBatchAlong(tree, pendingPath, pendingBatch);
+
+        return doneLeaves*rolloutsPerLeaf;
+    }
+
+    /**
+     * All the tasks search the same tree at the same time, each of them performing whole
+     * iterations with its own random generator, and claiming them one by one so that the faster
+     * tasks perform more of them. The calling thread waits for all of them.
+     *
+     * A task counts its visit in each node it goes through during the selection, before its turn
+     * is simulated (virtual loss): as long as its reward is not known, the node looks worse to the
+     * other tasks, which thus tend to explore other paths instead of all simulating the same one.
+     *
+     * As the arena cannot grow during the search, it is grown beforehand so that it can hold one
+     * new node per iteration (or TIMED_INITIAL_CAPACITY new nodes if the budget is a duration,
+     * in which case the search stops early if the arena gets full, and the arena is grown again
+     * before the next search).
+     * @param tree
+     * @param state
+     * @param hand
+     * @param deadline
+     * @return the number of iterations performed by all the tasks together
+     */
+    private int searchTreeParallel(MctsConcurrentNodeArena tree, TurnState state, CardSet hand, long deadline) {
+        int root = rootOf(tree, state, hand);
+        int threads = parallelism.threads();
+        // the iterations being performed when the last one is claimed may still add their nodes
+        tree.reserve((treeBudget.isTimed() ? TIMED_INITIAL_CAPACITY : treeBudget.iterations()) + threads);
+
+        AtomicInteger claimedIterations = new AtomicInteger();
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for(int i=0; i<threads; i++) {
+            // SplittableRandom is not thread-safe: each task has its own
+            SplittableRandom taskRng = rng.split();
+            futures.add(parallelism.executor().submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    // the path of the iterations of this task
+                    MctsPath path = new MctsPath();
+                    int doneIterations = 0;
+                    // each of the iterations being performed adds at most one node
+                    while(treeBudget.canIterate(claimedIterations.getAndIncrement(), deadline)
+                            && tree.size() + threads <= tree.capacity()
+                            && !isStopped) {
+                        // SELECTION - EXPANSION
+                        int addedNode = addNodeIfPossible(tree, root, null, path, true);
+
+                        // SIMULATION
+                        long pkScore = playTurnFromNode(tree, addedNode, taskRng);
+
+                        // BACKPROPAGATION
+                        propagateRewardsAlong(tree, path, pkScore, true);
+                        doneIterations++;
+                    }
+                    return doneIterations;
+                }
+            }));
+        }
+
+        int doneIterations = 0;
+        for(int taskIterations : resultsOf(futures))
+            doneIterations += taskIterations;
+        return doneIterations;
+    }
+
+    /**
+     * Waits for the results of the given tasks. If the calling thread is interrupted or if one
+     * of the tasks fails, the search is stopped (see stop(List)), and
+     *  - if the thread was interrupted, its interrupt is restored and a CancellationException is thrown
+     *  - if a task failed, the exception it threw is rethrown
+     * @param futures
+     * @return the results of the tasks, in the same order
+     */
+    private <T> List<T> resultsOf(List<Future<T>> futures) {
+        List<T> results = new ArrayList<T>(futures.size());
+        try {
+            // the result of a task which is already done is given even if the thread is interrupted
+            if(Thread.interrupted())
+                throw new InterruptedException();
+            for(Future<T> future : futures)
+                results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            stop(futures);
+            Thread.currentThread().interrupt();
+            CancellationException cancellation = new CancellationException("the search was interrupted");
+            cancellation.initCause(e);
+            throw cancellation;
+        } catch (ExecutionException e) {
+            stop(futures);
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if(cause instanceof Error)
+                throw (Error) cause;
+            // the tasks do not declare any checked exception
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Makes the tasks which search a tree end their current iteration, and waits for all the given
+     * tasks to end, so that none of them uses the trees anymore (the ones which have not started yet
+     * stop right away). The tasks are not cancelled, as a cancelled task cannot be waited for.
+     * @param futures
+     */
+    private void stop(List<? extends Future<?>> futures) {
+        isStopped = true;
+        boolean isInterrupted = false;
+        for(Future<?> future : futures) {
+            while(true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    isInterrupted = true;
+                } catch (ExecutionException e) {
+                    // only the first failure is reported
+                    break;
+                }
+            }
+        }
+        if(isInterrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Submits the turns simulated from the given node, divided among the threads
+     * (or among fewer tasks if there are less turns than threads)
+     * @param tree
+     * @param node
+     * @return the sums of the rewards of the turns of each task
+     */
+    private List<Future<Rewards>> simulateBatch(MctsTree tree, int node) {
+        long pkScore = tree.score(node);
+        long pkUnplayedCards = tree.unplayedCards(node);
+        int pkTrick = tree.trick(node);
+        long pkHand = tree.hand(node);
+
+        int rolloutsPerLeaf = parallelism.rolloutsPerLeaf();
+        int tasks = Math.min(parallelism.threads(), rolloutsPerLeaf);
+        List<Future<Rewards>> batch = new ArrayList<Future<Rewards>>(tasks);
+        for(int i=0; i<tasks; i++) {
+            // the turns are divided as evenly as possible
+            int rollouts = rolloutsPerLeaf/tasks + (i < rolloutsPerLeaf%tasks ? 1 : 0);
+            // SplittableRandom is not thread-safe: each task has its own
+            SplittableRandom taskRng = rng.split();
+            batch.add(parallelism.executor().submit(new Callable<Rewards>() {
+                @Override
+                public Rewards call() {
+                    Rewards rewards = new Rewards();
+                    for(int j=0; j<rollouts; j++)
+                        rewards.add(PackedRollouts.turn(pkScore, pkUnplayedCards, pkTrick, pkHand, ownId, policy, taskRng));
+                    return rewards;
+                }
+            }));
+        }
+        return batch;
+    }
+
+    /**
+     * Gives the root of the search of the given state in the tree: the node of the state
+     * in the tree of the previous call if there is one, and otherwise a new root
+     * @param tree
+     * @param state
+     * @param hand
+     * @return
+     */
+    private int rootOf(MctsTree tree, TurnState state, CardSet hand) {
+        int reusable = reusableNode(tree, state, hand);
+        if(reusable != MctsTree.NONE)
+            return tree.keepSubtreeOf(reusable);
+
+        tree.clear();
+        long pkUnplayedCards = state.packedUnplayedCards();
+        int pkTrick = state.packedTrick();
+        return tree.addRoot(state.packedScore(), pkUnplayedCards, pkTrick, hand.packed(),
+                nodeCards(ownId, inference, pkUnplayedCards, pkTrick, hand.packed()));
+    }
+
+    /**
+     * Looks in the tree of the previous call of cardToPlay(_,_) for a node of the given
+     * state, so that the search can go on from it instead of from a new root. Between two
+     * calls of the same turn, the cards played by this player and the others (which are
+     * the cards unplayed at the root but not anymore in the given state) lead from the root
+     * to such a node, if it has been added.
+     *
+     * The cards are not given in the order in which they were played, thus the subtree of
+     * the root is explored, going only through these cards, until the node with the same
+     * score, unplayed cards, trick and hand as the given ones is found. Two nodes that match
+     * represent the same state, which is all the statistics of a node depend on.
+     * @param tree
+     * @param state
+     * @param hand
+     * @return the node of the given state, or MctsTree.NONE if there is none
+     */
+    private int reusableNode(MctsTree tree, TurnState state, CardSet hand) {
+        if(tree.size() == 0)
+            return MctsTree.NONE;
+
+        int root = 0;
+        long pkUnplayedCards = state.packedUnplayedCards();
+        long pkPlayedCards = PackedCardSet.difference(tree.unplayedCards(root), pkUnplayedCards);
+        if(PackedCardSet.difference(pkUnplayedCards, tree.unplayedCards(root)) != PackedCardSet.EMPTY)
+            return MctsTree.NONE;
+
+        return findNode(tree, root, pkPlayedCards, state.packedScore(), pkUnplayedCards, state.packedTrick(), hand.packed());
+    }
+
+    private int findNode(MctsTree tree, int node, long pkPlayedCards, long pkScore, long pkUnplayedCards, int pkTrick, long pkHand) {
+        if(PackedCardSet.isEmpty(pkPlayedCards)) {
+            boolean isSameState = tree.score(node) == pkScore && tree.unplayedCards(node) == pkUnplayedCards
+                    && tree.trick(node) == pkTrick && tree.hand(node) == pkHand;
+            return isSameState ? node : MctsTree.NONE;
+        }
+
+        for(int child = tree.firstChild(node); child != MctsTree.NONE; child = tree.nextSibling(child)) {
+            int pkCard = tree.card(child);
+            if(PackedCardSet.contains(pkPlayedCards, pkCard)) {
+                int found = findNode(tree, child, PackedCardSet.remove(pkPlayedCards, pkCard), pkScore, pkUnplayedCards, pkTrick, pkHand);
+                if(found != MctsTree.NONE)
+                    return found;
+            }
+        }
+        return MctsTree.NONE;
+    }
+
+    /**
+     * Get the cards that can be played from a node, i.e. the cards for which
+     * the node will have a child. If it is the turn of the player searching, these are the
+     * playable cards of its hand so far, otherwise these are the playable cards among the
+     * unplayed cards which are not in its hand and that the next player can hold
+     * (see CardInference).
+     * @param ownId the player searching
+     * @param inference what the player searching knows about the cards of the others
+     * @param pkUnplayedCards
+     * @param pkTrick should be collected by convention
+     * @param pkHand hand so far of the player searching
+     * @return
+     */
+    static long nodeCards(PlayerId ownId, CardInference inference, long pkUnplayedCards, int pkTrick, long pkHand) {
+        if(PackedRollouts.isTerminal(pkTrick))
+            return PackedCardSet.EMPTY;
+        PlayerId player = PackedRollouts.nextPlayer(pkTrick);
+        if(player == ownId)
+            return PackedTrick.playableCards(pkTrick, pkHand);
+        long notInHand = PackedCardSet.difference(pkUnplayedCards, pkHand);
+        return PackedTrick.playableCards(pkTrick, inference.possibleCards(player, notInHand));
+    }
+
+    /**
+     * The state of a child is given by the following methods, from the state of its parent
+     * and the card played. We collect the trick before adding the child by convention.
+     * @param pkScore of the parent
+     * @param pkTrick of the parent, which is not terminal
+     * @param pkCard
+     * @return the score of the child
+     */
+    static long childScore(long pkScore, int pkTrick, int pkCard) {
+        int pkFullTrick = PackedTrick.withAddedCard(pkTrick, pkCard);
+        return PackedTrick.isFull(pkFullTrick) ? PackedRollouts.withTrickCollected(pkScore, pkFullTrick) : pkScore;
+    }
+
+    /**
+     * @param pkTrick of the parent, which is not terminal
+     * @param pkCard
+     * @return the (collected) trick of the child
+     */
+    static int childTrick(int pkTrick, int pkCard) {
+        int pkChildTrick = PackedTrick.withAddedCard(pkTrick, pkCard);
+        return PackedTrick.isFull(pkChildTrick) ? PackedTrick.nextEmpty(pkChildTrick) : pkChildTrick;
+    }
+
+    /**
+     * @param ownId the player searching
+     * @param pkTrick of the parent, which is not terminal
+     * @param pkHand of the player searching at the parent
+     * @param pkCard
+     * @return the hand of the player searching at the child
+     */
+    static long childHand(PlayerId ownId, int pkTrick, long pkHand, int pkCard) {
+        return PackedRollouts.nextPlayer(pkTrick) == ownId ? PackedCardSet.remove(pkHand, pkCard) : pkHand;
+    }
+
+    /**
+     * Goes down the tree, always choosing the best child, until it finds a node
+     * which does not have all its children yet. It then adds one child to this node.
+     * With tree parallelism, if the children of a node are all being created by other threads,
+     * the node is used as if it were a leaf.
+     * @param tree
+     * @param root
+     * @param rng used to choose the card of the added child, or null to add the first one
+     * @param path filled with the nodes gone through, from the root to the returned node
+     *  (the root being credited to the other team of this player)
+     * @param countsVisits whether each node gone through is counted as visited right away
+     *  (with tree parallelism)
+     * @return the added node, or the node reached if there was no node to add
+     */
+    private int addNodeIfPossible(MctsTree tree, int root, SplittableRandom rng, MctsPath path, boolean countsVisits) {
+        path.clear();
+        path.push(root, ownId.team().other());
+        if(countsVisits)
+            tree.addVisits(root, 1);
+
+        int node = root;
+        while(!PackedRollouts.isTerminal(tree.trick(node))) {
+            TeamId team = PackedRollouts.nextPlayer(tree.trick(node)).team();
+            int pkCard = tree.claimUnexpandedCard(node, rng);
+            if(pkCard != PackedCard.INVALID) {
+                node = addNewChild(tree, node, pkCard);
+                path.push(node, team);
+                if(countsVisits)
+                    tree.addVisits(node, 1);
+                return node;
+            }
+
+            int child = selectedChild(tree, node);
+            if(child == MctsTree.NONE)
+                return node;
+            node = child;
+            path.push(node, team);
+            if(countsVisits)
+                tree.addVisits(node, 1);
+        }
+        return node;
+    }
+
+    private int addNewChild(MctsTree tree, int parent, int pkCard) {
+        int pkTrick = tree.trick(parent);
+        long pkUnplayedCards = PackedCardSet.remove(tree.unplayedCards(parent), pkCard);
+        long pkHand = childHand(ownId, pkTrick, tree.hand(parent), pkCard);
+        int pkChildTrick = childTrick(pkTrick, pkCard);
+
+        return tree.addChild(parent, pkCard, childScore(tree.score(parent), pkTrick, pkCard), pkUnplayedCards,
+                pkChildTrick, pkHand, nodeCards(ownId, inference, pkUnplayedCards, pkChildTrick, pkHand));
+    }
+
+    /**
+     * Gives the child of greatest value. A child whose visit is not counted yet (which
+     * another thread has just created, with tree parallelism) is skipped.
+     * @param tree
+     * @param node
+     * @return the child, or MctsTree.NONE if the node does not have any child visited yet
+     */
+    private int selectedChild(MctsTree tree, int node) {
+        double logOfVisits = log(tree.visits(node));
+
+        double maxV = Double.NEGATIVE_INFINITY;
+        int best = MctsTree.NONE;
+        for(int child = tree.firstChild(node); child != MctsTree.NONE; child = tree.nextSibling(child)) {
+            int visits = tree.visits(child);
+            if(visits == 0)
+                continue;
+            double V = selection.value(tree.rewards(child), tree.squaredRewards(child), visits, logOfVisits);
+            // children are linked from the last added to the first added, thus we use >=
+            // to keep the first added in case of equality
+            if(V >= maxV) {
+                maxV = V;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gives the card of the root which has the greatest mean reward over all the trees
+     * (the lowest one in case of equality)
+     * @param pkPlayable the cards of the root
+     * @return
+     */
+    private int bestCard(long pkPlayable) {
+        double maxMean = Double.NEGATIVE_INFINITY;
+        int bestCard = PackedCardSet.get(pkPlayable, 0);
+        for(long rest = pkPlayable; rest != 0; rest &= rest - 1) {
+            int pkCard = Long.numberOfTrailingZeros(rest);
+            double rewards = 0;
+            int visits = 0;
+            for(MctsTree tree : trees) {
+                for(int child = tree.firstChild(0); child != MctsTree.NONE; child = tree.nextSibling(child)) {
+                    if(tree.card(child) == pkCard) {
+                        rewards += tree.rewards(child);
+                        visits += tree.visits(child);
+                    }
+                }
+            }
+            if(visits > 0 && rewards/visits > maxMean) {
+                maxMean = rewards/visits;
+                bestCard = pkCard;
+            }
+        }
+        return bestCard;
+    }
+
+    private long playTurnFromNode(MctsTree tree, int node, SplittableRandom rng) {
+        return PackedRollouts.turn(tree.score(node), tree.unplayedCards(node), tree.trick(node), tree.hand(node), ownId, policy, rng);
+    }
+
+    /**
+     * Each node of the path of the iteration is credited with the reward
+     * of the team which played the card leading to the node.
+     * @param tree
+     * @param path
+     * @param pkScore
+     * @param isVisited whether the visits of the nodes were already counted during the selection
+     */
+    private void propagateRewardsAlong(MctsTree tree, MctsPath path, long pkScore, boolean isVisited) {
+        double team1Reward = reward.reward(pkScore, TeamId.TEAM_1);
+        double team2Reward = reward.reward(pkScore, TeamId.TEAM_2);
+
+        for(int i=0; i<path.depth(); i++) {
+            double r = path.team(i) == TeamId.TEAM_1 ? team1Reward : team2Reward;
+            if(isVisited)
+                tree.addRewards(path.node(i), r, r*r);
+            else
+                tree.addTurn(path.node(i), r);
+        }
+    }
+
+    /**
+     * Same as propagateRewardsAlong(_,_,_,_), for the turns of a batch, whose visits
+     * were already counted
+     * @param tree
+     * @param path
+     * @param batch
+     */
+    private void propagateBatchAlong(MctsTree tree, MctsPath path, List<Future<Rewards>> batch) {
+        Rewards rewards = new Rewards();
+        for(Rewards taskRewards : resultsOf(batch))
+            rewards.add(taskRewards);
+
+        for(int i=0; i<path.depth(); i++) {
+            int team = path.team(i).ordinal();
+            tree.addRewards(path.node(i), rewards.rewards[team], rewards.squaredRewards[team]);
+        }
+    }
+
+    /**
+     * The sums of the rewards (and of their squares) of several turns, for each team
+     */
+    private final class Rewards {
+        final double[] rewards = new double[TeamId.COUNT];
+        final double[] squaredRewards = new double[TeamId.COUNT];
+
+        void add(long pkScore) {
+            for(TeamId team : TeamId.ALL) {
+                double r = reward.reward(pkScore, team);
+                rewards[team.ordinal()] += r;
+                squaredRewards[team.ordinal()] += r*r;
+            }
+        }
+
+        void add(Rewards that) {
+            for(int t=0; t<TeamId.COUNT; t++) {
+                rewards[t] += that.rewards[t];
+                squaredRewards[t] += that.squaredRewards[t];
+            }
+        }
+    }
+}
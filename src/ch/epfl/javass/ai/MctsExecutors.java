@@ -0,0 +1,53 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The class gives the executors on which the parallel MCTS players run their searches.
+ *
+ * A parallel player does not create (and shut down) its own threads at each call of
+ * cardToPlay(_;_): it submits its tasks to an executor that lives as long as the program,
+ * which is by default the one returned by shared(), so that all the players of the
+ * same JVM use the same threads. A player can also be given any other executor at
+ * construction, in which case it is the responsibility of the caller to shut it down.
+ *
+ * The executors created here are work-stealing pools (ForkJoinPool), whose threads are
+ * daemon threads: they never prevent the JVM from exiting.
+ *
+ * @author xavier
+ *
+ */
+public final class MctsExecutors {
+    private MctsExecutors() {}
+
+    // the shared executor is only created when it is first needed
+    private static final class SharedHolder {
+        private static final ExecutorService SHARED = newWorkStealingPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Gives the executor shared by all the parallel players that were not given one at
+     * construction. Its parallelism is the number of available processors.
+     * It must not be shut down.
+     * @return
+     */
+    public static ExecutorService shared() {
+        return SharedHolder.SHARED;
+    }
+
+    /**
+     * Creates a new work-stealing executor which runs at most parallelism tasks
+     * at the same time, e.g. to give several players a pool separate from the shared one.
+     * @param parallelism must be strictly positive
+     * @return
+     */
+    public static ExecutorService newWorkStealingPool(int parallelism) {
+        checkArgument(parallelism > 0);
+
+        // asyncMode (FIFO) since the tasks submitted are never joined from inside the pool
+        return new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+}
@@ -0,0 +1,379 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.ai.benchmark.PlayerBenchmarkable;
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.Trick;
+import ch.epfl.javass.jass.TurnState;
+
+import static java.lang.Math.log;
+
+/**
+ * We implement a player who is going to make an informed decision on its own (i.e. an AI)
+ * The algorithm used to determine the next card to play is Information Set Monte Carlo Tree
+ * Search (ISMCTS, in its single observer version).
+ *
+ * In MctsPlayer, the other players are considered to be able to play any unplayed card which
+ * is not in the hand of this player: a node where another player plays has up to 27 children,
+ * and the rollouts let the players play cards of colors they do not have.
+ * Here, each iteration starts by dealing the hidden cards to the other players (a determinization,
+ * see MctsDeterminizer), consistently with the number of cards each one holds and with the cards
+ * it has shown it does not have during the turn (see CardInference, which is fed by
+ * updateTrick(Trick)). The iteration then only goes through the cards that can be played in this deal:
+ *  - the selection only chooses among the children whose card is playable in the deal
+ *  - the expansion adds a child for a card playable in the deal which has no child yet
+ *  - the rollout is played with the hands of the deal. Once few cards are left, it can be
+ *      replaced by the exact value of the deal (see DoubleDummySolver), which has no noise.
+ *
+ * The tree is shared by all the determinizations: a node represents what this player knows
+ * (the information set) after a sequence of cards, and not one state of the turn. As a child
+ * can only be selected in the deals where its card is playable, the UCB formula uses the number of
+ * iterations in which the child was available instead of the number of turns of its parent.
+ *
+ * As in MctsPlayer, the points are propagated up to the root, each node being credited
+ * with the points of the team which played the card leading to it, and the card played
+ * is the one of the child of the root with the best average.
+ *
+ * @author xavier
+ *
+ */
+public final class MctsInformationSetPlayer implements Player, PlayerBenchmarkable {
+    private PlayerId ownId;
+    private SplittableRandom rng;
+    private final MctsBudget budget;
+    private int lastIterations = 0;
+
+    // number of nodes allocated at first when the iterations are not known in advance
+    private static final int TIMED_INITIAL_CAPACITY = 1 << 16;
+
+    private static double c = 40.0;
+    private static final MctsSelection EXPLORATION = MctsSelection.ucb1(c);
+    private static final MctsSelection MEAN = MctsSelection.ucb1(0);
+
+    private final MctsNodeArena tree;
+    // number of iterations in which the card of a node was playable from its parent,
+    // which grows with the tree
+    private int[] availabilities;
+    // the nodes gone through by the current iteration
+    private final MctsPath path = new MctsPath();
+
+    private final MctsDeterminizer determinizer;
+    private final CardInference inference = new CardInference();
+    // the cards each player can hold, and the hands of the current iteration
+    private final long[] possibleCards = new long[PlayerId.COUNT];
+    private final long[] hands = new long[PlayerId.COUNT];
+
+    // solves the turns in which at most solvedCards cards are left to play, if not null
+    private final DoubleDummySolver solver;
+    private final int solvedCards;
+    private static final int SOLVER_TABLE_SIZE = 1 << 16;
+
+    private final RolloutPolicy policy;
+
+    /**
+     * Mcts Player which searches the information sets of this player,
+     * sampling the hands of the other players at each iteration
+     * @param ownId id of this player
+     * @param rngSeed used to deal the hidden cards and to play random games
+     * @param iterations number of iterations in the algorithm
+     */
+    public MctsInformationSetPlayer(PlayerId ownId, long rngSeed, int iterations) {
+        this(ownId, rngSeed, iterations, 0);
+    }
+
+    /**
+     * Mcts Player which searches the information sets of this player, and which
+     * replaces the random turns by the exact solving of the deal (see DoubleDummySolver)
+     * once at most solvedTricks tricks are left to play
+     * @param ownId id of this player
+     * @param rngSeed used to deal the hidden cards and to play random games
+     * @param iterations number of iterations in the algorithm
+     * @param solvedTricks number of tricks from which the deals are solved, 0 to never solve them
+     */
+    public MctsInformationSetPlayer(PlayerId ownId, long rngSeed, int iterations, int solvedTricks) {
+        this(ownId, rngSeed, iterations, solvedTricks, RolloutPolicy.uniform());
+    }
+
+    /**
+     * Same as MctsInformationSetPlayer(_,_,_,_), where the turns which are not solved are
+     * simulated with the given policy instead of uniformly at random
+     * @param ownId id of this player
+     * @param rngSeed used to deal the hidden cards and to play random games
+     * @param iterations number of iterations in the algorithm
+     * @param solvedTricks number of tricks from which the deals are solved, 0 to never solve them
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsInformationSetPlayer(PlayerId ownId, long rngSeed, int iterations, int solvedTricks, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), solvedTricks, policy);
+    }
+
+    /**
+     * Mcts Player which searches the information sets of this player until timeBudget has elapsed,
+     * and then plays the best card found so far (it always performs at least Jass.HAND_SIZE iterations)
+     * @param ownId id of this player
+     * @param rngSeed used to deal the hidden cards and to play random games
+     * @param timeBudget time given to the algorithm for each card to play
+     */
+    public MctsInformationSetPlayer(PlayerId ownId, long rngSeed, Duration timeBudget) {
+        this(ownId, rngSeed, timeBudget, 0, RolloutPolicy.uniform());
+    }
+
+    /**
+     * Same as MctsInformationSetPlayer(_,_,_,_,_), with a time budget instead of a number of iterations
+     * @param ownId id of this player
+     * @param rngSeed used to deal the hidden cards and to play random games
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param solvedTricks number of tricks from which the deals are solved, 0 to never solve them
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsInformationSetPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, int solvedTricks, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), solvedTricks, policy);
+    }
+
+    private MctsInformationSetPlayer(PlayerId ownId, long rngSeed, MctsBudget budget, int solvedTricks, RolloutPolicy policy) {
+        checkArgument(solvedTricks >= 0 && solvedTricks <= Jass.TRICKS_PER_TURN);
+
+        this.ownId = ownId;
+        this.rng = new SplittableRandom(rngSeed);
+        this.budget = budget;
+        // the root and at most one new node per iteration
+        int capacity = budget.isTimed() ? TIMED_INITIAL_CAPACITY : budget.iterations()+1;
+        this.tree = new MctsNodeArena(capacity);
+        this.availabilities = new int[capacity];
+        this.determinizer = new MctsDeterminizer(ownId);
+        this.solver = solvedTricks > 0 ? new DoubleDummySolver(SOLVER_TABLE_SIZE) : null;
+        this.solvedCards = solvedTricks * Jass.CARDS_PER_TRICK;
+        this.policy = Objects.requireNonNull(policy);
+    }
+
+    private int wins = 0;
+
+    private long totalExecutionTime = 0;
+    private long totalExecutions = 0;
+
+    @Override
+    public int getNumberOfWins() {
+        return wins;
+    }
+
+    @Override
+    public long getTotalExecutionTime() {
+        return totalExecutionTime;
+    }
+
+    @Override
+    public long getTotalNumberOfExecutions() {
+        return totalExecutions;
+    }
+
+    /**
+     * @return the number of iterations performed during the last call of cardToPlay(_;_)
+     */
+    public int getLastNumberOfIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * @return the number of nodes of the tree built by the last call of cardToPlay(_;_)
+     */
+    public int getLastNumberOfNodes() {
+        return tree.size();
+    }
+
+    @Override
+    public void updateTrick(Trick newTrick) {
+        inference.updateTrick(newTrick.packed());
+    }
+
+    @Override
+    public void setWinningTeam(TeamId winningTeam) {
+        if(ownId.team().equals(winningTeam))
+            wins++;
+    }
+
+    /**
+     * This is the method that implements the ISMCTS algorithm
+     * The steps are explained in the documentation of this class
+     */
+    @Override
+    public Card cardToPlay(TurnState state, CardSet hand) {
+        totalExecutions++;
+        long beginTime = System.nanoTime();
+
+        long pkUnplayedCards = state.packedUnplayedCards();
+        int pkTrick = state.packedTrick();
+        long pkHand = hand.packed();
+
+        // the trick may not have been given to updateTrick(Trick)
+        inference.updateTrick(pkTrick);
+        long hiddenCards = PackedCardSet.difference(pkUnplayedCards, pkHand);
+        for(PlayerId player: PlayerId.ALL)
+            possibleCards[player.ordinal()] = PackedCardSet.intersection(hiddenCards, inference.possibleCards(player));
+
+        tree.clear();
+        int root = tree.addRoot(state.packedScore(), pkUnplayedCards, pkTrick, pkHand,
+                getUnplayedCards(pkUnplayedCards, pkTrick, pkHand));
+        availabilities[root] = 0;
+
+        long deadline = budget.deadline(beginTime);
+        int doneIterations = 0;
+        for(; budget.canIterate(doneIterations, deadline); doneIterations++) {
+            // DETERMINIZATION
+            System.arraycopy(determinizer.deal(pkUnplayedCards, pkTrick, pkHand, possibleCards, rng), 0, hands, 0, PlayerId.COUNT);
+
+            // SELECTION - EXPANSION
+            int addedNode = addNodeIfPossible(root);
+
+            // SIMULATION
+            int points = playTurnFromNode(addedNode);
+
+            // BACKPROPAGATION
+            propagatePointsAlongPath(points);
+        }
+        lastIterations = doneIterations;
+
+        int bestChild = getBestChild(root, PackedCardSet.ALL_CARDS, MEAN);
+        Card bestCard = Card.ofPacked(tree.card(bestChild));
+
+        totalExecutionTime += (System.nanoTime()-beginTime);
+
+        return bestCard;
+    }
+
+    /**
+     * Get the cards for which a node can have a child, whatever the hands of the other
+     * players are. If it is this player's turn, these are the playable cards of its hand so
+     * far (see MctsEngine.nodeCards(_,_,_,_,_)). Otherwise, these are all the unplayed cards
+     * which are not in its hand: unlike in MctsEngine, they are not restricted to the playable ones,
+     * as a player who does not have the color of the trick (in some deals) can play any card, nor
+     * to the ones the player can hold, as a deal may not respect them (see MctsDeterminizer).
+     * The cards which cannot be played in a deal are skipped by the iterations of this deal anyway.
+     * @param pkUnplayedCards
+     * @param pkTrick should be collected by convention
+     * @param pkHand
+     * @return
+     */
+    private long getUnplayedCards(long pkUnplayedCards, int pkTrick, long pkHand) {
+        if(!PackedRollouts.isTerminal(pkTrick) && PackedRollouts.nextPlayer(pkTrick) != ownId)
+            return PackedCardSet.difference(pkUnplayedCards, pkHand);
+        return MctsEngine.nodeCards(ownId, inference, pkUnplayedCards, pkTrick, pkHand);
+    }
+
+    /**
+     * Goes down the tree, always choosing the best child among the ones whose card
+     * is playable in the hands of the iteration, until it finds a node which does not
+     * have a child for all these cards yet. It then adds one child to this node.
+     * The cards played are removed from the hands of the iteration, and the nodes gone
+     * through are recorded in the path of the iteration.
+     * @param root
+     * @return the added node, or the terminal node reached if there was no node to add
+     */
+    private int addNodeIfPossible(int root) {
+        int node = root;
+        path.clear();
+        path.push(node, ownId.team().other());
+        while(!PackedRollouts.isTerminal(tree.trick(node))) {
+            PlayerId nextPlayer = PackedRollouts.nextPlayer(tree.trick(node));
+            int player = nextPlayer.ordinal();
+            long playable = PackedTrick.playableCards(tree.trick(node), hands[player]);
+
+            for(int child = tree.firstChild(node); child != MctsNodeArena.NONE; child = tree.nextSibling(child)) {
+                if(PackedCardSet.contains(playable, tree.card(child)))
+                    availabilities[child]++;
+            }
+
+            long unexpandedPlayable = PackedCardSet.intersection(tree.unexpandedCards(node), playable);
+            if(!PackedCardSet.isEmpty(unexpandedPlayable)) {
+                int pkCard = PackedCardSet.get(unexpandedPlayable, 0);
+                hands[player] = PackedCardSet.remove(hands[player], pkCard);
+                node = addNewChild(node, pkCard);
+                path.push(node, nextPlayer.team());
+                return node;
+            }
+            node = getBestChild(node, playable, EXPLORATION);
+            hands[player] = PackedCardSet.remove(hands[player], tree.card(node));
+            path.push(node, nextPlayer.team());
+        }
+        return node;
+    }
+
+    private int addNewChild(int parent, int pkCard) {
+        tree.setUnexpandedCards(parent, PackedCardSet.remove(tree.unexpandedCards(parent), pkCard));
+
+        int pkTrick = tree.trick(parent);
+        long pkUnplayedCards = PackedCardSet.remove(tree.unplayedCards(parent), pkCard);
+        long pkHand = MctsEngine.childHand(ownId, pkTrick, tree.hand(parent), pkCard);
+        int pkChildTrick = MctsEngine.childTrick(pkTrick, pkCard);
+
+        int child = tree.addChild(parent, pkCard, MctsEngine.childScore(tree.score(parent), pkTrick, pkCard), pkUnplayedCards,
+                pkChildTrick, pkHand, getUnplayedCards(pkUnplayedCards, pkChildTrick, pkHand));
+        if(child == availabilities.length)
+            availabilities = Arrays.copyOf(availabilities, tree.capacity());
+        // the card of the child is playable in the iteration which adds it
+        availabilities[child] = 1;
+        return child;
+    }
+
+    /**
+     * Gives the child with the best value among the ones whose card is in the given set,
+     * where the visits of the parent are replaced by the availabilities of the child
+     * @param node
+     * @param pkCards at least one child of the node has one of these cards
+     * @param selection
+     * @return
+     */
+    private int getBestChild(int node, long pkCards, MctsSelection selection) {
+        double maxV = -1;
+        int best = MctsNodeArena.NONE;
+        for(int child = tree.firstChild(node); child != MctsNodeArena.NONE; child = tree.nextSibling(child)) {
+            if(!PackedCardSet.contains(pkCards, tree.card(child)))
+                continue;
+            double V = selection.value(tree.rewards(child), tree.squaredRewards(child), tree.visits(child),
+                    log((double) availabilities[child]));
+            // children are linked from the last added to the first added,
+            // thus we use >= to keep the lowest card in case of equality
+            if(V >= maxV) {
+                maxV = V;
+                best = child;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Plays the end of the turn from the given node with the hands of the iteration: with the policy,
+     * or perfectly (for both teams) if there are few enough cards left to solve the deal
+     * @param node
+     * @return the points of the turn of both teams at its end (see DoubleDummySolver.points(_,_))
+     */
+    private int playTurnFromNode(int node) {
+        long pkScore = tree.score(node);
+        if(solver != null && PackedCardSet.size(tree.unplayedCards(node)) <= solvedCards)
+            return DoubleDummySolver.turnPoints(pkScore) + solver.solve(pkScore, tree.trick(node), hands);
+        return DoubleDummySolver.turnPoints(PackedRollouts.determinizedTurn(pkScore, tree.trick(node), hands, policy, rng));
+    }
+
+    /**
+     * Each node of the path of the iteration is credited with the points
+     * of the team which played the card leading to the node.
+     * @param points points of both teams (see DoubleDummySolver.points(_,_))
+     */
+    private void propagatePointsAlongPath(int points) {
+        for(int i=0; i<path.depth(); i++)
+            tree.addTurn(path.node(i), DoubleDummySolver.points(points, path.team(i)));
+    }
+}
@@ -1,27 +1,15 @@
 package ch.epfl.javass.ai;
 
-import static ch.epfl.javass.Preconditions.checkArgument;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.SplittableRandom;
-import java.util.concurrent.CountDownLatch;
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 import ch.epfl.javass.jass.Card;
 import ch.epfl.javass.jass.CardSet;
-import ch.epfl.javass.jass.Jass;
 import ch.epfl.javass.jass.Player;
 import ch.epfl.javass.jass.PlayerId;
-import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.Trick;
 import ch.epfl.javass.jass.TurnState;
 
-import static java.lang.Math.sqrt;
-import static java.lang.Math.log;
-
 /**
  * We implement a player who is going to make an informed decision on its own (i.e. an AI)
  * The algorithm used to determine the next card to play is Monte Carlo Tree Search (MCTS)
@@ -47,320 +35,140 @@ import static java.lang.Math.log;
  * The way you choose the card to play is thus choosing which child node of the root leads to the best
  * outcome for this Player's team
  * 
+ * The search is done by MctsEngine with leaf parallelism: a single tree is searched, and
+ * several turns are simulated from each added node, divided among the threads. The children 
+ * are selected with UCB1, and a node is rewarded with the points its team won in the turn.
+ * 
  * @author xavier
  *
  */
 public final class MctsLeafParallelisationPlayer implements Player {
-    private PlayerId ownId;
-    private SplittableRandom rng;
-    private int iterations;
-    private int threads;
-        
+    private final MctsEngine engine;
+    
     private static double c = 40.0;
     
     /**
      * Mcts Player is an artifical intelligence for the game, which implements
-     * the Monte Carlo Search Tree Algorithm.
+     * the Monte Carlo Search Tree Algorithm, with leaf parallelization: 
+     * one rollout per thread is simulated from each added node.
      * @param ownId id of this player
      * @param rngSeed used to play random games 
      * @param iterations number of iterations in the algorithm
      * @param threads is an Integer and not an int because we want it to be able to be null
      */
     public MctsLeafParallelisationPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads) {
-        checkArgument(iterations >= Jass.HAND_SIZE);
-        
-        this.ownId = ownId;
-        this.rng = new SplittableRandom(rngSeed);
-        this.iterations = iterations;
-        if(threads != null)
-            this.threads = threads;
-        else 
-            this.threads = Runtime.getRuntime().availableProcessors();
+        this(ownId, rngSeed, iterations, threads, MctsExecutors.shared());
     }
     
     /**
-     * This is the method that implements the Monte Carlo Search Tree algorithm
-     * The steps are explained in the documentation of this class
+     * Same as MctsLeafParallelisationPlayer(_,_,_,_), where the tasks run on the given executor
+     * instead of the shared one (see MctsExecutors). The player never shuts it down.
+     * @param ownId id of this player
+     * @param rngSeed used to play random games 
+     * @param iterations number of iterations in the algorithm
+     * @param threads is an Integer and not an int because we want it to be able to be null
+     * @param executor
      */
-    @Override
-    public Card cardToPlay(TurnState state, CardSet hand) {
-        int actualIterations = iterations/threads;
-        
-        Node startingNode = new Node(state, hand, ownId);
-        
-        ExecutorService service = Executors.newFixedThreadPool(threads);
-        
-        while(actualIterations-->0) {
-            // SELECTION - EXPANSION
-            List<Integer> trivialPath = new ArrayList<Integer>();
-            List<Integer> path = startingNode.addNodeIfPossible(trivialPath);
-            Node addedNode = getNodeForPath(path, startingNode);
-            
-            CountDownLatch latch = new CountDownLatch(threads);
-            for(int i=0; i<threads; i++) {
-                service.execute(new Runnable() {
-                    public void run() {
-                        // SIMULATION
-                        Score score = randomlyPlayTurnFromNode(addedNode);
-                        
-                        // BACKPROPAGATION
-                        propagatePointsToNodesOf(path, startingNode, score);
-                        
-                        latch.countDown();
-                    }
-                });
-            }
-            
-            try {
-                latch.await();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-        
-        service.shutdownNow();
-                                
-        int bestChildIndex = startingNode.getBestChildIndex(0);
-        Card bestCard = state.trick().playableCards(hand).get(bestChildIndex);
-
-        return bestCard;
+    public MctsLeafParallelisationPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads, ExecutorService executor) {
+        this(ownId, rngSeed, iterations, threads, null, executor);
     }
     
     /**
-     * Get the playable cards that are not in the hand nor in the cards
-     * already played in the turn.
-     * @param state
-     * @param hand
-     * @return
+     * Mcts Player with leaf parallelization, where rolloutsPerLeaf rollouts are simulated
+     * from each added node, shared among the threads. 
+     * The more rollouts per leaf, the less the threads have to wait for each other.
+     * @param ownId id of this player
+     * @param rngSeed used to play random games 
+     * @param iterations total number of rollouts in the algorithm
+     * @param threads number of tasks among which the rollouts of a leaf are divided,
+     *  or null to use one per available processor
+     * @param rolloutsPerLeaf number of rollouts per added node (at most iterations), or null to use one per thread
+     * @param executor
      */
-    private CardSet getPlayableCards(TurnState state, CardSet hand) {
-        CardSet unplayedCards = state.unplayedCards();
-        CardSet handSoFar = unplayedCards.intersection(hand);
-        
-        if(ownId == state.nextPlayer())
-            return state.trick().playableCards(handSoFar);
-                
-        CardSet unplayedNotInHand = unplayedCards.difference(handSoFar);
-        return state.trick().playableCards(unplayedNotInHand);
-//        return unplayedNotInHand;
+    public MctsLeafParallelisationPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads, Integer rolloutsPerLeaf, ExecutorService executor) {
+        this(ownId, rngSeed, iterations, threads, rolloutsPerLeaf, executor, RolloutPolicy.uniform());
     }
-
-    private Node getNodeForPath(List<Integer> path, Node startingNode) {
-        Node child = startingNode;
-        for(Integer index: path) {
-            child = child.children[index];
-        }
-        return child;
+    
+    /**
+     * Same as MctsLeafParallelisationPlayer(_,_,_,_), where the turns are simulated with the given policy
+     * instead of uniformly at random
+     * @param ownId id of this player
+     * @param rngSeed used to play random games 
+     * @param iterations number of iterations in the algorithm
+     * @param threads is an Integer and not an int because we want it to be able to be null
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsLeafParallelisationPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads, RolloutPolicy policy) {
+        this(ownId, rngSeed, iterations, threads, null, MctsExecutors.shared(), policy);
     }
     
-    private Score randomlyPlayTurnFromNode(Node node) {
-        TurnState turn = node.correspondingTurnState;
-        CardSet hand = node.handSoFar;
-        
-        while(!turn.isTerminal()) {
-            CardSet playable = getPlayableCards(turn, hand);
-            
-            int indexOfNextCard = rng.nextInt(playable.size());
-            Card nextCard = playable.get(indexOfNextCard);
-                        
-            turn = turn.withNewCardPlayedAndTrickCollected(nextCard);
-            // we don't need to update the hand because in getPlayableCards(_,_),
-            // we return unplayedCard.intersection(hand) and not just hand.
-        }
-        
-        return turn.score();
+    /**
+     * Same as MctsLeafParallelisationPlayer(_,_,_,_,_,_), where the turns are simulated with the given policy
+     * instead of uniformly at random
+     * @param ownId id of this player
+     * @param rngSeed used to play random games 
+     * @param iterations total number of rollouts in the algorithm
+     * @param threads number of tasks among which the rollouts of a leaf are divided,
+     *  or null to use one per available processor
+     * @param rolloutsPerLeaf number of rollouts per added node (at most iterations), or null to use one per thread
+     * @param executor
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsLeafParallelisationPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads, Integer rolloutsPerLeaf, ExecutorService executor, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), threads, rolloutsPerLeaf, executor, policy);
     }
     
-    private void propagatePointsToNodesOf(List<Integer> path, Node startingNode, Score score) {
-        startingNode.addTurn(score.turnPoints(ownId.team().other()));
-        PlayerId nextPlayer = startingNode.correspondingTurnState.nextPlayer();
-        Node node = startingNode;
-        for(Integer index: path) {
-            node = node.children[index];
-            node.addTurn(score.turnPoints(nextPlayer.team()));
-            nextPlayer = node.correspondingTurnState.nextPlayer();
-        }
+    /**
+     * Mcts Player with leaf parallelization, which adds nodes until timeBudget has elapsed,
+     * and then plays the best card found so far (it always adds at least Jass.HAND_SIZE nodes)
+     * @param ownId id of this player
+     * @param rngSeed used to play random games 
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param threads is an Integer and not an int because we want it to be able to be null
+     */
+    public MctsLeafParallelisationPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, Integer threads) {
+        this(ownId, rngSeed, timeBudget, threads, null, MctsExecutors.shared(), RolloutPolicy.uniform());
+    }
+    
+    /**
+     * Same as MctsLeafParallelisationPlayer(_,_,Duration,_), with rolloutsPerLeaf rollouts per added node,
+     * where the tasks run on the given executor and the turns are simulated with the given policy
+     * @param ownId id of this player
+     * @param rngSeed used to play random games 
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param threads number of tasks among which the rollouts of a leaf are divided,
+     *  or null to use one per available processor
+     * @param rolloutsPerLeaf number of rollouts per added node, or null to use one per thread
+     * @param executor
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsLeafParallelisationPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, Integer threads, Integer rolloutsPerLeaf, ExecutorService executor, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), threads, rolloutsPerLeaf, executor, policy);
+    }
+    
+    private MctsLeafParallelisationPlayer(PlayerId ownId, long rngSeed, MctsBudget budget, Integer threads, Integer rolloutsPerLeaf, ExecutorService executor, RolloutPolicy policy) {
+        this.engine = new MctsEngine(ownId, rngSeed, budget, MctsSelection.ucb1(c), 
+                MctsReward.points(), policy, MctsParallelism.leaf(threads, rolloutsPerLeaf, executor));
     }
     
-    private final static class Node {
-        /**
-         * @param state should be collected by convention
-         * @param handSoFar
-         * @param playerId
-         */
-        private Node(TurnState state, CardSet handSoFar, PlayerId playerId) {
-            this.correspondingTurnState = state;
-            this.handSoFar = handSoFar;
-            this.playerId = playerId;
-            this.unplayedCards = getUnplayedCards();
-            this.children = new Node[this.unplayedCards.size()];
-        }
-        
-        private CardSet getUnplayedCards() {
-            if(correspondingTurnState.isTerminal())
-                return CardSet.EMPTY;
-            if(correspondingTurnState.nextPlayer() == playerId) 
-                return correspondingTurnState.trick().playableCards(handSoFar);
-            CardSet notInHand = correspondingTurnState.unplayedCards().difference(handSoFar);
-            CardSet notInHandPlayable = correspondingTurnState.trick().playableCards(notInHand);
-            return notInHandPlayable;
-        }
-        
-        /**
-         * This is the turn state of this node. The trick of the turn is always
-         * collected by convention.
-         * It is easier to know the unplayed cards at construction and the next player.
-         */
-        final TurnState correspondingTurnState;
-        /**
-         * When the Node is create, none of its children actually exist,
-         * they are all initialized to null at the beginning.
-         * They will eventually be correctly instantiated.
-         * (Will they be instantiated as soon as a new turn state stemming 
-         * from the turn state of this node is simulated randomly ?)
-         * 
-         * The number of children depends on how many possibilities there actually 
-         * is for the turn state after the corresponding turn state
-         */
-        Node[] children;
-        /**
-         * As soon as a new child is added, the corresponding card is removed
-         * from unplayedCards. This is because a new child added means a state that is different from any other 
-         * child, thus using a card thus far unused, and we need to inform the node 
-         * that the card has actually been used in a simulation
-         */
-        CardSet unplayedCards;
-        
-        /**
-         * We keep track of the hand so far to get a correct tree of possible turn states.
-         * We use this attribute to compute the next child node if the next player
-         * was the playerId.
-         */
-        CardSet handSoFar;
-        PlayerId playerId;
-                
-        /*
-         * Noted S(n), it gives the points that were so far gained from 
-         * randomly played turns, which contains the corresponding turn state.
-         * 
-         * What this means is that every time the algorithm is going to simulate a new 
-         * turn, if the turn happens to randomly come at one point to the corresponding
-         * turn state of the node, it would credit the node for the points 
-         * gained in the turn.
-         * 
-         * Also, it is going to augment the counter (int totalRandomlyPlayedTurns)
-         * every time a randomly played turn happens to have the turn state of this 
-         * node at one point
-         * 
-         * Thus we can compute the average points of a game knowing that such game came at the 
-         * corresponding turn state at one point. 
-         * 
-         * So for example, if the corresponding turn state is a trick of index 5, where the first
-         * player is PLAYER_2, where the trump is Heart and the played cards are (six of heart, seven of spade),
-         * if the algorithm is randomly playing a turn and it eventually reaches a trick
-         * of index five, if the underlying variables are equal then the algorithm is going to tell the 
-         * node the points that were gained after it's done simulating the whole turn, 
-         * and it is going to add 1 to the counter of playedTurns of the node.
-         */
-        int totalRandomlyGainedPoints = 0;
-        int totalRandomlyPlayedTurns = 0;
-        
-        private double computeChildV(Node child, double c) {
-            assert child != null;
-            
-            double firstCoeff = ((double) child.totalRandomlyGainedPoints)/((double) child.totalRandomlyPlayedTurns);
-            double insideSqrt = (2*log((double) this.totalRandomlyPlayedTurns))/((double) child.totalRandomlyPlayedTurns);
-            double secondCoeff = c*sqrt(insideSqrt);
-            
-            return firstCoeff+secondCoeff;
-        }
-        
-        private int getBestChildIndex(double c) {
-            double maxV = -1;
-            int indexOfBest = -1;
-            for(int i=0; i<children.length; i++) {
-                Node child = children[i];
-                if(child != null) {
-                    double V = this.computeChildV(child, c);
-                    if(V > maxV) {
-                        maxV = V;
-                        indexOfBest = i;
-                    }
-                }
-            }
-            
-            return indexOfBest;
-        }
-        
-        private List<Integer> addNodeIfPossible(List<Integer> previousPath) {
-            if(correspondingTurnState.isTerminal())
-                return previousPath;
-            if(!unplayedCards.isEmpty()) {
-                previousPath.add(setNewChild());
-                return previousPath;
-            }
-            
-            int bestChildIndex = getBestChildIndex(MctsLeafParallelisationPlayer.c);
-            previousPath.add(bestChildIndex);
-            return children[bestChildIndex].addNodeIfPossible(previousPath);
-        }
-        
-        private int setNewChild() {
-            assert !unplayedCards.isEmpty();
-                        
-            Card nextRemaining = unplayedCards.get(0);
-            unplayedCards = unplayedCards.remove(nextRemaining);
-            
-            TurnState newState;
-            /* 
-             * We collect the trick before passing it the the new child constructor by convention.
-             */
-            newState = correspondingTurnState.withNewCardPlayedAndTrickCollected(nextRemaining);
-            
-            Node newChild = new Node(newState, getNextHand(nextRemaining), playerId);
-            for(int i=0; i<children.length; i++) {
-                if(children[i] == null) {
-                    children[i] = newChild;
-                    return i;
-                }
-            }
-            return -1;
-        }
-        
-        private CardSet getNextHand(Card played) {
-            if(correspondingTurnState.nextPlayer() == playerId)
-                return handSoFar.remove(played);
-            return handSoFar;
-        }
-       
-        private void addTurn(int points) {
-            totalRandomlyGainedPoints+=points;
-            totalRandomlyPlayedTurns++;
-        }
-        
-        // for debugging purpose
-        private void display() {
-            System.out.print(correspondingTurnState.trick().toString() + "|");
-            System.out.print(this.computeChildV(this, 0));
-            System.out.print("|");
-            System.out.print(this.totalRandomlyGainedPoints);
-            System.out.print("(");
-            System.out.print(this.totalRandomlyPlayedTurns);
-            System.out.println(")");
-            for(Node child: children) {
-                if(child == null) 
-                    System.out.println(" - {null} ");
-                else {
-                    System.out.print(" - {" + child.correspondingTurnState.trick().toString() + "|");
-                    System.out.print(this.computeChildV(child, 0));
-                    System.out.print("|");
-                    System.out.print(child.totalRandomlyGainedPoints);
-                    System.out.print("(");
-                    System.out.print(child.totalRandomlyPlayedTurns);
-                    System.out.println(")}");
-                }
-            }
-            System.out.println();
-        }
+    /**
+     * @return the number of turns simulated by all the threads during the last call of cardToPlay(_;_)
+     */
+    public int getLastNumberOfIterations() {
+        return engine.lastIterations();
+    }
+    
+    @Override
+    public void updateTrick(Trick newTrick) {
+        engine.updateTrick(newTrick.packed());
+    }
+    
+    /**
+     * This is the method that implements the Monte Carlo Search Tree algorithm
+     * The steps are explained in the documentation of this class
+     */
+    @Override
+    public Card cardToPlay(TurnState state, CardSet hand) {
+        return engine.cardToPlay(state, hand);
     }
 }
@@ -0,0 +1,329 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+import static ch.epfl.javass.Preconditions.checkState;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.jass.PackedCard;
+import ch.epfl.javass.jass.PackedCardSet;
+
+/**
+ * The class is used to store the nodes of a Monte Carlo search tree.
+ * Instead of having one object per node (with its own children array, TurnState and CardSets),
+ * every attribute of a node is stored in its own array, and a node is simply
+ * an index in these arrays (struct of arrays).
+ *
+ * The arrays are allocated once, at construction, and are reused from one search to
+ * the other by calling clear(). This way, a search does not create any object
+ * in its selection, expansion and backpropagation phases.
+ * If a node is added to a full arena (which happens when the number of iterations
+ * of a search is not known in advance), the arrays are replaced by arrays twice
+ * as big, which are then kept for the next searches.
+ *
+ * A node holds the following attributes:
+ *  - the packed components of its turn state (score, unplayed cards, trick),
+ *      where the trick is always collected by convention
+ *  - the packed hand so far of the player who is searching
+ *  - the packed set of the cards for which no child was created yet
+ *  - the packed card that was played to get from the parent to the node
+ *  - the index of its parent, of its first child and of its next sibling
+ *  - the number of turns simulated through it, and the total reward and total squared
+ *      reward of these turns (the latter is used by MctsSelection.ucb1Tuned(double))
+ *
+ * Children are linked together through the nextSibling attribute. A new child is always
+ * added at the head of the list of its parent.
+ *
+ * The arena must only be used by one thread at a time (see MctsConcurrentNodeArena otherwise).
+ *
+ * @author xavier
+ *
+ */
+final class MctsNodeArena implements MctsTree {
+    private int capacity;
+    private int size = 0;
+
+    private long[] scores;
+    private long[] unplayedCards;
+    private int[] tricks;
+    private long[] hands;
+    private long[] unexpandedCards;
+    private int[] cards;
+
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+
+    private int[] visits;
+    private double[] rewards;
+    private double[] squaredRewards;
+
+    // used by keepSubtreeOf(int) to map the old indices of the nodes to the new ones
+    private int[] relocations;
+
+    /**
+     * Allocates all the arrays needed to store up to capacity nodes
+     * @param capacity number of nodes the tree can hold before its arrays have to grow
+     */
+    MctsNodeArena(int capacity) {
+        checkArgument(capacity > 0);
+
+        this.capacity = capacity;
+        this.scores = new long[capacity];
+        this.unplayedCards = new long[capacity];
+        this.tricks = new int[capacity];
+        this.hands = new long[capacity];
+        this.unexpandedCards = new long[capacity];
+        this.cards = new int[capacity];
+        this.parents = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.visits = new int[capacity];
+        this.rewards = new double[capacity];
+        this.squaredRewards = new double[capacity];
+        this.relocations = new int[capacity];
+    }
+
+    /**
+     * Removes every node of the tree. The arrays are kept for the next search.
+     */
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Removes every node of the tree which is not in the subtree of the given node,
+     * which becomes the root (the node 0). The nodes kept are moved to the beginning 
+     * of the arrays, and keep their attributes (and in particular their statistics).
+     * 
+     * As a node is always added after its parent, the nodes of the subtree are moved 
+     * in the order of their indices, each to an index which is at most its old one, so 
+     * that no node is overwritten before it is moved.
+     * @param node the new root
+     * @return the index of the new root
+     */
+    @Override
+    public int keepSubtreeOf(int node) {
+        checkArgument(node >= 0 && node < size);
+
+        int keptSize = 0;
+        for(int old = 0; old < size; old++) {
+            boolean isKept = old == node 
+                    || (old > node && parents[old] != NONE && relocations[parents[old]] != NONE);
+            relocations[old] = isKept ? keptSize++ : NONE;
+        }
+
+        for(int old = node; old < size; old++) {
+            int relocated = relocations[old];
+            if(relocated == NONE)
+                continue;
+            scores[relocated] = scores[old];
+            unplayedCards[relocated] = unplayedCards[old];
+            tricks[relocated] = tricks[old];
+            hands[relocated] = hands[old];
+            unexpandedCards[relocated] = unexpandedCards[old];
+            cards[relocated] = cards[old];
+            parents[relocated] = old == node ? NONE : relocations[parents[old]];
+            firstChildren[relocated] = relocate(firstChildren[old]);
+            nextSiblings[relocated] = old == node ? NONE : relocate(nextSiblings[old]);
+            visits[relocated] = visits[old];
+            rewards[relocated] = rewards[old];
+            squaredRewards[relocated] = squaredRewards[old];
+        }
+
+        size = keptSize;
+        return 0;
+    }
+
+    private int relocate(int old) {
+        return old == NONE ? NONE : relocations[old];
+    }
+
+    /**
+     * @return the number of nodes currently in the tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of nodes the tree can hold before its arrays have to grow
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds a node without parent. It should be called right after clear(),
+     * so that the root is always the node 0.
+     * @return the index of the root
+     */
+    @Override
+    public int addRoot(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, long pkUnexpandedCards) {
+        return addNode(NONE, PackedCard.INVALID, pkScore, pkUnplayedCards, pkTrick, pkHand, pkUnexpandedCards);
+    }
+
+    /**
+     * Adds a node as the first child of parent.
+     * The arrays grow if the arena is full
+     * @param parent index of the parent node
+     * @param pkCard the card played to get from the parent to the new node
+     * @return the index of the new node
+     */
+    @Override
+    public int addChild(int parent, int pkCard, long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, long pkUnexpandedCards) {
+        int child = addNode(parent, pkCard, pkScore, pkUnplayedCards, pkTrick, pkHand, pkUnexpandedCards);
+        nextSiblings[child] = firstChildren[parent];
+        firstChildren[parent] = child;
+        return child;
+    }
+
+    private int addNode(int parent, int pkCard, long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, long pkUnexpandedCards) {
+        if(size == capacity)
+            grow();
+
+        int node = size++;
+        scores[node] = pkScore;
+        unplayedCards[node] = pkUnplayedCards;
+        tricks[node] = pkTrick;
+        hands[node] = pkHand;
+        unexpandedCards[node] = pkUnexpandedCards;
+        cards[node] = pkCard;
+        parents[node] = parent;
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        visits[node] = 0;
+        rewards[node] = 0;
+        squaredRewards[node] = 0;
+        return node;
+    }
+
+    private void grow() {
+        checkState(capacity <= Integer.MAX_VALUE/2);
+
+        capacity *= 2;
+        scores = Arrays.copyOf(scores, capacity);
+        unplayedCards = Arrays.copyOf(unplayedCards, capacity);
+        tricks = Arrays.copyOf(tricks, capacity);
+        hands = Arrays.copyOf(hands, capacity);
+        unexpandedCards = Arrays.copyOf(unexpandedCards, capacity);
+        cards = Arrays.copyOf(cards, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        visits = Arrays.copyOf(visits, capacity);
+        rewards = Arrays.copyOf(rewards, capacity);
+        squaredRewards = Arrays.copyOf(squaredRewards, capacity);
+        relocations = new int[capacity];
+    }
+
+    @Override
+    public long score(int node) {
+        return scores[node];
+    }
+
+    @Override
+    public long unplayedCards(int node) {
+        return unplayedCards[node];
+    }
+
+    @Override
+    public int trick(int node) {
+        return tricks[node];
+    }
+
+    @Override
+    public long hand(int node) {
+        return hands[node];
+    }
+
+    long unexpandedCards(int node) {
+        return unexpandedCards[node];
+    }
+
+    void setUnexpandedCards(int node, long pkCardSet) {
+        unexpandedCards[node] = pkCardSet;
+    }
+
+    @Override
+    public int claimUnexpandedCard(int node, SplittableRandom rng) {
+        long unexpanded = unexpandedCards[node];
+        if(PackedCardSet.isEmpty(unexpanded))
+            return PackedCard.INVALID;
+        int pkCard = PackedCardSet.get(unexpanded, rng == null ? 0 : rng.nextInt(PackedCardSet.size(unexpanded)));
+        unexpandedCards[node] = PackedCardSet.remove(unexpanded, pkCard);
+        return pkCard;
+    }
+
+    @Override
+    public int card(int node) {
+        return cards[node];
+    }
+
+    int parent(int node) {
+        return parents[node];
+    }
+
+    @Override
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    @Override
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    @Override
+    public int visits(int node) {
+        return visits[node];
+    }
+
+    @Override
+    public double rewards(int node) {
+        return rewards[node];
+    }
+
+    @Override
+    public double squaredRewards(int node) {
+        return squaredRewards[node];
+    }
+
+    /**
+     * Credits the node for one more simulated turn which gave the specified reward
+     * @param node
+     * @param reward
+     */
+    @Override
+    public void addTurn(int node, double reward) {
+        visits[node]++;
+        rewards[node] += reward;
+        squaredRewards[node] += reward*reward;
+    }
+
+    /**
+     * Counts turns simulated through the node before their rewards are known, so that the
+     * next selections already see them (see addRewards(_,_,_))
+     * @param node
+     * @param turns
+     */
+    @Override
+    public void addVisits(int node, int turns) {
+        visits[node] += turns;
+    }
+
+    /**
+     * Credits the node for the rewards of turns which were already counted by addVisits(_,_)
+     * @param node
+     * @param rewards sum of the rewards of the turns
+     * @param squaredRewards sum of the squares of the rewards of the turns
+     */
+    @Override
+    public void addRewards(int node, double rewards, double squaredRewards) {
+        this.rewards[node] += rewards;
+        this.squaredRewards[node] += squaredRewards;
+    }
+}
@@ -0,0 +1,117 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The class tells MctsEngine how to share its search among several threads:
+ *  - sequential(): the search runs on the calling thread only
+ *  - root(_,_): each thread searches its own tree from the same state, with its share of the
+ *      iterations, and the card played is the best one over all the trees together. The trees
+ *      expand the cards in a random order, so that they do not all explore the same ones.
+ *  - leaf(_,_,_): a single tree is searched by the calling thread, and several turns are simulated
+ *      from each node it adds, divided among the threads
+ *  - tree(_,_): all the threads search a single tree (a MctsConcurrentNodeArena) at the same time,
+ *      each of them performing whole iterations, so that no work is duplicated and the tree is as
+ *      deep as the one of a sequential search with the same number of iterations
+ *
+ * The tasks of the threads are submitted to an executor (see MctsExecutors), which the
+ * engine never shuts down.
+ *
+ * @author xavier
+ *
+ */
+final class MctsParallelism {
+    enum Mode { SEQUENTIAL, ROOT, LEAF, TREE }
+
+    private final Mode mode;
+    private final int threads;
+    private final int rolloutsPerLeaf;
+    private final ExecutorService executor;
+
+    private MctsParallelism(Mode mode, int threads, int rolloutsPerLeaf, ExecutorService executor) {
+        this.mode = mode;
+        this.threads = threads;
+        this.rolloutsPerLeaf = rolloutsPerLeaf;
+        this.executor = executor;
+    }
+
+    /**
+     * @return the parallelism of a search which runs on the calling thread only
+     */
+    static MctsParallelism sequential() {
+        return new MctsParallelism(Mode.SEQUENTIAL, 1, 1, null);
+    }
+
+    /**
+     * Parallelism where each thread searches its own tree
+     * @param threads number of trees (and of tasks), or null to use one per available processor
+     * @param executor
+     * @return
+     */
+    static MctsParallelism root(Integer threads, ExecutorService executor) {
+        int actualThreads = threadsOrProcessors(threads);
+        return new MctsParallelism(Mode.ROOT, actualThreads, 1, Objects.requireNonNull(executor));
+    }
+
+    /**
+     * Parallelism where the turns simulated from each added node are divided among the threads
+     * @param threads number of tasks among which the turns of a node are divided,
+     *  or null to use one per available processor
+     * @param rolloutsPerLeaf number of turns simulated from each added node,
+     *  or null to use one per thread
+     * @param executor
+     * @return
+     */
+    static MctsParallelism leaf(Integer threads, Integer rolloutsPerLeaf, ExecutorService executor) {
+        checkArgument(rolloutsPerLeaf == null || rolloutsPerLeaf > 0);
+
+        int actualThreads = threadsOrProcessors(threads);
+        int actualRollouts = rolloutsPerLeaf != null ? rolloutsPerLeaf : actualThreads;
+        return new MctsParallelism(Mode.LEAF, actualThreads, actualRollouts, Objects.requireNonNull(executor));
+    }
+
+    /**
+     * Parallelism where all the threads search the same tree
+     * @param threads number of tasks searching the tree, or null to use one per available processor
+     * @param executor
+     * @return
+     */
+    static MctsParallelism tree(Integer threads, ExecutorService executor) {
+        int actualThreads = threadsOrProcessors(threads);
+        return new MctsParallelism(Mode.TREE, actualThreads, 1, Objects.requireNonNull(executor));
+    }
+
+    private static int threadsOrProcessors(Integer threads) {
+        checkArgument(threads == null || threads > 0);
+
+        return threads != null ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    Mode mode() {
+        return mode;
+    }
+
+    /**
+     * @return the number of tasks searching at the same time
+     */
+    int threads() {
+        return threads;
+    }
+
+    /**
+     * @return the number of turns simulated from each added node (1 unless the mode is LEAF)
+     */
+    int rolloutsPerLeaf() {
+        return rolloutsPerLeaf;
+    }
+
+    /**
+     * @return the executor of the tasks, or null if the mode is SEQUENTIAL
+     */
+    ExecutorService executor() {
+        return executor;
+    }
+}
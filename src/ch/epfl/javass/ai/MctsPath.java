@@ -0,0 +1,80 @@
+package ch.epfl.javass.ai;
+
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.TeamId;
+
+/**
+ * The class records the nodes gone through by an iteration of a Monte Carlo search, from the
+ * root to the node the turn is simulated from, with the team which played the card leading
+ * to each of them.
+ *
+ * The path is filled during the selection (see push(_,_)), so that the backpropagation
+ * goes through it once, from the root to the last node, instead of going up the tree again
+ * through the parents of the nodes and computing again who played each of them.
+ * Its arrays are allocated once, for the deepest path possible (the root and one node per card
+ * of the turn), and reused by every iteration (see clear()). They are primitive: a team is
+ * stored as its ordinal.
+ *
+ * A path must only be used by one thread.
+ *
+ * @author xavier
+ *
+ */
+final class MctsPath {
+    /**
+     * The root and one node per card played during the turn
+     */
+    static final int MAX_DEPTH = Jass.TRICKS_PER_TURN * Jass.CARDS_PER_TRICK + 1;
+
+    private final int[] nodes = new int[MAX_DEPTH];
+    private final byte[] teams = new byte[MAX_DEPTH];
+    private int depth = 0;
+
+    /**
+     * Empties the path, before the selection of a new iteration
+     */
+    void clear() {
+        depth = 0;
+    }
+
+    /**
+     * Adds a node at the end of the path
+     * @param node
+     * @param team the team which played the card leading to the node
+     */
+    void push(int node, TeamId team) {
+        nodes[depth] = node;
+        teams[depth] = (byte) team.ordinal();
+        depth++;
+    }
+
+    /**
+     * @return the number of nodes of the path
+     */
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * @param i index in the path, the root being at index 0
+     * @return the node at the given index
+     */
+    int node(int i) {
+        return nodes[i];
+    }
+
+    /**
+     * @param i index in the path, the root being at index 0
+     * @return the team which played the card leading to the node at the given index
+     */
+    TeamId team(int i) {
+        return TeamId.ALL.get(teams[i]);
+    }
+
+    /**
+     * @return the last node of the path
+     */
+    int last() {
+        return nodes[depth-1];
+    }
+}
@@ -0,0 +1,40 @@
+package ch.epfl.javass.ai;
+
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.TeamId;
+
+/**
+ * The reward with which MctsEngine credits a node for a simulated turn, from the point of view
+ * of the team which played the card leading to the node:
+ *  - points(): the points won by the team during the turn, between 0 and 257
+ *  - fraction(): the points won by the team, divided by the points won by the other team plus one,
+ *      which rewards as much a turn where the other team wins few points as one where the team
+ *      wins many
+ *
+ * @author xavier
+ *
+ */
+interface MctsReward {
+    /**
+     * @param pkScore the packed score at the end of the simulated turn
+     * @param team
+     * @return the reward of the team for the turn
+     */
+    double reward(long pkScore, TeamId team);
+
+    /**
+     * @return the reward which is the points of the turn
+     */
+    static MctsReward points() {
+        return (pkScore, team) -> PackedScore.turnPoints(pkScore, team);
+    }
+
+    /**
+     * @return the reward which is the ratio between the points of the turn of the team
+     *  and the ones of the other team
+     */
+    static MctsReward fraction() {
+        return (pkScore, team) -> ((double) PackedScore.turnPoints(pkScore, team))
+                / (PackedScore.turnPoints(pkScore, team.other()) + 1);
+    }
+}
@@ -0,0 +1,62 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+/**
+ * The formula with which MctsEngine chooses the child to go down to during the selection:
+ * the child of greatest value is chosen. The value of a child is its mean reward, plus an
+ * exploration term which is all the greater as the child was visited less often than its parent.
+ *
+ * Noting N the visits of the parent, and n, T and U the visits, the total reward and the total
+ * squared reward of the child:
+ *  - ucb1(c): T/n + c.sqrt(2ln(N)/n)
+ *  - ucb1Tuned(c): T/n + c.sqrt((ln(N)/n).min(1/4, U/n - (T/n)^2 + sqrt(2ln(N)/n))),
+ *      where the exploration is smaller for the children whose rewards vary little
+ *
+ * The constant c must be chosen according to the range of the rewards (see MctsReward).
+ *
+ * @author xavier
+ *
+ */
+interface MctsSelection {
+    /**
+     * Gives the value of a child, which has already been visited at least once
+     * @param rewards total reward of the child
+     * @param squaredRewards total squared reward of the child
+     * @param visits visits of the child
+     * @param logOfParentVisits natural logarithm of the visits of the parent
+     * @return
+     */
+    double value(double rewards, double squaredRewards, int visits, double logOfParentVisits);
+
+    /**
+     * @param c exploration constant, positive
+     * @return the selection of the Upper Confidence Bound formula (UCB1)
+     */
+    static MctsSelection ucb1(double c) {
+        checkArgument(c >= 0);
+
+        return (rewards, squaredRewards, visits, logOfParentVisits) ->
+            rewards/visits + c*sqrt(2*logOfParentVisits/visits);
+    }
+
+    /**
+     * @param c exploration constant, positive
+     * @return the selection of the UCB1-Tuned formula, which takes into account the variance
+     *  of the rewards of each child
+     */
+    static MctsSelection ucb1Tuned(double c) {
+        checkArgument(c >= 0);
+
+        return (rewards, squaredRewards, visits, logOfParentVisits) -> {
+            double mean = rewards/visits;
+            // ln(N)/n
+            double exploration = logOfParentVisits/visits;
+            // U/n - (T/n)^2 + sqrt(2ln(N)/n), bounded by the variance of a reward in [0, 1]
+            double variance = min(0.25, squaredRewards/visits - mean*mean + sqrt(2*exploration));
+            return mean + c*sqrt(exploration*variance);
+        };
+    }
+}
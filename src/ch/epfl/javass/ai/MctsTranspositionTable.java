@@ -0,0 +1,160 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The class is a transposition table for the nodes of a Monte Carlo search:
+ * it maps the hash of the state of a node (see hash(_,_,_,_)) to the index of the node,
+ * so that a state reached by different orders of the same cards is represented by a single node.
+ *
+ * The table is bounded: it is allocated once, with at least twice as many slots as the maximum
+ * number of entries given at construction, and put(_,_) does nothing once it holds
+ * that many entries. It uses open addressing with linear probing, and as entries are
+ * never removed (only all of them at once by clear()), no tombstone is needed.
+ *
+ * Two different states can have the same hash: the node returned by get(long) must
+ * thus always be checked to have the state that was looked for.
+ *
+ * @author xavier
+ *
+ */
+final class MctsTranspositionTable {
+    /**
+     * Index used to represent the absence of a node
+     */
+    static final int NONE = -1;
+
+    /**
+     * The slots of a table are indexed by an (int)
+     */
+    static final int MAX_ENTRIES = 1 << 28;
+
+    /*
+     * Zobrist hashing, where the features of a state are the bytes of its packed
+     * components: one random key is drawn for each value of each byte of each component,
+     * and the hash of a state is the xor of the keys of its bytes.
+     */
+    private static final int BYTE_SIZE = 8;
+    private static final int BYTE_MASK = (1 << BYTE_SIZE) - 1;
+    private static final int BYTE_VALUES = 1 << BYTE_SIZE;
+    private static final int SCORE_BYTES = Long.BYTES;
+    private static final int CARD_SET_BYTES = Long.BYTES;
+    private static final int TRICK_BYTES = Integer.BYTES;
+
+    private static final long[][] scoreKeys = computeKeys(SCORE_BYTES, 0);
+    private static final long[][] unplayedCardsKeys = computeKeys(CARD_SET_BYTES, 1);
+    private static final long[][] trickKeys = computeKeys(TRICK_BYTES, 2);
+    private static final long[][] handKeys = computeKeys(CARD_SET_BYTES, 3);
+
+    private static long[][] computeKeys(int bytes, long seed) {
+        // the keys are always the same, so that the searches are reproducible
+        SplittableRandom rng = new SplittableRandom(seed);
+        long[][] keys = new long[bytes][BYTE_VALUES];
+        for(long[] byteKeys: keys) {
+            for(int i=0; i<BYTE_VALUES; i++)
+                byteKeys[i] = rng.nextLong();
+        }
+        return keys;
+    }
+
+    private static long hash(long[][] keys, long component) {
+        long hash = 0;
+        for(int i=0; i<keys.length; i++)
+            hash ^= keys[i][(int) (component >>> (i*BYTE_SIZE)) & BYTE_MASK];
+        return hash;
+    }
+
+    /**
+     * Gives the hash of the state of a node given by its packed components
+     * @param pkScore
+     * @param pkUnplayedCards
+     * @param pkTrick
+     * @param pkHand
+     * @return
+     */
+    static long hash(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand) {
+        return hash(scoreKeys, pkScore) ^ hash(unplayedCardsKeys, pkUnplayedCards)
+                ^ hash(trickKeys, pkTrick & 0xFFFF_FFFFL) ^ hash(handKeys, pkHand);
+    }
+
+    private final int maxEntries;
+    private final int mask;
+    private final long[] hashes;
+    private final int[] nodes;
+    private int size = 0;
+
+    /**
+     * Allocates a table that can hold up to maxEntries nodes
+     * @param maxEntries
+     */
+    MctsTranspositionTable(int maxEntries) {
+        checkArgument(maxEntries > 0 && maxEntries <= MAX_ENTRIES);
+
+        // a power of two, so that the index of a slot is given by a mask
+        int slots = Integer.highestOneBit(maxEntries) << 2;
+        this.maxEntries = maxEntries;
+        this.mask = slots - 1;
+        this.hashes = new long[slots];
+        this.nodes = new int[slots];
+        Arrays.fill(nodes, NONE);
+    }
+
+    /**
+     * Removes every entry of the table
+     */
+    void clear() {
+        Arrays.fill(nodes, NONE);
+        size = 0;
+    }
+
+    /**
+     * @return the number of entries in the table
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gives the node which was put with the given hash
+     * @param hash
+     * @return the node, or NONE if there is none
+     */
+    int get(long hash) {
+        for(int slot = slotOf(hash); nodes[slot] != NONE; slot = (slot+1) & mask) {
+            if(hashes[slot] == hash)
+                return nodes[slot];
+        }
+        return NONE;
+    }
+
+    /**
+     * Adds the node with the given hash, unless the table is full or already
+     * has a node with this hash
+     * @param hash
+     * @param node
+     * @return whether the node was added
+     */
+    boolean put(long hash, int node) {
+        checkArgument(node != NONE);
+
+        if(size == maxEntries)
+            return false;
+        int slot = slotOf(hash);
+        for(; nodes[slot] != NONE; slot = (slot+1) & mask) {
+            if(hashes[slot] == hash)
+                return false;
+        }
+        hashes[slot] = hash;
+        nodes[slot] = node;
+        size++;
+        return true;
+    }
+
+    private int slotOf(long hash) {
+        // the low bits of a Zobrist hash are as random as the high ones
+        return (int) hash & mask;
+    }
+}
@@ -0,0 +1,113 @@
+package ch.epfl.javass.ai;
+
+import java.util.SplittableRandom;
+
+/**
+ * The nodes of a Monte Carlo search tree, as MctsEngine reads and writes them. A node is an
+ * index, the root of a search is always the node 0, and the children of a node are linked
+ * together from the last added to the first added (see firstChild(int) and nextSibling(int)).
+ *
+ * The tree is implemented by:
+ *  - MctsNodeArena, which is searched by a single thread at a time
+ *  - MctsConcurrentNodeArena, which is searched by several threads at the same time
+ *
+ * The statistics of a node are the number of turns simulated through it (its visits), and the
+ * total reward and total squared reward of these turns. The visits of a turn can be counted
+ * before its reward is known (see addVisits(_,_) and addRewards(_,_,_)), so that the other
+ * selections already see it.
+ *
+ * @author xavier
+ *
+ */
+interface MctsTree {
+    /**
+     * Index used to represent the absence of a node (no parent, no child, no sibling)
+     */
+    int NONE = -1;
+
+    /**
+     * Removes every node of the tree
+     */
+    void clear();
+
+    /**
+     * Removes every node of the tree which is not in the subtree of the given node,
+     * which becomes the root, with all the attributes (and the statistics) of the nodes kept
+     * @param node the new root
+     * @return the index of the new root
+     */
+    int keepSubtreeOf(int node);
+
+    /**
+     * @return the number of nodes currently in the tree
+     */
+    int size();
+
+    /**
+     * Adds a node without parent. It should be called right after clear(),
+     * so that the root is always the node 0.
+     * @return the index of the root
+     */
+    int addRoot(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, long pkUnexpandedCards);
+
+    /**
+     * Removes one card from the unexpanded cards of the node, so that the caller is the only one
+     * to create the child of this card (see addChild(_,_,_,_,_,_,_))
+     * @param node
+     * @param rng used to choose the card, or null to choose the first one
+     * @return the claimed card, or PackedCard.INVALID if every card has already been claimed
+     */
+    int claimUnexpandedCard(int node, SplittableRandom rng);
+
+    /**
+     * Adds a node, not visited yet, as the first child of parent
+     * @param parent index of the parent node
+     * @param pkCard the card played to get from the parent to the new node, which must
+     *  have been claimed by claimUnexpandedCard(_,_)
+     * @return the index of the new node
+     */
+    int addChild(int parent, int pkCard, long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, long pkUnexpandedCards);
+
+    long score(int node);
+
+    long unplayedCards(int node);
+
+    int trick(int node);
+
+    long hand(int node);
+
+    int card(int node);
+
+    int firstChild(int node);
+
+    int nextSibling(int node);
+
+    int visits(int node);
+
+    double rewards(int node);
+
+    double squaredRewards(int node);
+
+    /**
+     * Credits the node for one more simulated turn which gave the specified reward
+     * @param node
+     * @param reward
+     */
+    void addTurn(int node, double reward);
+
+    /**
+     * Counts turns simulated through the node before their rewards are known, so that the
+     * next selections already see them (see addRewards(_,_,_))
+     * @param node
+     * @param turns
+     */
+    void addVisits(int node, int turns);
+
+    /**
+     * Credits the node for the rewards of turns which were already counted by addVisits(_,_)
+     * @param node
+     * @param rewards sum of the rewards of the turns
+     * @param squaredRewards sum of the squares of the rewards of the turns
+     */
+    void addRewards(int node, double rewards, double squaredRewards);
+}
@@ -0,0 +1,146 @@
+package ch.epfl.javass.ai;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Trick;
+import ch.epfl.javass.jass.TurnState;
+
+/**
+ * We implement a player who is going to make an informed decision on its own (i.e. an AI)
+ * The algorithm used to determine the next card to play is Monte Carlo Tree Search (MCTS),
+ * as in MctsPlayer, with tree parallelization:
+ *  - all the threads search the same tree (MctsConcurrentNodeArena) at the same time,
+ *  each of them doing whole iterations (selection, expansion, simulation, backpropagation)
+ *  until the iterations given at construction have all been done (or the time budget has elapsed)
+ *  - the statistics of the nodes are updated with atomic operations, without any lock,
+ *  and the creation of a child is claimed with a compare-and-set so that no two threads
+ *  create the same child
+ *  - a thread counts its visit in each node it goes through before its turn is simulated
+ *  (virtual loss): as long as its points are not known, the node looks worse to the other
+ *  threads, which thus tend to explore other paths instead of all simulating the same one
+ *
+ * Contrary to MctsRootParallelisationPlayer, no work is duplicated: the iterations of all
+ * the threads build a single tree, which is as deep as the one of a sequential search with
+ * the same number of iterations.
+ *
+ * The search is done by MctsEngine with tree parallelism. The children are selected with UCB1,
+ * and a node is rewarded with the points its team won in the turn.
+ *
+ * @author xavier
+ *
+ */
+public final class MctsTreeParallelisationPlayer implements Player {
+    private final MctsEngine engine;
+
+    private static double c = 40.0;
+
+    /**
+     * Mcts Player is an artifical intelligence for the game, which implements
+     * the Monte Carlo Search Tree Algorithm, with tree parallelization.
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param iterations number of iterations in the algorithm, shared among the threads
+     * @param threads is an Integer and not an int because we want it to be able to be null. If null, the parallelization
+     *  is done over Runtime.getRuntime().availableProcessors() threads.
+     */
+    public MctsTreeParallelisationPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads) {
+        this(ownId, rngSeed, iterations, threads, MctsExecutors.shared());
+    }
+
+    /**
+     * Same as MctsTreeParallelisationPlayer(_,_,_,_), where the threads run on the given executor
+     * instead of the shared one (see MctsExecutors). The player never shuts it down.
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param iterations number of iterations in the algorithm, shared among the threads
+     * @param threads is an Integer and not an int because we want it to be able to be null
+     * @param executor
+     */
+    public MctsTreeParallelisationPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads, ExecutorService executor) {
+        this(ownId, rngSeed, iterations, threads, executor, RolloutPolicy.uniform());
+    }
+
+    /**
+     * Same as MctsTreeParallelisationPlayer(_,_,_,_), where the turns are simulated with the given policy
+     * instead of uniformly at random
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param iterations number of iterations in the algorithm, shared among the threads
+     * @param threads is an Integer and not an int because we want it to be able to be null
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsTreeParallelisationPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads, RolloutPolicy policy) {
+        this(ownId, rngSeed, iterations, threads, MctsExecutors.shared(), policy);
+    }
+
+    /**
+     * Same as MctsTreeParallelisationPlayer(_,_,_,_,ExecutorService), where the turns are simulated
+     * with the given policy instead of uniformly at random
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param iterations number of iterations in the algorithm, shared among the threads
+     * @param threads is an Integer and not an int because we want it to be able to be null
+     * @param executor
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsTreeParallelisationPlayer(PlayerId ownId, long rngSeed, int iterations, Integer threads, ExecutorService executor, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), threads, executor, policy);
+    }
+
+    /**
+     * Mcts Player with tree parallelization, where the threads iterate until timeBudget has elapsed,
+     * and then play the best card found so far (they always perform at least Jass.HAND_SIZE iterations)
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param threads is an Integer and not an int because we want it to be able to be null
+     */
+    public MctsTreeParallelisationPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, Integer threads) {
+        this(ownId, rngSeed, timeBudget, threads, MctsExecutors.shared(), RolloutPolicy.uniform());
+    }
+
+    /**
+     * Same as MctsTreeParallelisationPlayer(_,_,Duration,_), where the threads run on the given executor
+     * and the turns are simulated with the given policy
+     * @param ownId id of this player
+     * @param rngSeed used to play random games
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param threads is an Integer and not an int because we want it to be able to be null
+     * @param executor
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsTreeParallelisationPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, Integer threads, ExecutorService executor, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), threads, executor, policy);
+    }
+
+    private MctsTreeParallelisationPlayer(PlayerId ownId, long rngSeed, MctsBudget budget, Integer threads, ExecutorService executor, RolloutPolicy policy) {
+        this.engine = new MctsEngine(ownId, rngSeed, budget, MctsSelection.ucb1(c),
+                MctsReward.points(), policy, MctsParallelism.tree(threads, executor));
+    }
+
+    /**
+     * @return the number of iterations performed by all the threads during the last call of cardToPlay(_;_)
+     */
+    public int getLastNumberOfIterations() {
+        return engine.lastIterations();
+    }
+
+    @Override
+    public void updateTrick(Trick newTrick) {
+        engine.updateTrick(newTrick.packed());
+    }
+
+    /**
+     * This is the method that implements the Monte Carlo Search Tree algorithm
+     * The steps are explained in the documentation of this class
+     */
+    @Override
+    public Card cardToPlay(TurnState state, CardSet hand) {
+        return engine.cardToPlay(state, hand);
+    }
+}
@@ -1,38 +1,28 @@
 package ch.epfl.javass.ai;
 
-import static ch.epfl.javass.Preconditions.checkArgument;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.SplittableRandom;
+import java.time.Duration;
 
 import ch.epfl.javass.ai.benchmark.PlayerBenchmarkable;
 import ch.epfl.javass.jass.Card;
 import ch.epfl.javass.jass.CardSet;
-import ch.epfl.javass.jass.Jass;
 import ch.epfl.javass.jass.Player;
 import ch.epfl.javass.jass.PlayerId;
-import ch.epfl.javass.jass.Score;
 import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.Trick;
 import ch.epfl.javass.jass.TurnState;
 
-import static java.lang.Math.sqrt;
-import static java.lang.Math.log;
-import static java.lang.Math.min;
-import static java.lang.Math.pow;
-
 /**
  * We implement a player who is going to make an informed decision on its own (i.e. an AI)
  * The algorithm used to determine the next card to play is Monte Carlo Tree Search (MCTS)
  * Here is a summary of what it does:
  *  - As soon as you are asked what card to play via cardToPlay(_;_),
  *  the algorithm creates a tree, which root represents the given state
- *  - The tree is given how many iterations it should perform at construction,
- *  and it is going to perform the following at each iteration:
+ *  - The tree is given how many iterations it should perform (or how long it may search,
+ *  see MctsBudget) at construction, and it is going to perform the following at each iteration:
  *      - You add a node to the tree, which is going to represent a turn state
  *      not yet explored.
  *      - Once the node is created, you play a random TURN from the state of the node
- *      - You store the score obtained at the end of the turn
+ *      - You store the fraction of score own/opponent obtained at the end of the turn
  *      
  * After the iterations are done, we have enough data (hopefully, with iterations big enough),
  * to know which node collected the best score in average.
@@ -46,15 +36,17 @@ import static java.lang.Math.pow;
  * The way you choose the card to play is thus choosing which child node of the root leads to the best
  * outcome for this Player's team
  * 
+ * The search is done by MctsEngine, on the calling thread, selecting the children with
+ * UCB1-Tuned (which takes the variance of the rewards into account) and rewarding a node with
+ * the points its team won in the turn divided by the ones of the other team.
+ * 
  * @author xavier
  *
  */
 public final class MctsTunedPlayer implements Player, PlayerBenchmarkable {
     private PlayerId ownId;
-    private SplittableRandom rng;
-    private int iterations;
-//    Node startingNode;
-        
+    private final MctsEngine engine;
+    
     private static double c = 40.0;
     
     /**
@@ -65,18 +57,55 @@ public final class MctsTunedPlayer implements Player, PlayerBenchmarkable {
      * @param iterations number of iterations in the algorithm
      */
     public MctsTunedPlayer(PlayerId ownId, long rngSeed, int iterations) {
-        checkArgument(iterations >= Jass.HAND_SIZE);
-        
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), RolloutPolicy.uniform());
+    }
+    
+    /**
+     * Same as MctsTunedPlayer(_,_,int), where the turns are simulated with the given policy
+     * instead of uniformly at random
+     * @param ownId id of this player
+     * @param rngSeed used to play random games 
+     * @param iterations number of iterations in the algorithm
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsTunedPlayer(PlayerId ownId, long rngSeed, int iterations, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofIterations(iterations), policy);
+    }
+    
+    /**
+     * Mcts Player which iterates until timeBudget has elapsed, and then plays
+     * the best card found so far (it always performs at least Jass.HAND_SIZE iterations)
+     * @param ownId id of this player
+     * @param rngSeed used to play random games 
+     * @param timeBudget time given to the algorithm for each card to play
+     */
+    public MctsTunedPlayer(PlayerId ownId, long rngSeed, Duration timeBudget) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), RolloutPolicy.uniform());
+    }
+    
+    /**
+     * Same as MctsTunedPlayer(_,_,Duration), where the turns are simulated with the given policy
+     * instead of uniformly at random
+     * @param ownId id of this player
+     * @param rngSeed used to play random games 
+     * @param timeBudget time given to the algorithm for each card to play
+     * @param policy chooses the cards of the simulated turns
+     */
+    public MctsTunedPlayer(PlayerId ownId, long rngSeed, Duration timeBudget, RolloutPolicy policy) {
+        this(ownId, rngSeed, MctsBudget.ofDuration(timeBudget), policy);
+    }
+    
+    private MctsTunedPlayer(PlayerId ownId, long rngSeed, MctsBudget budget, RolloutPolicy policy) {
         this.ownId = ownId;
-        this.rng = new SplittableRandom(rngSeed);
-        this.iterations = iterations;
+        this.engine = new MctsEngine(ownId, rngSeed, budget, MctsSelection.ucb1Tuned(c), MctsReward.fraction(), 
+                policy, MctsParallelism.sequential());
     }
     
     private int wins = 0;
     
     private long totalExecutionTime = 0;
     private long totalExecutions = 0;
-
+    
     public int getNumberOfWins() {
         return wins;
     }
@@ -89,6 +118,18 @@ public final class MctsTunedPlayer implements Player, PlayerBenchmarkable {
         return totalExecutions;
     }
     
+    /**
+     * @return the number of iterations performed during the last call of cardToPlay(_;_)
+     */
+    public int getLastNumberOfIterations() {
+        return engine.lastIterations();
+    }
+    
+    @Override
+    public void updateTrick(Trick newTrick) {
+        engine.updateTrick(newTrick.packed());
+    }
+    
     public void setWinningTeam(TeamId winningTeam) {
         if(ownId.team().equals(winningTeam))
             wins++;
@@ -103,298 +144,10 @@ public final class MctsTunedPlayer implements Player, PlayerBenchmarkable {
         totalExecutions++;
         long beginTime = System.nanoTime();
         
-        int leftIterations = iterations;
-        
-        Node startingNode = new Node(state, hand, ownId);
-        while(leftIterations-->0) {
-            // SELECTION - EXPANSION
-            List<Integer> trivialPath = new ArrayList<Integer>();
-            List<Integer> path = startingNode.addNodeIfPossible(trivialPath);
-            Node addedNode = getNodeForPath(path, startingNode);
-            
-            // SIMULATION
-            Score score = randomlyPlayTurnFromNode(addedNode);
-            
-            // BACKPROPAGATION
-            propagatePointsToNodesOf(path, startingNode, score);
-        }
-                
-        int bestChildIndex = startingNode.getBestChildIndex(0);
-        Card bestCard = state.trick().playableCards(hand).get(bestChildIndex);
+        Card bestCard = engine.cardToPlay(state, hand);
         
         totalExecutionTime += (System.nanoTime()-beginTime);
         
         return bestCard;
     }
-    
-    /**
-     * Get the playable cards that are not in the hand nor in the cards
-     * already played in the turn.
-     * @param state
-     * @param hand
-     * @return
-     */
-    private CardSet getPlayableCards(TurnState state, CardSet hand) {
-        CardSet unplayedCards = state.unplayedCards();
-        CardSet handSoFar = unplayedCards.intersection(hand);
-        
-        if(ownId == state.nextPlayer())
-            return state.trick().playableCards(handSoFar);
-                
-        CardSet unplayedNotInHand = unplayedCards.difference(handSoFar);
-        return state.trick().playableCards(unplayedNotInHand);
-//        return unplayedNotInHand;
-    }
-
-    private Node getNodeForPath(List<Integer> path, Node startingNode) {
-        Node child = startingNode;
-        for(Integer index: path) {
-            child = child.children[index];
-        }
-        return child;
-    }
-    
-    private Score randomlyPlayTurnFromNode(Node node) {
-        TurnState turn = node.correspondingTurnState;
-        CardSet hand = node.handSoFar;
-        
-        while(!turn.isTerminal()) {
-            CardSet playable = getPlayableCards(turn, hand);
-            
-            int indexOfNextCard = rng.nextInt(playable.size());
-            Card nextCard = playable.get(indexOfNextCard);
-                        
-            turn = turn.withNewCardPlayedAndTrickCollected(nextCard);
-            // we don't need to update the hand because in getPlayableCards(_,_),
-            // we return unplayedCard.intersection(hand) and not just hand.
-        }
-        
-        return turn.score();
-    }
-    
-    private void propagatePointsToNodesOf(List<Integer> path, Node startingNode, Score score) {
-        startingNode.addTurn(score, ownId.team());
-        PlayerId nextPlayer = startingNode.correspondingTurnState.nextPlayer();
-        Node node = startingNode;
-        for(Integer index: path) {
-            node = node.children[index];
-            node.addTurn(score, nextPlayer.team());
-            nextPlayer = node.correspondingTurnState.nextPlayer();
-        }
-    }
-    
-    private final static class Node {
-        /**
-         * @param state should be collected by convention
-         * @param handSoFar
-         * @param playerId
-         */
-        private Node(TurnState state, CardSet handSoFar, PlayerId playerId) {
-            this.correspondingTurnState = state;
-            this.handSoFar = handSoFar;
-            this.playerId = playerId;
-            this.unplayedCards = getUnplayedCards();
-            this.children = new Node[this.unplayedCards.size()];
-        }
-        
-        private CardSet getUnplayedCards() {
-            if(correspondingTurnState.isTerminal())
-                return CardSet.EMPTY;
-            if(correspondingTurnState.nextPlayer() == playerId) 
-                return correspondingTurnState.trick().playableCards(handSoFar);
-            CardSet notInHand = correspondingTurnState.unplayedCards().difference(handSoFar);
-            CardSet notInHandPlayable = correspondingTurnState.trick().playableCards(notInHand);
-            return notInHandPlayable;
-        }
-        
-        /**
-         * This is the turn state of this node. The trick of the turn is always
-         * collected by convention.
-         * It is easier to know the unplayed cards at construction and the next player.
-         */
-        final TurnState correspondingTurnState;
-        /**
-         * When the Node is create, none of its children actually exist,
-         * they are all initialized to null at the beginning.
-         * They will eventually be correctly instantiated.
-         * (Will they be instantiated as soon as a new turn state stemming 
-         * from the turn state of this node is simulated randomly ?)
-         * 
-         * The number of children depends on how many possibilities there actually 
-         * is for the turn state after the corresponding turn state
-         */
-        Node[] children;
-        /**
-         * As soon as a new child is added, the corresponding card is removed
-         * from unplayedCards. This is because a new child added means a state that is different from any other 
-         * child, thus using a card thus far unused, and we need to inform the node 
-         * that the card has actually been used in a simulation
-         */
-        CardSet unplayedCards;
-        
-        /**
-         * We keep track of the hand so far to get a correct tree of possible turn states.
-         * We use this attribute to compute the next child node if the next player
-         * was the playerId.
-         */
-        CardSet handSoFar;
-        PlayerId playerId;
-                
-        /*
-         * Noted S(n), it gives the points that were so far gained from 
-         * randomly played turns, which contains the corresponding turn state.
-         * 
-         * What this means is that every time the algorithm is going to simulate a new 
-         * turn, if the turn happens to randomly come at one point to the corresponding
-         * turn state of the node, it would credit the node for the points 
-         * gained in the turn.
-         * 
-         * Also, it is going to augment the counter (int totalRandomlyPlayedTurns)
-         * every time a randomly played turn happens to have the turn state of this 
-         * node at one point
-         * 
-         * Thus we can compute the average points of a game knowing that such game came at the 
-         * corresponding turn state at one point. 
-         * 
-         * So for example, if the corresponding turn state is a trick of index 5, where the first
-         * player is PLAYER_2, where the trump is Heart and the played cards are (six of heart, seven of spade),
-         * if the algorithm is randomly playing a turn and it eventually reaches a trick
-         * of index five, if the underlying variables are equal then the algorithm is going to tell the 
-         * node the points that were gained after it's done simulating the whole turn, 
-         * and it is going to add 1 to the counter of playedTurns of the node.
-         */
-        double totalFraction = 0;
-        double totalSquaredFraction = 0;
-        int totalTurns = 0;
-        
-        /**
-         * In this case, V is UCB1-Tuned
-         * @param child
-         * @param c
-         * @return
-         */
-        private double computeChildV(Node child, double c) {
-            assert child != null;
-            
-            // T_j/N_j
-            double empiricalFraction = child.totalFraction/((double) child.totalTurns);
-            
-            // to avoid unnecessary computations
-            if(c == 0)
-                return empiricalFraction;
-            
-            // ln(N_i)/N_j
-            double explorationSubterm = log(((double) this.totalTurns)/((double) child.totalTurns));
-            
-            // U_j/N_j
-            double varianceTermFirst = (child.totalSquaredFraction)/((double) child.totalTurns);
-            // (T_j/N_j)^2
-            double varianceTermSecond = pow(empiricalFraction, 2);
-            
-            // sqrt(2ln(N_i)/N_j)
-            double varianceExplorationTerm = sqrt(2*explorationSubterm);
-            
-            // U_j/n_j - (T_j/N_j)^2 + sqrt(2ln(N_i)/N_j)
-            double varianceFullTerm = varianceTermFirst - varianceTermSecond + varianceExplorationTerm;
-            
-            // min(0.25, U_j/n_j - (T_j/N_j)^2 + sqrt(2ln(N_i)/N_j))
-            double varianceFullAdjusted = min(0.25, varianceFullTerm);
-            
-            // c.sqrt((ln(N_i)/N_j)*min(0.25, U_j/n_j - (T_j/N_j)^2 + sqrt(2ln(N_i)/N_j)))
-            double explorationTerm = c*sqrt(explorationSubterm*varianceFullAdjusted);
-            
-            // T_j/N_j + c.sqrt((ln(N_i)/N_j)*min(0.25, U_j/n_j - (T_j/N_j)^2 + sqrt(2ln(N_i)/N_j)))
-            return empiricalFraction+explorationTerm;
-        }
-        
-        private int getBestChildIndex(double c) {
-            double maxV = -1;
-            int indexOfBest = -1;
-            for(int i=0; i<children.length; i++) {
-                Node child = children[i];
-                if(child != null) {
-                    double V = this.computeChildV(child, c);
-                    if(V > maxV) {
-                        maxV = V;
-                        indexOfBest = i;
-                    }
-                }
-            }
-            
-            return indexOfBest;
-        }
-        
-        private List<Integer> addNodeIfPossible(List<Integer> previousPath) {
-            if(correspondingTurnState.isTerminal())
-                return previousPath;
-            if(!unplayedCards.isEmpty()) {
-                previousPath.add(setNewChild());
-                return previousPath;
-            }
-            
-            int bestChildIndex = getBestChildIndex(MctsTunedPlayer.c);
-            previousPath.add(bestChildIndex);
-            return children[bestChildIndex].addNodeIfPossible(previousPath);
-        }
-        
-        private int setNewChild() {
-            assert !unplayedCards.isEmpty();
-                        
-            Card nextRemaining = unplayedCards.get(0);
-            unplayedCards = unplayedCards.remove(nextRemaining);
-            
-            TurnState newState;
-            /* 
-             * We collect the trick before passing it the the new child constructor by convention.
-             */
-            newState = correspondingTurnState.withNewCardPlayedAndTrickCollected(nextRemaining);
-            
-            Node newChild = new Node(newState, getNextHand(nextRemaining), playerId);
-            for(int i=0; i<children.length; i++) {
-                if(children[i] == null) {
-                    children[i] = newChild;
-                    return i;
-                }
-            }
-            return -1;
-        }
-        
-        private CardSet getNextHand(Card played) {
-            if(correspondingTurnState.nextPlayer() == playerId)
-                return handSoFar.remove(played);
-            return handSoFar;
-        }
-       
-        private void addTurn(Score score, TeamId teamId) {
-            double fraction = ((double) score.turnPoints(teamId)/((double) score.turnPoints(teamId.other())+1));
-            totalFraction += fraction;
-            totalSquaredFraction += pow(fraction, 2);
-            totalTurns++;
-        }
-        
-        // for debugging purpose
-        private void display() {
-            System.out.print(correspondingTurnState.trick().toString() + "|");
-            System.out.print(this.computeChildV(this, 0));
-            System.out.print("|");
-            System.out.print(this.totalFraction);
-            System.out.print("(");
-            System.out.print(this.totalTurns);
-            System.out.println(")");
-            for(Node child: children) {
-                if(child == null) 
-                    System.out.println(" - {null} ");
-                else {
-                    System.out.print(" - {" + child.correspondingTurnState.trick().toString() + "|");
-                    System.out.print(this.computeChildV(child, 0));
-                    System.out.print("|");
-                    System.out.print(child.totalFraction);
-                    System.out.print("(");
-                    System.out.print(child.totalTurns);
-                    System.out.println(")}");
-                }
-            }
-            System.out.println();
-        }
-    }
 }
@@ -0,0 +1,295 @@
+package ch.epfl.javass.ai;
+
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.PackedCard;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PackedTrickSummary;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TeamId;
+
+/**
+ * The class is used to simulate the end of a turn (i.e. do a rollout) from a given state,
+ * which is what the MCTS players spend most of their time doing.
+ *
+ * It only works on the packed representations of the score (PackedScore), of the set of
+ * unplayed cards and of the hand (PackedCardSet) and of the trick (PackedTrick),
+ * so that no object (Card, CardSet, Trick, TurnState, Score) is created during a rollout,
+ * and no validation of the packed components is done at each card played.
+ *
+ * As in the search trees of the MCTS players, the trick given is always collected
+ * by convention: it is never full, and it is PackedTrick.INVALID once the last trick
+ * of the turn has been collected (see TurnState.withTrickCollected()).
+ *
+ * @author xavier
+ *
+ */
+public final class PackedRollouts {
+    private static final RolloutPolicy UNIFORM = RolloutPolicy.uniform();
+    private static final RolloutPolicy SIMPLE = RolloutPolicy.simple();
+
+    private PackedRollouts() {}
+
+    /**
+     * A turn is over iff its collected trick is invalid
+     * @param pkTrick collected trick
+     * @return
+     */
+    public static boolean isTerminal(int pkTrick) {
+        return pkTrick == PackedTrick.INVALID;
+    }
+
+    /**
+     * Gives the player who has to play the next card in the trick
+     * @param pkTrick collected trick, which is not terminal
+     * @return
+     */
+    public static PlayerId nextPlayer(int pkTrick) {
+        assert !isTerminal(pkTrick);
+
+        return PackedTrick.player(pkTrick, PackedTrick.size(pkTrick));
+    }
+
+    /**
+     * Gives the cards that the next player can play, from the point of view of ownId,
+     * who only knows its own hand:
+     *  - if ownId is the next player, these are the playable cards of its hand
+     *  - otherwise, these are the playable cards among the unplayed cards
+     *      that are not in the hand of ownId
+     * @param pkUnplayedCards
+     * @param pkTrick collected trick, which is not terminal
+     * @param pkHand hand of ownId. It can contain already played cards, as it is intersected
+     *  with the unplayed cards.
+     * @param ownId
+     * @return
+     */
+    public static long playableCards(long pkUnplayedCards, int pkTrick, long pkHand, PlayerId ownId) {
+        return playableCards(pkUnplayedCards, pkTrick, PackedTrickSummary.ofPackedTrick(pkTrick), pkHand, ownId);
+    }
+
+    /**
+     * Same as playableCards(_,_,_,_), where pkSummary is the summary of pkTrick,
+     * which is maintained along the trick during a rollout
+     */
+    private static long playableCards(long pkUnplayedCards, int pkTrick, int pkSummary, long pkHand, PlayerId ownId) {
+        long handSoFar = PackedCardSet.intersection(pkUnplayedCards, pkHand);
+
+        if(PackedTrick.player(pkTrick, PackedTrickSummary.size(pkSummary)) == ownId)
+            return PackedTrickSummary.playableCards(pkSummary, handSoFar);
+
+        long unplayedNotInHand = PackedCardSet.difference(pkUnplayedCards, handSoFar);
+        return PackedTrickSummary.playableCards(pkSummary, unplayedNotInHand);
+    }
+
+    /**
+     * Gives the score once the given full trick has been collected,
+     * i.e. its points credited to the team of its winning player.
+     * @param pkScore
+     * @param pkFullTrick
+     * @return
+     */
+    public static long withTrickCollected(long pkScore, int pkFullTrick) {
+        assert PackedTrick.isFull(pkFullTrick);
+
+        TeamId winningTeam = PackedTrick.winningPlayer(pkFullTrick).team();
+        return PackedScore.withAdditionalTrick(pkScore, winningTeam, PackedTrick.points(pkFullTrick));
+    }
+
+    /**
+     * Plays a turn till its end, every card being chosen by the given policy among
+     * the playable ones (see playableCards(_,_,_,_))
+     * @param pkScore
+     * @param pkUnplayedCards
+     * @param pkTrick collected trick
+     * @param pkHand hand of ownId
+     * @param ownId
+     * @param policy
+     * @param rng used by the policy
+     * @return the packed score at the end of the turn
+     */
+    public static long turn(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, PlayerId ownId, RolloutPolicy policy, SplittableRandom rng) {
+        if(isTerminal(pkTrick))
+            return pkScore;
+
+        Card.Color trump = PackedTrick.trump(pkTrick);
+        int pkSummary = PackedTrickSummary.ofPackedTrick(pkTrick);
+        while(!isTerminal(pkTrick)) {
+            long playable = playableCards(pkUnplayedCards, pkTrick, pkSummary, pkHand, ownId);
+
+            int nextCard = policy.cardToPlay(pkTrick, playable, rng);
+
+            pkUnplayedCards = PackedCardSet.remove(pkUnplayedCards, nextCard);
+            pkTrick = PackedTrick.withAddedCard(pkTrick, nextCard, PackedTrickSummary.size(pkSummary));
+            pkSummary = PackedTrickSummary.withAddedCard(pkSummary, nextCard);
+            if(PackedTrickSummary.isFull(pkSummary)) {
+                PlayerId winningPlayer = PackedTrick.player(pkTrick, PackedTrickSummary.winningIndex(pkSummary));
+                pkScore = PackedScore.withAdditionalTrick(pkScore, winningPlayer.team(), PackedTrick.points(pkTrick));
+                pkTrick = PackedTrick.nextEmpty(pkTrick, winningPlayer);
+                pkSummary = PackedTrickSummary.empty(trump);
+            }
+            // we don't need to update the hand because in playableCards(_,_,_,_),
+            // we use unplayedCards.intersection(hand) and not just hand.
+        }
+
+        return pkScore;
+    }
+
+    /**
+     * Plays a turn till its end, choosing every card uniformly at random among
+     * the playable ones (see turn(_,_,_,_,_,_,_) and RolloutPolicy.uniform())
+     * @param pkScore
+     * @param pkUnplayedCards
+     * @param pkTrick collected trick
+     * @param pkHand hand of ownId
+     * @param ownId
+     * @param rng
+     * @return the packed score at the end of the turn
+     */
+    public static long randomTurn(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, PlayerId ownId, SplittableRandom rng) {
+        return turn(pkScore, pkUnplayedCards, pkTrick, pkHand, ownId, UNIFORM, rng);
+    }
+
+    /**
+     * Plays a turn till its end, every card being chosen among the playable ones
+     * as SimplePlayer would (see simpleCard(_,_) and RolloutPolicy.simple())
+     * @param pkScore
+     * @param pkUnplayedCards
+     * @param pkTrick collected trick
+     * @param pkHand hand of ownId
+     * @param ownId
+     * @return the packed score at the end of the turn
+     */
+    public static long simpleTurn(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand, PlayerId ownId) {
+        // the policy is deterministic
+        return turn(pkScore, pkUnplayedCards, pkTrick, pkHand, ownId, SIMPLE, null);
+    }
+
+    /**
+     * Gives the card SimplePlayer plays among the given playable cards, without creating
+     * any object:
+     *  - if its teammate has the best card of the trick, the card of most points which is
+     *      better than the one of its teammate
+     *  - otherwise, the card of most points which is better than the cards of both opponents
+     *  - if there is no such card (or if it plays first), its weakest card
+     * The cards are looked at in the order of the set, the first one being kept in case of
+     * a tie, as in SimplePlayer.
+     * @param pkTrick trick, which is not full
+     * @param pkPlayable playable cards in the trick, not empty
+     * @return
+     */
+    public static int simpleCard(int pkTrick, long pkPlayable) {
+        assert !PackedCardSet.isEmpty(pkPlayable);
+
+        Card.Color trump = PackedTrick.trump(pkTrick);
+        int size = PackedTrick.size(pkTrick);
+
+        int bestCard = PackedCard.INVALID;
+        if(size > 0) {
+            // the teammate played two cards before this player, the opponents the other ones
+            int teammateCard = size >= 2 ? PackedTrick.card(pkTrick, size - 2) : PackedCard.INVALID;
+            int opponentCard1 = PackedTrick.card(pkTrick, size == 2 ? 1 : 0);
+            int opponentCard2 = size == 3 ? PackedTrick.card(pkTrick, 2) : PackedCard.INVALID;
+
+            if(teammateCard != PackedCard.INVALID && isBetterThanBoth(trump, teammateCard, opponentCard1, opponentCard2))
+                bestCard = strongerOfBestValue(trump, pkPlayable, teammateCard, PackedCard.INVALID);
+            else
+                bestCard = strongerOfBestValue(trump, pkPlayable, opponentCard1, opponentCard2);
+        }
+
+        return bestCard != PackedCard.INVALID ? bestCard : weakest(trump, pkPlayable);
+    }
+
+    private static boolean isBetterThanBoth(Card.Color trump, int pkCard, int pkCard1, int pkCard2) {
+        return PackedCard.isBetter(trump, pkCard, pkCard1)
+                && (pkCard2 == PackedCard.INVALID || PackedCard.isBetter(trump, pkCard, pkCard2));
+    }
+
+    /**
+     * Gives the card of most points of the given set which is better than the given
+     * card(s), or PackedCard.INVALID if there is none
+     */
+    private static int strongerOfBestValue(Card.Color trump, long pkCards, int pkCard1, int pkCard2) {
+        int bestCard = PackedCard.INVALID;
+        int bestPoints = -1;
+        for(long rest = pkCards; rest != 0; rest &= rest - 1) {
+            int pkCard = Long.numberOfTrailingZeros(rest);
+            int points = PackedCard.points(trump, pkCard);
+            if(points > bestPoints && isBetterThanBoth(trump, pkCard, pkCard1, pkCard2)) {
+                bestCard = pkCard;
+                bestPoints = points;
+            }
+        }
+        return bestCard;
+    }
+
+    /**
+     * Gives the weakest card of the given set, as SimplePlayer: a card is only replaced
+     * by a later one it is better than (cards of two colors which are not trump are
+     * never better than each other)
+     */
+    private static int weakest(Card.Color trump, long pkCards) {
+        int weakest = Long.numberOfTrailingZeros(pkCards);
+        for(long rest = pkCards & (pkCards - 1); rest != 0; rest &= rest - 1) {
+            int pkCard = Long.numberOfTrailingZeros(rest);
+            if(PackedCard.isBetter(trump, weakest, pkCard))
+                weakest = pkCard;
+        }
+        return weakest;
+    }
+
+    /**
+     * Plays a turn till its end when the hand of every player is known (for example
+     * in a determinization, see MctsDeterminizer), every card being chosen by the given
+     * policy among the playable cards of the hand of the player who plays it
+     * @param pkScore
+     * @param pkTrick collected trick
+     * @param pkHands hands of the players, indexed by the ordinal of their id.
+     *  The cards played are removed from them.
+     * @param policy
+     * @param rng used by the policy
+     * @return the packed score at the end of the turn
+     */
+    public static long determinizedTurn(long pkScore, int pkTrick, long[] pkHands, RolloutPolicy policy, SplittableRandom rng) {
+        assert pkHands.length == PlayerId.COUNT;
+
+        if(isTerminal(pkTrick))
+            return pkScore;
+
+        Card.Color trump = PackedTrick.trump(pkTrick);
+        int pkSummary = PackedTrickSummary.ofPackedTrick(pkTrick);
+        while(!isTerminal(pkTrick)) {
+            int player = PackedTrick.player(pkTrick, PackedTrickSummary.size(pkSummary)).ordinal();
+            long playable = PackedTrickSummary.playableCards(pkSummary, pkHands[player]);
+
+            int nextCard = policy.cardToPlay(pkTrick, playable, rng);
+
+            pkHands[player] = PackedCardSet.remove(pkHands[player], nextCard);
+            pkTrick = PackedTrick.withAddedCard(pkTrick, nextCard, PackedTrickSummary.size(pkSummary));
+            pkSummary = PackedTrickSummary.withAddedCard(pkSummary, nextCard);
+            if(PackedTrickSummary.isFull(pkSummary)) {
+                PlayerId winningPlayer = PackedTrick.player(pkTrick, PackedTrickSummary.winningIndex(pkSummary));
+                pkScore = PackedScore.withAdditionalTrick(pkScore, winningPlayer.team(), PackedTrick.points(pkTrick));
+                pkTrick = PackedTrick.nextEmpty(pkTrick, winningPlayer);
+                pkSummary = PackedTrickSummary.empty(trump);
+            }
+        }
+
+        return pkScore;
+    }
+
+    /**
+     * Same as determinizedTurn(_,_,_,_,_), every card being chosen uniformly at random
+     * @param pkScore
+     * @param pkTrick collected trick
+     * @param pkHands hands of the players, indexed by the ordinal of their id.
+     *  The cards played are removed from them.
+     * @param rng
+     * @return the packed score at the end of the turn
+     */
+    public static long randomDeterminizedTurn(long pkScore, int pkTrick, long[] pkHands, SplittableRandom rng) {
+        return determinizedTurn(pkScore, pkTrick, pkHands, UNIFORM, rng);
+    }
+}
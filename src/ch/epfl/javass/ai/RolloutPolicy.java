@@ -0,0 +1,77 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.jass.PackedCardSet;
+
+/**
+ * A rollout policy chooses the cards played during the simulation of the end of a turn
+ * (see PackedRollouts.turn(_,_,_,_,_,_,_)). It only works on the packed representations of
+ * the trick and of the cards, and it keeps no state from one card to the other,
+ * so that a single policy can be used by every thread of a search.
+ *
+ * The policies trade the cost of a rollout against its quality:
+ *  - uniform(): a card at random, which is the cheapest
+ *  - simple(): the card SimplePlayer would play, which is deterministic
+ *  - epsilonGreedy(_,_): the card of another policy, but a card at random once in a while
+ *  - softmax(_): a card at random, the cards which are likely to be good being more likely
+ *
+ * @author xavier
+ *
+ */
+public interface RolloutPolicy {
+    /**
+     * Chooses the next card of the trick
+     * @param pkTrick trick, which is not full
+     * @param pkPlayable cards that can be played in the trick, not empty
+     * @param rng
+     * @return the packed card chosen, one of pkPlayable
+     */
+    int cardToPlay(int pkTrick, long pkPlayable, SplittableRandom rng);
+
+    /**
+     * @return the policy which chooses every card uniformly at random among the playable ones
+     */
+    static RolloutPolicy uniform() {
+        return (pkTrick, pkPlayable, rng) -> PackedCardSet.get(pkPlayable, rng.nextInt(PackedCardSet.size(pkPlayable)));
+    }
+
+    /**
+     * @return the policy which plays as SimplePlayer (see PackedRollouts.simpleCard(_,_))
+     */
+    static RolloutPolicy simple() {
+        return (pkTrick, pkPlayable, rng) -> PackedRollouts.simpleCard(pkTrick, pkPlayable);
+    }
+
+    /**
+     * Gives the policy which plays as the given one, except that with probability epsilon
+     * it chooses the card uniformly at random instead
+     * @param greedy
+     * @param epsilon between 0 and 1
+     * @return
+     */
+    static RolloutPolicy epsilonGreedy(RolloutPolicy greedy, double epsilon) {
+        checkArgument(epsilon >= 0 && epsilon <= 1);
+
+        RolloutPolicy uniform = uniform();
+        return (pkTrick, pkPlayable, rng) -> rng.nextDouble() < epsilon
+                ? uniform.cardToPlay(pkTrick, pkPlayable, rng)
+                : greedy.cardToPlay(pkTrick, pkPlayable, rng);
+    }
+
+    /**
+     * Gives the policy which chooses a card at random with a probability proportional to
+     * exp(points/temperature) if it would win the trick so far, and to exp(-points/temperature)
+     * otherwise, so that a player rather wins the tricks with its cards of most points and
+     * loses them with its cards of least points (see SoftmaxRolloutPolicy)
+     * @param temperature strictly positive. The higher it is, the closer the policy is to uniform().
+     * @return
+     */
+    static RolloutPolicy softmax(double temperature) {
+        checkArgument(temperature > 0);
+
+        return new SoftmaxRolloutPolicy(temperature);
+    }
+}
@@ -1,22 +1,27 @@
 package ch.epfl.javass.ai;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
 import ch.epfl.javass.ai.benchmark.PlayerBenchmarkable;
 import ch.epfl.javass.jass.Card;
 import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.MutableTurnState;
+import ch.epfl.javass.jass.PackedCard;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedScore;
 import ch.epfl.javass.jass.Player;
 import ch.epfl.javass.jass.PlayerId;
-import ch.epfl.javass.jass.Score;
 import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.Trick;
 import ch.epfl.javass.jass.TurnState;
 
 /**
  * This player implement the Minimax algorithm to compute its cardToPlay.
  * In particular, the Minimax tree does not go deeper than the end of the 
  * current trick, which is why it is called Shallow.
+ * The tree is not stored: it is walked depth first with a MutableTurnState,
+ * on which the cards are played and undone, so that no state is created
+ * for each node.
  * @author xavier
  *
  */
@@ -32,6 +37,9 @@ public final class ShallowMinimaxPlayer implements Player, PlayerBenchmarkable {
     private int wins = 0;
     private PlayerId ownId = null;
     
+    // the cards the other players can hold, given the tricks of the turn
+    private final CardInference inference = new CardInference();
+    
     private long totalExecutionTime = 0;
     private long totalExecutions = 0;
 
@@ -55,105 +63,101 @@ public final class ShallowMinimaxPlayer implements Player, PlayerBenchmarkable {
         totalExecutions++;
         long beginTime = System.nanoTime();
         
-        int depth = 4-state.trick().size();
-                    
-        List<List<MinimaxNode>> tree = new ArrayList<List<MinimaxNode>>();
-        
-        // POPULATING THE TREE
+        // the trick may not have been given to updateTrick(Trick)
+        inference.updateTrick(state.packedTrick());
         
-        List<MinimaxNode> root = new ArrayList<MinimaxNode>();
-        root.add(new MinimaxNode(state, ownId));
-        tree.add(root);
+        MutableTurnState cursor = MutableTurnState.of(state);
+        long pkHand = hand.packed();
+        long pkInitialScore = state.packedScore();
         
-        for(int d=1; d<=depth; d++) {
-            List<MinimaxNode> parentNodes = tree.get(d-1);
-            List<MinimaxNode> leveledNodes = new ArrayList<MinimaxNode>();
+        // GETTING WHICH DIRECT CHILD HAS BEST VALUE
+        // the children are visited in the order of the cards (see getValue(_,_,_))
+        
+        long playable = cursor.playableCards(pkHand);
+        int bestCard = PackedCard.INVALID;
+        double maxValue = 0;
+        for(int i=0; i<PackedCardSet.size(playable); i++) {
+            int card = PackedCardSet.get(playable, i);
+            cursor.playCard(card);
+            double contenderValue = getValue(cursor, pkHand, pkInitialScore);
+            cursor.undo();
             
-            int count = 0;
-            for(int i=0; i<parentNodes.size(); i++) {
-                int lo = count;
-                
-                MinimaxNode parent = parentNodes.get(i);
-                CardSet unplayed = parent.getUnplayed(hand);
-                
-                while(!unplayed.isEmpty()) {
-                    Card nextCard = unplayed.get(0);
-                    TurnState nextState = parent.state.withNewCardPlayed(nextCard);
-                    MinimaxNode nextChild = new MinimaxNode(nextState, ownId);
-                    
-                    leveledNodes.add(nextChild);
-                    
-                    unplayed = unplayed.remove(nextCard);
-                    count++;
-                }
-                int hi = count;
-                
-                parent.setChildrenIndexRange(lo, hi);
+            if(bestCard == PackedCard.INVALID || contenderValue > maxValue) {
+                maxValue = contenderValue;
+                bestCard = card;
             }
-            
-            tree.add(leveledNodes);
         }
         
-        // COMPUTING THE VALUES
-        
-        // first: compute the values of the last row:
-        
-        List<MinimaxNode> lastRow = tree.get(depth);
-        for(int i=0; i<lastRow.size(); i++) {
-            MinimaxNode lastRowNode = lastRow.get(i);
-            // correcting for initial value has no impact on the 
-            // performances but is better for readability
-            Score nextScore = lastRowNode.state.withTrickCollected().score();
+        totalExecutionTime += (System.nanoTime()-beginTime);
+                    
+        return Card.ofPacked(bestCard);
+    }
+    
+    /**
+     * Computes the value of the state of the cursor by going through all the 
+     * ways to end the current trick (depth first). The cursor is modified 
+     * while going down the tree, but it is back in its initial state at the end.
+     *  - once the trick is full, the value is the one of the score once it is collected
+     *  - otherwise the value is the maximum of the values of the children if the 
+     *      next player is in the team of ownId, and their minimum otherwise
+     * @param cursor
+     * @param pkHand
+     * @param pkInitialScore
+     * @return
+     */
+    private double getValue(MutableTurnState cursor, long pkHand, long pkInitialScore) {
+        if(cursor.isTrickFull()) {
+            cursor.collectTrick();
+            long pkScore = cursor.packedScore();
+            cursor.undo();
+            
             if(SHOULD_MAXIMIZE_FRACTION) 
-                lastRowNode.value = getValueFraction(nextScore, ownId.team(), state.score());
+                return getValueFraction(pkScore, ownId.team(), pkInitialScore);
             else
-                lastRowNode.value = getValue(nextScore, ownId.team(), state.score());
-                
-        }
-        
-        // second: backtrack to the top
-        
-        for(int d=depth-1; d>=0; d--) {
-            List<MinimaxNode> parentRow = tree.get(d);
-            List<MinimaxNode> childrenRow = tree.get(d+1);
-            for(int i=0; i<parentRow.size(); i++) {
-                MinimaxNode parentNode = parentRow.get(i);
-                List<MinimaxNode> correspondingChildren = childrenRow.subList(parentNode.childrenStartIndex, parentNode.childrenEndIndex);
-                parentNode.setValue(correspondingChildren, parentNode.state.nextPlayer().team());
-            }
+                return getValue(pkScore, ownId.team(), pkInitialScore);
         }
         
+        boolean maximizes = cursor.nextPlayer().team() == ownId.team();
+        double value = maximizes ? -1 : 2000;
         
-        // GETTING WHICH DIRECT CHILD HAS BEST VALUE
-        
-        List<MinimaxNode> possibilities = tree.get(1);
-        double maxValue = possibilities.get(0).value;
-        int maxIndex = 0;
-        for(int i=1; i<possibilities.size(); i++) {
-            double contenderValue = possibilities.get(i).value;
-            if(contenderValue > maxValue) {
-                maxValue = contenderValue;
-                maxIndex = i;
-            }
+        long children = getUnplayed(cursor, pkHand);
+        for(int i=0; i<PackedCardSet.size(children); i++) {
+            cursor.playCard(PackedCardSet.get(children, i));
+            double childValue = getValue(cursor, pkHand, pkInitialScore);
+            cursor.undo();
+            
+            if(maximizes ? childValue > value : childValue < value)
+                value = childValue;
         }
-        
-        Card bestCard = state.trick().playableCards(hand).get(maxIndex);
-        
-        totalExecutionTime += (System.nanoTime()-beginTime);
-                    
-        return bestCard;
+        return value;
+    }
+    
+    /**
+     * Gives the cards that the next player can play, knowing that
+     * the hand of ownId is pkHand, and that the other players can only
+     * hold the cards given by the inference
+     * @param cursor
+     * @param pkHand
+     * @return
+     */
+    private long getUnplayed(MutableTurnState cursor, long pkHand) {
+        PlayerId player = cursor.nextPlayer();
+        if(player == ownId) 
+            return cursor.playableCards(pkHand);
+        long notInHand = PackedCardSet.difference(cursor.packedUnplayedCards(), pkHand);
+        return cursor.playableCards(inference.possibleCards(player, notInHand));
     }
     
-    private int getValue(Score score, TeamId teamId, Score initialScore) {
-        return score.totalPoints(teamId) - initialScore.totalPoints(teamId);
+    private int getValue(long pkScore, TeamId teamId, long pkInitialScore) {
+        return PackedScore.totalPoints(pkScore, teamId) - PackedScore.totalPoints(pkInitialScore, teamId);
     }
     
-    private double getValueFraction(Score score, TeamId teamId, Score initialScore) {
-        int initialValue = initialScore.totalPoints(teamId);
-        int initialOpponentValue = initialScore.totalPoints(teamId.other());
+    private double getValueFraction(long pkScore, TeamId teamId, long pkInitialScore) {
+        int initialValue = PackedScore.totalPoints(pkInitialScore, teamId);
+        int initialOpponentValue = PackedScore.totalPoints(pkInitialScore, teamId.other());
         
-        int finalValue = score.totalPoints(teamId);
-        int finalOpponentValue = score.totalPoints(teamId.other());
+        int finalValue = PackedScore.totalPoints(pkScore, teamId);
+        int finalOpponentValue = PackedScore.totalPoints(pkScore, teamId.other());
         
         return ((double) (finalValue - initialValue + 1))/((double) (finalOpponentValue - initialOpponentValue + 1));
     }
@@ -163,77 +167,14 @@ public final class ShallowMinimaxPlayer implements Player, PlayerBenchmarkable {
         this.ownId = ownId;
     }
     
+    @Override
+    public void updateTrick(Trick newTrick) {
+        inference.updateTrick(newTrick.packed());
+    }
+    
     @Override
     public void setWinningTeam(TeamId winningTeam) {
         if(ownId.team().equals(winningTeam))
             wins++;
     }
-    
-    private void displayBlank(List<List<MinimaxNode>> tree) {
-        for(List<MinimaxNode> nodes: tree) {
-            for(MinimaxNode node: nodes) {
-                System.out.print("o ");
-            }
-            System.out.println();
-        }
-    }
-    
-    private final static class MinimaxNode {
-        TurnState state;
-        PlayerId ownId;
-                    
-        int childrenStartIndex = -1;
-        int childrenEndIndex = -1;
-                    
-        double value = 0;
-                    
-        public MinimaxNode(TurnState state, PlayerId ownId) {
-            this.state = state;
-            this.ownId = ownId;
-        }
-        
-        public CardSet getUnplayed(CardSet hand) {
-            if(isTerminal())
-                return CardSet.EMPTY;
-            if(state.nextPlayer() == ownId) 
-                return state.trick().playableCards(hand);
-            CardSet notInHand = state.unplayedCards().difference(hand);
-            CardSet notInHandPlayable = state.trick().playableCards(notInHand);
-            return notInHandPlayable;
-        }
-        
-        public void setChildrenIndexRange(int start, int end) {
-            this.childrenStartIndex = start;
-            this.childrenEndIndex = end;
-        }
-        
-        private void setValue(List<MinimaxNode> children, TeamId teamId) {
-            if(teamId.equals(ownId.team()))
-                value = getMaxOfChildren(children);
-            else
-                value = getMinOfChildren(children);
-        }
-                    
-        private double getMinOfChildren(List<MinimaxNode> children) {
-            double minValue = 2000;
-            for(int i=0; i<children.size(); i++) {
-                if(children.get(i).value < minValue)
-                    minValue = children.get(i).value;
-            }
-            return minValue;
-        }
-        
-        private double getMaxOfChildren(List<MinimaxNode> children) {
-            double maxValue = -1;
-            for(int i=0; i<children.size(); i++) {
-                if(children.get(i).value > maxValue)
-                    maxValue = children.get(i).value;
-            }
-            return maxValue;
-        }
-        
-        private boolean isTerminal() {
-            return state.trick().isFull();
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package ch.epfl.javass.ai.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import ch.epfl.javass.ai.MctsTreeParallelisationPlayer;
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TurnState;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+
+/**
+ * Measures the average time of a move of MctsTreeParallelisationPlayer for
+ * 1, 2, 4, ... threads up to the number of available processors,
+ * to see how the tree parallelization scales.
+ * @author xavier
+ *
+ */
+public class MctsTreeParallelisationBenchmark {
+
+    private static final int SAMPLE_SIZE = 100;
+    private static final int RNG_SEED = 0;
+    private static final int ITERATIONS = 100_000;
+
+    public static void main(String[] args) {
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK));
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.EIGHT))
+                .add(Card.of(Color.SPADE, Rank.NINE))
+                .add(Card.of(Color.SPADE, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.SEVEN))
+                .add(Card.of(Color.HEART, Rank.EIGHT))
+                .add(Card.of(Color.HEART, Rank.NINE))
+                .add(Card.of(Color.HEART, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.JACK));
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for(int power=1; ; power*=2) {
+            int threads = Math.min(power, processors);
+            MctsTreeParallelisationPlayer p = new MctsTreeParallelisationPlayer(PlayerId.PLAYER_2, RNG_SEED, ITERATIONS, threads);
+
+            // the first moves are ignored, as the code is not compiled yet
+            for(int i=0; i<SAMPLE_SIZE/10; i++)
+                p.cardToPlay(state, hand);
+
+            long beginTime = System.nanoTime();
+            for(int i=0; i<SAMPLE_SIZE; i++)
+                p.cardToPlay(state, hand);
+            long averageExecutionTime = (System.nanoTime() - beginTime)/SAMPLE_SIZE;
+
+            System.out.println(threads + " threads: " + TimeUnit.NANOSECONDS.toMicros(averageExecutionTime) + " us per move");
+            
+            if(threads == processors)
+                break;
+        }
+    }
+
+}
@@ -73,6 +73,21 @@ public final class Bits32 {
         return extractedShifted;
     }
     
+    /**
+     * Same as extract(int, int, int), but the arguments are not checked:
+     * start must be between 0 and 31, size between 1 and 32, and start+size at most 32.
+     * It is meant to be called by the packed classes (PackedCard, PackedTrick, ...)
+     * with constant start and size, whose getters are called for every card played
+     * in the AI simulations. The checked version should be used otherwise.
+     * 
+     * @param bits (int) from which we want to extract bits from start to start+size-1
+     * @param start index of the first bit
+     * @param size size of the mask
+     */
+    public static int extractUnchecked(int bits, int start, int size) {
+        return (bits >>> start) & (-1 >>> (Integer.SIZE-size));
+    }
+    
     /**
      * To get the values v1 and v2 in the same int 
      * looks like (v2 | v1) 
@@ -93,6 +108,15 @@ public final class Bits32 {
         return decal1+decal2;
     }
     
+    /**
+     * Same as pack(int, int, int, int), but the arguments are not checked:
+     * the values must be positive and fit in their size, and s1 must be below 32.
+     * (see extractUnchecked(int, int, int) for when to use it)
+     */
+    public static int packUnchecked(int v1, int s1, int v2, int s2) {
+        return v1 | (v2 << s1);
+    }
+    
     /*
      * Same as pack for 2 values.
      * We thus obtain (v3 | v2 | v1)
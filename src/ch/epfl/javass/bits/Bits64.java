@@ -64,10 +64,26 @@ public final class Bits64 {
         checkIndexInterval(start, size);
         
         long extracted = mask(start, size) & bits;
-        long extractedShifted = extracted >> start;
+        // logical shift, so that the sign bit is not extended (see Bits32.extract)
+        long extractedShifted = extracted >>> start;
         return extractedShifted;
     }
     
+    /**
+     * Same as extract(long, int, int), but the arguments are not checked:
+     * start must be between 0 and 63, size between 1 and 64, and start+size at most 64.
+     * It is meant to be called by the packed classes (PackedScore, PackedCardSet, ...)
+     * with constant start and size, whose getters are called for every card played
+     * in the AI simulations. The checked version should be used otherwise.
+     * 
+     * @param bits (long) from which we want to extract bits from start to start+size-1
+     * @param start index of the first bit
+     * @param size size of the mask
+     */
+    public static long extractUnchecked(long bits, int start, int size) {
+        return (bits >>> start) & (-1L >>> (Long.SIZE-size));
+    }
+    
     /**
      * To get the values v1 and v2 in the same int 
      * looks like (v2 | v1) 
@@ -88,6 +104,15 @@ public final class Bits64 {
         return decal1|decal2; // was decal1 + decal2
     }
     
+    /**
+     * Same as pack(long, int, long, int), but the arguments are not checked:
+     * the values must be positive and fit in their size, and s1 must be below 64.
+     * (see extractUnchecked(long, int, int) for when to use it)
+     */
+    public static long packUnchecked(long v1, int s1, long v2, int s2) {
+        return v1 | (v2 << s1);
+    }
+    
     /** verifies that
      * - the size is between 1 and 63 (included)
      * - the value is not bigger than the size it should take.
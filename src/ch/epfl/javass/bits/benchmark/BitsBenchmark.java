@@ -0,0 +1,123 @@
+package ch.epfl.javass.bits.benchmark;
+
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.bits.Bits32;
+import ch.epfl.javass.bits.Bits64;
+
+/**
+ * Compares the checked extract functions of Bits32 and Bits64 with their
+ * unchecked versions, as they are used by the packed classes: with constant
+ * size, on the fields of a pkTrick (4 cards of 6 bits, accessed by their index 
+ * as in PackedTrick.card(int, int), and the index of the trick)
+ * and of a pkScore (the 3 fields of each team).
+ * 
+ * It prints (name, nanoseconds per extract with the checked version, 
+ * nanoseconds per extract with the unchecked version).
+ * @author xavier
+ *
+ */
+public class BitsBenchmark {
+    
+    private static final int VALUES_COUNT = 1 << 12;
+    private static final int REPETITIONS = 1 << 10;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int RNG_SEED = 0;
+    
+    private static final int CARDS_PER_TRICK = 4;
+    private static final int CARD_SIZE = 6;
+    private static final int INDEX_SIZE = 4;
+    private static final int TRICK_EXTRACTS = CARDS_PER_TRICK + 1;
+    private static final int SCORE_EXTRACTS = 6;
+
+    public static void main(String[] args) {
+        SplittableRandom rng = new SplittableRandom(RNG_SEED);
+        
+        int[] ints = new int[VALUES_COUNT];
+        long[] longs = new long[VALUES_COUNT];
+        for(int i=0; i<VALUES_COUNT; i++) {
+            ints[i] = rng.nextInt();
+            longs[i] = rng.nextLong();
+        }
+        
+        /**
+         * The measures of the first rounds are much higher than the subsequent ones,
+         * as the code has not been compiled yet. To remedy this, we ignore them.
+         */
+        long sink = 0;
+        for(int round=0; round<WARMUP_ROUNDS; round++) {
+            sink += trickChecked(ints) + trickUnchecked(ints);
+            sink += scoreChecked(longs) + scoreUnchecked(longs);
+        }
+        
+        long beginTime = System.nanoTime();
+        sink += trickChecked(ints);
+        long checkedTime = System.nanoTime() - beginTime;
+        beginTime = System.nanoTime();
+        sink += trickUnchecked(ints);
+        long uncheckedTime = System.nanoTime() - beginTime;
+        print("Bits32 (trick)", checkedTime, uncheckedTime, TRICK_EXTRACTS);
+        
+        beginTime = System.nanoTime();
+        sink += scoreChecked(longs);
+        checkedTime = System.nanoTime() - beginTime;
+        beginTime = System.nanoTime();
+        sink += scoreUnchecked(longs);
+        uncheckedTime = System.nanoTime() - beginTime;
+        print("Bits64 (score)", checkedTime, uncheckedTime, SCORE_EXTRACTS);
+        
+        // printed so that the computations cannot be optimised away
+        System.out.println(sink);
+    }
+    
+    private static void print(String name, long checkedTime, long uncheckedTime, int extractsPerValue) {
+        double operations = (double) VALUES_COUNT * REPETITIONS * extractsPerValue;
+        System.out.println(name + "\t" + (checkedTime/operations) + "\t" + (uncheckedTime/operations));
+    }
+    
+    private static long trickChecked(int[] values) {
+        long sum = 0;
+        for(int r=0; r<REPETITIONS; r++) {
+            for(int v: values) {
+                for(int i=0; i<CARDS_PER_TRICK; i++)
+                    sum += Bits32.extract(v, i*CARD_SIZE, CARD_SIZE);
+                sum += Bits32.extract(v, CARDS_PER_TRICK*CARD_SIZE, INDEX_SIZE);
+            }
+        }
+        return sum;
+    }
+    
+    private static long trickUnchecked(int[] values) {
+        long sum = 0;
+        for(int r=0; r<REPETITIONS; r++) {
+            for(int v: values) {
+                for(int i=0; i<CARDS_PER_TRICK; i++)
+                    sum += Bits32.extractUnchecked(v, i*CARD_SIZE, CARD_SIZE);
+                sum += Bits32.extractUnchecked(v, CARDS_PER_TRICK*CARD_SIZE, INDEX_SIZE);
+            }
+        }
+        return sum;
+    }
+    
+    private static long scoreChecked(long[] values) {
+        long sum = 0;
+        for(int r=0; r<REPETITIONS; r++) {
+            for(long v: values) {
+                sum += Bits64.extract(v, 0, 4) + Bits64.extract(v, 4, 9) + Bits64.extract(v, 13, 11)
+                    + Bits64.extract(v, 32, 4) + Bits64.extract(v, 36, 9) + Bits64.extract(v, 45, 11);
+            }
+        }
+        return sum;
+    }
+    
+    private static long scoreUnchecked(long[] values) {
+        long sum = 0;
+        for(int r=0; r<REPETITIONS; r++) {
+            for(long v: values) {
+                sum += Bits64.extractUnchecked(v, 0, 4) + Bits64.extractUnchecked(v, 4, 9) + Bits64.extractUnchecked(v, 13, 11)
+                    + Bits64.extractUnchecked(v, 32, 4) + Bits64.extractUnchecked(v, 36, 9) + Bits64.extractUnchecked(v, 45, 11);
+            }
+        }
+        return sum;
+    }
+}
@@ -68,6 +68,19 @@ public final class CardSet {
         return new CardSet(packed);
     }
     
+    /**
+     * Same as ofPacked(long), for packed that are known to be valid
+     * (e.g. the unplayed cards of a TurnState): the validity is only checked 
+     * when the assertions are enabled.
+     * @param packed
+     * @return
+     */
+    static CardSet ofPackedUnchecked(long packed) {
+        assert PackedCardSet.isValid(packed);
+        
+        return new CardSet(packed);
+    }
+    
     /**
      * To get the packed version of the set
      * @return
@@ -0,0 +1,220 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.javass.Preconditions.checkState;
+
+/**
+ * The class is used to represent the state of a turn, as TurnState does, 
+ * but which can be modified: cards are played and tricks are collected
+ * in place, and every modification can be undone.
+ * 
+ * It is meant to be used by the players that search the possible continuations
+ * of a turn (e.g. ShallowMinimaxPlayer): they can go down a branch and come back
+ * up without creating a TurnState (and its Score, CardSet and Trick) for every card.
+ * 
+ * The state is held as packed components (see TurnState), along with the summary
+ * of the current trick (see PackedTrickSummary). Before each modification, the 
+ * components are pushed on a stack of fixed size, so that undo() simply pops them.
+ * A turn has at most 36 cards played and 9 tricks collected, so the stack
+ * never needs to grow.
+ * 
+ * As for TurnState, the components are only validated when the assertions are enabled.
+ * @author xavier
+ *
+ */
+public final class MutableTurnState {
+    // maximum number of modifications that can be done in a turn
+    private static final int MAX_MODIFICATIONS = Jass.TRICKS_PER_TURN * (PlayerId.COUNT + 1);
+    
+    private long packedScore;
+    private long packedUnplayedCards;
+    private int packedCurrentTrick;
+    private int packedCurrentTrickSummary;
+    
+    private final long[] previousScores = new long[MAX_MODIFICATIONS];
+    private final long[] previousUnplayedCards = new long[MAX_MODIFICATIONS];
+    private final int[] previousTricks = new int[MAX_MODIFICATIONS];
+    private final int[] previousTrickSummaries = new int[MAX_MODIFICATIONS];
+    private int modifications = 0;
+    
+    private MutableTurnState(TurnState state) {
+        reset(state);
+    }
+    
+    /**
+     * To get a MutableTurnState which is initially in the given state
+     * @param state
+     * @return
+     */
+    public static MutableTurnState of(TurnState state) {
+        return new MutableTurnState(state);
+    }
+    
+    /**
+     * Puts this in the given state, and forgets the modifications
+     * done so far (they cannot be undone anymore)
+     * @param state
+     */
+    public void reset(TurnState state) {
+        packedScore = state.packedScore();
+        packedUnplayedCards = state.packedUnplayedCards();
+        packedCurrentTrick = state.packedTrick();
+        packedCurrentTrickSummary = state.packedTrickSummary();
+        modifications = 0;
+    }
+    
+    /**
+     * Gives an (immutable) TurnState in the same state as this
+     * @return
+     */
+    public TurnState toTurnState() {
+        return TurnState.ofPackedComponentsUnchecked(packedScore, packedUnplayedCards, packedCurrentTrick, packedCurrentTrickSummary);
+    }
+    
+    /**
+     * A getter for the packed version of the score of the turn
+     * @return
+     */
+    public long packedScore() {
+        return packedScore;
+    }
+    
+    /**
+     * A getter for the packed version of the unplayed cards of the turn
+     * @return
+     */
+    public long packedUnplayedCards() {
+        return packedUnplayedCards;
+    }
+    
+    /**
+     * A getter for the packed version of the current trick of the turn
+     * @return
+     */
+    public int packedTrick() {
+        return packedCurrentTrick;
+    }
+    
+    /**
+     * A getter for the summary of the current trick of the turn (see PackedTrickSummary)
+     * @return
+     */
+    public int packedTrickSummary() {
+        return packedCurrentTrickSummary;
+    }
+    
+    /**
+     * Gives the number of modifications that can be undone
+     * @return
+     */
+    public int modifications() {
+        return modifications;
+    }
+    
+    /**
+     * A turn is terminal once the last trick of the turn is full
+     * (see TurnState.isTerminal())
+     * @return
+     */
+    public boolean isTerminal() {
+        if(packedCurrentTrick == PackedTrick.INVALID)
+            return true;
+        return PackedTrick.isLast(packedCurrentTrick) & isTrickFull();
+    }
+    
+    /**
+     * A trick is full iff 4 cards have been played in it
+     * @return
+     */
+    public boolean isTrickFull() {
+        return PackedTrickSummary.isFull(packedCurrentTrickSummary);
+    }
+    
+    /**
+     * The next player is the player that comes after the last player 
+     * who played in the current trick
+     * Throws IllegalStateException if the current trick is full
+     * @return
+     */
+    public PlayerId nextPlayer() {
+        checkState(!isTrickFull());
+        return PackedTrick.player(packedCurrentTrick, PackedTrickSummary.size(packedCurrentTrickSummary));
+    }
+    
+    /**
+     * Gives the cards of the pkHand that can be played in the current trick
+     * (see PackedTrick.playableCards(int, long))
+     * @param pkHand
+     * @return
+     */
+    public long playableCards(long pkHand) {
+        return PackedTrickSummary.playableCards(packedCurrentTrickSummary, pkHand);
+    }
+    
+    private void save() {
+        previousScores[modifications] = packedScore;
+        previousUnplayedCards[modifications] = packedUnplayedCards;
+        previousTricks[modifications] = packedCurrentTrick;
+        previousTrickSummaries[modifications] = packedCurrentTrickSummary;
+        modifications++;
+    }
+    
+    /**
+     * Adds the given card to the current trick, and removes it from the
+     * unplayed cards (see TurnState.withNewCardPlayed(Card))
+     * Throws IllegalStateException if the current trick is full or
+     * if the last trick of the turn has been collected
+     * @param pkCard
+     */
+    public void playCard(int pkCard) {
+        checkState(!isTrickFull() && packedCurrentTrick != PackedTrick.INVALID);
+        assert PackedCardSet.contains(packedUnplayedCards, pkCard);
+        
+        save();
+        int size = PackedTrickSummary.size(packedCurrentTrickSummary);
+        packedCurrentTrick = PackedTrick.withAddedCard(packedCurrentTrick, pkCard, size);
+        packedCurrentTrickSummary = PackedTrickSummary.withAddedCard(packedCurrentTrickSummary, pkCard);
+        packedUnplayedCards = PackedCardSet.remove(packedUnplayedCards, pkCard);
+    }
+    
+    /**
+     * Collects the current trick: its points are added to the score
+     * and it is replaced by the next empty trick (see TurnState.withTrickCollected())
+     * Throws IllegalStateException if the current trick is not full
+     */
+    public void collectTrick() {
+        checkState(isTrickFull());
+        
+        save();
+        int winningIndex = PackedTrickSummary.winningIndex(packedCurrentTrickSummary);
+        PlayerId winningPlayer = PackedTrick.player(packedCurrentTrick, winningIndex);
+        packedScore = PackedScore.withAdditionalTrick(packedScore, winningPlayer.team(), PackedTrick.points(packedCurrentTrick));
+        packedCurrentTrick = PackedTrick.nextEmpty(packedCurrentTrick, winningPlayer);
+        packedCurrentTrickSummary = PackedTrickSummary.empty(PackedTrickSummary.trump(packedCurrentTrickSummary));
+    }
+    
+    /**
+     * Plays the given card, and collects the trick if it is then full
+     * (see TurnState.withNewCardPlayedAndTrickCollected(Card))
+     * As it can do two modifications, undoing it can need two calls to undo()
+     * @param pkCard
+     */
+    public void playCardAndCollectTrick(int pkCard) {
+        playCard(pkCard);
+        if(isTrickFull())
+            collectTrick();
+    }
+    
+    /**
+     * Undoes the last modification (card played or trick collected)
+     * Throws IllegalStateException if there is no modification to undo
+     */
+    public void undo() {
+        checkState(modifications > 0);
+        
+        modifications--;
+        packedScore = previousScores[modifications];
+        packedUnplayedCards = previousUnplayedCards[modifications];
+        packedCurrentTrick = previousTricks[modifications];
+        packedCurrentTrickSummary = previousTrickSummaries[modifications];
+    }
+}
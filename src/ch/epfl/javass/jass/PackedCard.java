@@ -31,6 +31,42 @@ public final class PackedCard {
     private static final int[] POSSIBLE_POINTS_IF_TRUMP = {0,0,0,14,10,20,3,4,11};
     private static final int[] POSSIBLE_POINTS_OTHERWISE = {0,0,0,0,10,2,3,4,11};
     
+    // a pkCard is always below 64 (it uses 6 bits)
+    private static final int PACKED_CARD_COUNT = 1 << (RANK_SIZE + COLOR_SIZE);
+    
+    /**
+     * of form [trumpOrdinal][pkCardL]: the bit pkCardR is set iff pkCardL is better
+     * than pkCardR given the trump. 
+     * isBetter(_,_,_) and points(_,_) are called for every card played in the
+     * games simulated by the AI, so we do not want to go through the colors and
+     * ranks (and their enums) each time.
+     */
+    private static final long[][] precomputedBeats = new long[Card.Color.COUNT][PACKED_CARD_COUNT];
+    // of form [trumpOrdinal][pkCard]
+    private static final int[][] precomputedPoints = new int[Card.Color.COUNT][PACKED_CARD_COUNT];
+    
+    static {
+        for(Card.Color trump: Card.Color.ALL) {
+            for(Card.Color lColor: Card.Color.ALL) {
+                for(Card.Rank lRank: Card.Rank.ALL) {
+                    int pkCardL = pack(lColor, lRank);
+                    
+                    long beats = 0;
+                    for(Card.Color rColor: Card.Color.ALL) {
+                        for(Card.Rank rRank: Card.Rank.ALL) {
+                            if(computeIsBetter(trump, lColor, lRank, rColor, rRank))
+                                beats |= 1L << pack(rColor, rRank);
+                        }
+                    }
+                    precomputedBeats[trump.ordinal()][pkCardL] = beats;
+                    
+                    int[] possiblePoints = lColor == trump ? POSSIBLE_POINTS_IF_TRUMP : POSSIBLE_POINTS_OTHERWISE;
+                    precomputedPoints[trump.ordinal()][pkCardL] = possiblePoints[lRank.ordinal()];
+                }
+            }
+        }
+    }
+    
     
     /** A card is of form: (unused (6->31) | color (4->5) | rank (0->3))
      * it is valid iff the rank is between 0 and 8 (included)
@@ -39,12 +75,12 @@ public final class PackedCard {
      * @return
      */
     public static boolean isValid(int pkCard) {        
-        int cardRank = Bits32.extract(pkCard, 0, RANK_SIZE);
+        int cardRank = Bits32.extractUnchecked(pkCard, 0, RANK_SIZE);
         boolean isValid = (cardRank < Card.Rank.COUNT) && (cardRank >= 0);
         
         // card color is always between 0 and 3 as it takes 2 bits
         
-        int unusedBitsMask = Bits32.extract(pkCard, UNUSED_START, UNUSED_SIZE);
+        int unusedBitsMask = Bits32.extractUnchecked(pkCard, UNUSED_START, UNUSED_SIZE);
         isValid &= (unusedBitsMask == 0);
         
         return isValid;
@@ -57,7 +93,7 @@ public final class PackedCard {
      * @return
      */
     public static int pack(Card.Color c, Card.Rank r) {
-        return Bits32.pack(r.ordinal(), RANK_SIZE, c.ordinal(), COLOR_SIZE);
+        return Bits32.packUnchecked(r.ordinal(), RANK_SIZE, c.ordinal(), COLOR_SIZE);
     }
     
     /**
@@ -68,7 +104,7 @@ public final class PackedCard {
     public static Card.Color color(int pkCard) {
         assert isValid(pkCard);
         
-        int colorOrdinal = Bits32.extract(pkCard, RANK_SIZE, COLOR_SIZE);
+        int colorOrdinal = Bits32.extractUnchecked(pkCard, RANK_SIZE, COLOR_SIZE);
         return Card.Color.ALL.get(colorOrdinal);
     }
     
@@ -80,7 +116,7 @@ public final class PackedCard {
     public static Card.Rank rank(int pkCard) {
         assert isValid(pkCard);
         
-        int rankOrdinal = Bits32.extract(pkCard, 0, RANK_SIZE);
+        int rankOrdinal = Bits32.extractUnchecked(pkCard, 0, RANK_SIZE);
         return Card.Rank.ALL.get(rankOrdinal);
     }
     
@@ -89,21 +125,9 @@ public final class PackedCard {
      * They are not comparable if not of same color nor their color is trump.
      * Otherwise, if they are of same color we compare ordinal or trumpOrdinal
      * Otherwise if one is trump it is greater
-     * @param trump
-     * @param pkCardL
-     * @param pkCardR
-     * @return
+     * It is only used to fill precomputedBeats.
      */
-    public static boolean isBetter(Card.Color trump, int pkCardL, int pkCardR) {
-        assert isValid(pkCardL);
-        assert isValid(pkCardR);
-        
-        Card.Color lColor = color(pkCardL);
-        Card.Color rColor = color(pkCardR);
-        
-        Card.Rank lRank = rank(pkCardL);
-        Card.Rank rRank = rank(pkCardR);
-        
+    private static boolean computeIsBetter(Card.Color trump, Card.Color lColor, Card.Rank lRank, Card.Color rColor, Card.Rank rRank) {
         if(lColor == rColor) {
             if(lColor == trump) 
                 return (lRank.trumpOrdinal() > rRank.trumpOrdinal());
@@ -115,8 +139,24 @@ public final class PackedCard {
         return false;
     }
     
+    /**
+     * Determines if the ls card is better to the rs card (see computeIsBetter(_,_,_,_,_))
+     * We use precomputed values for performance
+     * @param trump
+     * @param pkCardL
+     * @param pkCardR
+     * @return
+     */
+    public static boolean isBetter(Card.Color trump, int pkCardL, int pkCardR) {
+        assert isValid(pkCardL);
+        assert isValid(pkCardR);
+        
+        return (precomputedBeats[trump.ordinal()][pkCardL] & (1L << pkCardR)) != 0;
+    }
+    
     /**
      * The points that a card represents given the trump
+     * We use precomputed values for performance
      * @param trump
      * @param pkCard
      * @return
@@ -124,11 +164,7 @@ public final class PackedCard {
     public static int points(Card.Color trump, int pkCard) {
         assert isValid(pkCard);
         
-        Card.Rank cardRank = rank(pkCard);
-        int[] currentPossibleValues = color(pkCard) == trump ? POSSIBLE_POINTS_IF_TRUMP : POSSIBLE_POINTS_OTHERWISE;
-        
-        return currentPossibleValues[cardRank.ordinal()];
-    
+        return precomputedPoints[trump.ordinal()][pkCard];
     }
     
     /**
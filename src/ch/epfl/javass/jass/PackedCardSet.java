@@ -53,11 +53,41 @@ public final class PackedCardSet {
     };
     
     // size of each component of the pkCardSet
-    private static int SUBSET_SIZE = 16;
+    private static final int SUBSET_SIZE = 16;
+    // the bits of a component that are used to represent its cards
+    private static final int COLOR_SUBSET_MASK = (1 << Card.Rank.COUNT) - 1;
+    
+    // number of bits of the index in precomputedSelect (a color has at most 9 cards)
+    private static final int SELECT_INDEX_SIZE = 4;
+    // of form [colorOrdinal]: all the bits of the colors strictly before colorOrdinal
+    private static final long[] precomputedFirstColorsMasks = {
+            0L, 0xFFFFL, 0xFFFF_FFFFL, 0xFFFF_FFFF_FFFFL
+    };
+    
+    /**
+     * precomputedSelect[(colorSubset << SELECT_INDEX_SIZE) | index] is the rank ordinal
+     * of the index-th card of colorSubset, where colorSubset is the 9 bits
+     * component of a color in a pkCardSet. This is used by get(long, int).
+     * Entries for which colorSubset does not have enough cards are unused.
+     */
+    private static final byte[] precomputedSelect = computeSelect();
+    
+    private static byte[] computeSelect() {
+        byte[] select = new byte[(COLOR_SUBSET_MASK+1) << SELECT_INDEX_SIZE];
+        for(int colorSubset = 0; colorSubset <= COLOR_SUBSET_MASK; colorSubset++) {
+            int index = 0;
+            for(int rank = 0; rank < Card.Rank.COUNT; rank++) {
+                if((colorSubset & (1 << rank)) != 0)
+                    select[(colorSubset << SELECT_INDEX_SIZE) | index++] = (byte) rank;
+            }
+        }
+        return select;
+    }
+    
     // start index of unused bits in each component
-    private static int UNUSED_START_INDEX = 9;
+    private static final int UNUSED_START_INDEX = 9;
     // size of unused bits in each component
-    private static int UNUSED_SIZE = 7;
+    private static final int UNUSED_SIZE = 7;
     
     /**
      * Used is isValid(long) to check if every Color
@@ -69,8 +99,8 @@ public final class PackedCardSet {
      * @return
      */
     private static boolean subsetIsValid(long pkCardSet, int index, int size) {
-        long colorPart = Bits64.extract(pkCardSet, index, size);
-        long unusedPart = Bits64.extract(colorPart, UNUSED_START_INDEX, UNUSED_SIZE);
+        long colorPart = Bits64.extractUnchecked(pkCardSet, index, size);
+        long unusedPart = Bits64.extractUnchecked(colorPart, UNUSED_START_INDEX, UNUSED_SIZE);
         return unusedPart==0;
     }
     
@@ -147,21 +177,43 @@ public final class PackedCardSet {
     }
     
     /**
-     * Returns the pkCard that corresponds to the specified index
-     * If the pkCardSet does not contain any card,
-     * it returns PackedCard.Invalid
+     * Returns the pkCard that corresponds to the specified index, i.e. the 
+     * index-th card of the set when cards are ordered by their bit position.
+     * If the pkCardSet does not have enough cards, it returns Long.SIZE
+     * (which is not a valid pkCard).
+     * 
+     * We do not remove the lowest card index times, as this function is called 
+     * for every card played in the MCTS simulations. Instead we find the color
+     * containing the card by comparing the index with the number of cards in the 
+     * first one, two and three colors, and we then get the card inside this color 
+     * using precomputedSelect. Apart from the bounds check, there is no loop
+     * nor branch, so the time does not depend on the index.
      * @param pkCardSet
      * @param index
      * @return
      */
     public static int get(long pkCardSet, int index) {
-        long lowestOneBit = Long.lowestOneBit(pkCardSet);
-        while(lowestOneBit != 0 & index-->0) {
-            pkCardSet -= lowestOneBit;
-            lowestOneBit = Long.lowestOneBit(pkCardSet);
-        }
-//        return getCardForBitPositioning(pkCardSet, Long.numberOfTrailingZeros(lowestOneBit));
-        return Long.numberOfTrailingZeros(lowestOneBit);
+        assert index >= 0;
+        
+        if(index >= size(pkCardSet))
+            return Long.SIZE;
+        
+        // colorOrdinal is the number of the first colors having at most index cards
+        int colorOrdinal = isAtMost(Long.bitCount(pkCardSet & precomputedFirstColorsMasks[1]), index)
+                + isAtMost(Long.bitCount(pkCardSet & precomputedFirstColorsMasks[2]), index)
+                + isAtMost(Long.bitCount(pkCardSet & precomputedFirstColorsMasks[3]), index);
+        int colorStart = colorOrdinal*SUBSET_SIZE;
+        
+        int cardsBeforeColor = Long.bitCount(pkCardSet & precomputedFirstColorsMasks[colorOrdinal]);
+        int colorSubset = (int) (pkCardSet >>> colorStart) & COLOR_SUBSET_MASK;
+        return colorStart + precomputedSelect[(colorSubset << SELECT_INDEX_SIZE) | (index - cardsBeforeColor)];
+    }
+    
+    /**
+     * 1 if a <= b, 0 otherwise, without branching (a and b are positive)
+     */
+    private static int isAtMost(int a, int b) {
+        return (b - a) >>> (Integer.SIZE-1) ^ 1;
     }
     
     /**
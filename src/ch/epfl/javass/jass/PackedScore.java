@@ -50,7 +50,7 @@ public final class PackedScore {
     static private final int MAX_GAME_POINTS = 2000;
     
     private static boolean isInBounds(int score, int max, int startIndex, int size) {
-        int extracted = Bits32.extract(score, startIndex, size);
+        int extracted = Bits32.extractUnchecked(score, startIndex, size);
         return extracted <= max;
     }
     
@@ -76,8 +76,8 @@ public final class PackedScore {
      * @return
      */
     public static boolean isValid(long pkScore) {
-        int firstTeam = (int) Bits64.extract(pkScore, 0, Integer.SIZE);
-        int secondTeam = (int) Bits64.extract(pkScore, Integer.SIZE, Integer.SIZE);
+        int firstTeam = (int) Bits64.extractUnchecked(pkScore, 0, Integer.SIZE);
+        int secondTeam = (int) Bits64.extractUnchecked(pkScore, Integer.SIZE, Integer.SIZE);
         
         return teamScoreIsValid(firstTeam) & teamScoreIsValid(secondTeam);
     }
@@ -122,7 +122,7 @@ public final class PackedScore {
         assert isValid(pkScore);
         
         int lowerBound = ((t==TeamId.TEAM_1) ? 0:Integer.SIZE);
-        return (int) (Bits64.extract(pkScore, lowerBound, Integer.SIZE));
+        return (int) (Bits64.extractUnchecked(pkScore, lowerBound, Integer.SIZE));
     }
     
     /**
@@ -135,7 +135,7 @@ public final class PackedScore {
         assert isValid(pkScore);
         
         int teamScore = getTeamPart(pkScore, t);
-        return Bits32.extract(teamScore, numberOfTricksLo, numberOfTricksSize);
+        return Bits32.extractUnchecked(teamScore, numberOfTricksLo, numberOfTricksSize);
     }
     
     /**
@@ -148,7 +148,7 @@ public final class PackedScore {
         assert isValid(pkScore);
         
         int teamScore = getTeamPart(pkScore, t);
-        return Bits32.extract(teamScore, turnPointsLo, turnPointsSize);
+        return Bits32.extractUnchecked(teamScore, turnPointsLo, turnPointsSize);
     }
     
     /**
@@ -161,7 +161,7 @@ public final class PackedScore {
         assert isValid(pkScore);
         
         int teamScore = getTeamPart(pkScore, t);
-        return Bits32.extract(teamScore, gamePointsLo, gamePointsSize);
+        return Bits32.extractUnchecked(teamScore, gamePointsLo, gamePointsSize);
     }
     
     /**
@@ -182,11 +182,13 @@ public final class PackedScore {
      * Adds the specified trick points to pkScore of winningTeam 
      * Add MATCH_ADDITIONAL_POINTS if the winning team won 
      * all the tricks of the turn
-     * (Only changes the turnPoints of the concerned team in the pkScore)
+     * (Only changes the turnTricks and turnPoints of the concerned team in the pkScore)
      * DOES NOT HANDLE LAST_TRICK_ADDITIONAL_POINTS
      * 
-     * I chose to not use any private methods although it would probably have
-     * shorten the code. 
+     * This is called for every trick of the turns simulated by the AI, so
+     * we do not unpack and repack the score: we add one trick and the points
+     * directly into the 32 bits of the winning team. The fields cannot overflow 
+     * into each other as they stay in their bounds (see isValid(long)).
      * @param pkScore
      * @param winningTeam
      * @param trickPoints
@@ -195,22 +197,17 @@ public final class PackedScore {
     public static long withAdditionalTrick(long pkScore, TeamId winningTeam, int trickPoints) {
         assert isValid(pkScore);
         
-        int tricksOfTurn = turnTricks(pkScore, winningTeam)+1;
-        int pointsOfTurn = turnPoints(pkScore, winningTeam);
-        int pointsOfGame = gamePoints(pkScore, winningTeam);
-        pointsOfTurn += trickPoints;
+        int teamStart = winningTeam.ordinal() * Integer.SIZE;
+        int tricksOfTurn = (int) Bits64.extractUnchecked(pkScore, teamStart + numberOfTricksLo, numberOfTricksSize) + 1;
+        int additionalPoints = trickPoints;
         if(tricksOfTurn == Jass.TRICKS_PER_TURN) 
-            pointsOfTurn += Jass.MATCH_ADDITIONAL_POINTS;
+            additionalPoints += Jass.MATCH_ADDITIONAL_POINTS;
         
-        int otherTricks = turnTricks(pkScore, winningTeam.other());
-        int otherTurnP = turnPoints(pkScore, winningTeam.other());
-        int otherGameP = gamePoints(pkScore, winningTeam.other());
+        long teamDelta = (1L << numberOfTricksLo) | ((long) additionalPoints << turnPointsLo);
+        long nextScore = pkScore + (teamDelta << teamStart);
         
-        
-        if(winningTeam == TeamId.TEAM_1) 
-            return pack(tricksOfTurn, pointsOfTurn, pointsOfGame, otherTricks, otherTurnP, otherGameP);
-        else 
-            return pack(otherTricks, otherTurnP, otherGameP, tricksOfTurn, pointsOfTurn, pointsOfGame);
+        assert isValid(nextScore);
+        return nextScore;
     }
     
     /**
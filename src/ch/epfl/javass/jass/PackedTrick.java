@@ -28,17 +28,18 @@ public final class PackedTrick {
     
     public static final int INVALID = -1;
     
-    private static int CARD_SIZE = 6;
+    private static final int CARD_SIZE = 6;
+    private static final int CARD_MASK = (1 << CARD_SIZE) - 1;
     
-    private static int PLAYER_SIZE = 2;
-    private static int PLAYER_START = 28;
+    private static final int PLAYER_SIZE = 2;
+    private static final int PLAYER_START = 28;
     
-    private static int TRUMP_SIZE = 2;
-    private static int TRUMP_START = 30;
+    private static final int TRUMP_SIZE = 2;
+    private static final int TRUMP_START = 30;
             
-    private static int INDEX_SIZE = 4;
-    private static int INDEX_START = 24;
-    private static int MAX_INDEX_VALUE = 8;
+    private static final int INDEX_SIZE = 4;
+    private static final int INDEX_START = 24;
+    private static final int MAX_INDEX_VALUE = 8;
     
     /**
      * 
@@ -48,12 +49,12 @@ public final class PackedTrick {
      * @return
      */
     private static boolean cardComponentIsValid(int pkTrick, int index, int size) {
-        int component = Bits32.extract(pkTrick, index, size);
+        int component = Bits32.extractUnchecked(pkTrick, index, size);
         return PackedCard.isValid(component);
     }
     
     private static boolean componentIsValid(int pkTrick, int index, int size, int maxValue) {
-        int component = Bits32.extract(pkTrick, index, size);
+        int component = Bits32.extractUnchecked(pkTrick, index, size);
         return component <= maxValue;
     }
     
@@ -89,8 +90,11 @@ public final class PackedTrick {
         return pkIsValid;
     }
     
+    // the 4 cards of an empty pkTrick, which are all PackedCard.INVALID
+    private static final int EMPTY_CARDS = Bits32.pack(PackedCard.INVALID, CARD_SIZE, PackedCard.INVALID, CARD_SIZE, PackedCard.INVALID, CARD_SIZE, PackedCard.INVALID, CARD_SIZE, 0, INDEX_SIZE, 0, PLAYER_SIZE, 0, TRUMP_SIZE);
+    
     private static int createEmptyPacked(int trump, int player, int index) {
-        return Bits32.pack(PackedCard.INVALID, CARD_SIZE, PackedCard.INVALID, CARD_SIZE, PackedCard.INVALID, CARD_SIZE, PackedCard.INVALID, CARD_SIZE, index, INDEX_SIZE, player, PLAYER_SIZE, trump, TRUMP_SIZE);
+        return EMPTY_CARDS | (index << INDEX_START) | (player << PLAYER_START) | (trump << TRUMP_START);
     }
     
     /**
@@ -114,13 +118,23 @@ public final class PackedTrick {
      * @return
      */
     public static int nextEmpty(int pkTrick) {
+        return nextEmpty(pkTrick, winningPlayer(pkTrick));
+    }
+    
+    /**
+     * Same as nextEmpty(int), but with the winning player of the pkTrick already
+     * known (see PackedTrickSummary.winningIndex(int)), so that it is not searched again
+     * @param pkTrick
+     * @param winningPlayer
+     * @return
+     */
+    public static int nextEmpty(int pkTrick, PlayerId winningPlayer) {
         if(isLast(pkTrick))
             return INVALID;
         
         int index = index(pkTrick)+1;
         int trump = trump(pkTrick).ordinal();
-        int winner = winningPlayer(pkTrick).ordinal();
-        return createEmptyPacked(trump, winner, index);
+        return createEmptyPacked(trump, winningPlayer.ordinal(), index);
     }
     
     /**
@@ -167,7 +181,7 @@ public final class PackedTrick {
      * @return
      */
     public static PlayerId player(int pkTrick, int index) {
-        int firstPlayerOrdinal = Bits32.extract(pkTrick, PLAYER_START, PLAYER_SIZE);
+        int firstPlayerOrdinal = Bits32.extractUnchecked(pkTrick, PLAYER_START, PLAYER_SIZE);
         int playerIndex = (firstPlayerOrdinal + index)%PlayerId.COUNT;
         return PlayerId.ALL.get(playerIndex);
     }
@@ -178,7 +192,7 @@ public final class PackedTrick {
      * @return
      */
     public static Card.Color trump(int pkTrick) {
-        int colorOrdinal = Bits32.extract(pkTrick, TRUMP_START, TRUMP_SIZE);
+        int colorOrdinal = Bits32.extractUnchecked(pkTrick, TRUMP_START, TRUMP_SIZE);
         return Card.Color.values()[colorOrdinal];
     }
     
@@ -188,7 +202,7 @@ public final class PackedTrick {
      * @return
      */
     public static int index(int pkTrick) {
-        return Bits32.extract(pkTrick, INDEX_START, INDEX_SIZE);
+        return Bits32.extractUnchecked(pkTrick, INDEX_START, INDEX_SIZE);
     }
     
     /**
@@ -198,7 +212,7 @@ public final class PackedTrick {
      * @return
      */
     public static int card(int pkTrick, int index) {
-        return Bits32.extract(pkTrick, CARD_SIZE*index, CARD_SIZE);
+        return Bits32.extractUnchecked(pkTrick, CARD_SIZE*index, CARD_SIZE);
     }
     
     /**
@@ -209,7 +223,7 @@ public final class PackedTrick {
      * @return
      */
     private static int setCardAtIndex(int pkTrick, int pkCard, int index) {
-        int existingCardMask = Bits32.mask(index*CARD_SIZE, CARD_SIZE);
+        int existingCardMask = CARD_MASK << (index*CARD_SIZE);
         int notMask = ~(existingCardMask);
         int wipedPkTrick = pkTrick & notMask;
         return wipedPkTrick | (pkCard << index*CARD_SIZE);
@@ -225,6 +239,20 @@ public final class PackedTrick {
         return setCardAtIndex(pkTrick, pkCard, size(pkTrick));
     }
     
+    /**
+     * Same as withAddedCard(int, int), but with the size of the pkTrick already
+     * known (see PackedTrickSummary.size(int)), so that the cards are not counted again
+     * @param pkTrick
+     * @param pkCard
+     * @param size
+     * @return
+     */
+    public static int withAddedCard(int pkTrick, int pkCard, int size) {
+        assert size == size(pkTrick);
+        
+        return setCardAtIndex(pkTrick, pkCard, size);
+    }
+    
     /**
      * Get the color of the first card played
      * @param pkTrick
@@ -252,13 +280,15 @@ public final class PackedTrick {
     private static int maxTrumpRankPlayed(int pkTrick) {
         Card.Color trump = trump(pkTrick);
         int maxRankOrdinal = -1;
-        // a card that is alway gonna be lesser than a card with trump color
+        // the best trump played so far, initially a card that is alway gonna be 
+        // lesser than a card with trump color
         int pkCardToCompare = PackedCard.pack(trump == Card.Color.CLUB ? Card.Color.DIAMOND : Card.Color.CLUB, Card.Rank.SIX);
         for(int i=0; i<=3; i++) {
             int card = card(pkTrick, i);
             if(PackedCard.isValid(card)) {
                 if(PackedCard.color(card) == trump & PackedCard.isBetter(trump, card, pkCardToCompare)) {
                     maxRankOrdinal = PackedCard.rank(card).ordinal();
+                    pkCardToCompare = card;
                 }
             }
         }
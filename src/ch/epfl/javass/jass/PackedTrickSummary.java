@@ -0,0 +1,233 @@
+package ch.epfl.javass.jass;
+
+/**
+ * Class used to manipulate summaries of tricks encoded in a (int).
+ * A summary goes along a pkTrick and holds what the rules need to know
+ * about the cards already played in it, so that PackedTrickSummary.playableCards(int, long)
+ * gives the same result as PackedTrick.playableCards(int, long) with
+ * only a few operations on the hand, instead of going through the cards of the trick.
+ * It also holds the size of the trick and its best card so far, so that they
+ * do not have to be found again by going through the cards of the trick.
+ * The summary is updated in constant time for each card added to the trick.
+ *
+ * The (int) is formatted this way:
+ *  - bits 0 to 8: the ranks of the trump cards that are better than all the trumps
+ *      played so far (thus the 9 ranks if no trump has been played yet)
+ *  - bits 9 to 10: trump color ordinal
+ *  - bits 11 to 12: base color ordinal (meaningless if the trick is empty)
+ *  - bits 13 to 15: size of the trick (from 0 to 4)
+ *  - bits 16 to 17: index of the winning card in the trick (meaningless if the trick is empty)
+ *  - bits 18 to 23: winning pkCard (PackedCard.INVALID if the trick is empty)
+ *
+ * @author xavier
+ *
+ */
+public final class PackedTrickSummary {
+    private PackedTrickSummary() {}
+
+    // the trumps above and the components of a pkCardSet use one bit per rank
+    private static final int RANKS_MASK = (1 << Card.Rank.COUNT) - 1;
+
+    private static final int COLOR_SIZE = 2;
+    private static final int COLOR_MASK = (1 << COLOR_SIZE) - 1;
+    private static final int TRUMP_START = 9;
+    private static final int BASE_START = 11;
+
+    private static final int SIZE_START = 13;
+    private static final int SIZE_MASK = 0b111;
+    private static final int WINNING_INDEX_START = 16;
+    private static final int WINNING_INDEX_MASK = 0b11;
+    private static final int WINNING_CARD_START = 18;
+    private static final int WINNING_CARD_MASK = 0b111111;
+    
+    private static final int FULL_SIZE = 4;
+
+    // a pkCard is of form (color (4->5) | rank (0->3)) (see PackedCard)
+    private static final int CARD_RANK_SIZE = 4;
+    private static final int CARD_RANK_MASK = (1 << CARD_RANK_SIZE) - 1;
+    // a pkCardSet has one component of 16 bits per color (see PackedCardSet)
+    private static final int CARD_SET_COLOR_SIZE = 16;
+
+    private static final int JACK_ORDINAL = Card.Rank.JACK.ordinal();
+
+    /**
+     * of form [rankOrdinal]: the ranks of the trumps that are better than
+     * the trump of rank rankOrdinal (in the format of bits 0 to 8 of a summary)
+     */
+    private static final int[] precomputedTrumpsAbove = computeTrumpsAbove();
+
+    private static int[] computeTrumpsAbove() {
+        int[] trumpsAbove = new int[Card.Rank.COUNT];
+        for(Card.Rank rank: Card.Rank.ALL) {
+            long trumpsAboveSet = PackedCardSet.trumpAbove(PackedCard.pack(Card.Color.SPADE, rank));
+            trumpsAbove[rank.ordinal()] = (int) trumpsAboveSet & RANKS_MASK;
+        }
+        return trumpsAbove;
+    }
+
+    /**
+     * Returns the summary of an empty trick with the given trump
+     * @param trump
+     * @return
+     */
+    public static int empty(Card.Color trump) {
+        return RANKS_MASK | (trump.ordinal() << TRUMP_START) | (PackedCard.INVALID << WINNING_CARD_START);
+    }
+
+    /**
+     * Returns the summary of the given (valid) pkTrick, by adding its cards
+     * one after the other to the summary of an empty trick.
+     * @param pkTrick
+     * @return
+     */
+    public static int ofPackedTrick(int pkTrick) {
+        assert PackedTrick.isValid(pkTrick);
+
+        int pkSummary = empty(PackedTrick.trump(pkTrick));
+        int size = PackedTrick.size(pkTrick);
+        for(int i=0; i<size; i++)
+            pkSummary = withAddedCard(pkSummary, PackedTrick.card(pkTrick, i));
+        return pkSummary;
+    }
+
+    /**
+     * Returns the summary of the trick once the pkCard has been added to it.
+     *  - the first card of the trick gives the base color
+     *  - a card better than the winning card becomes the winning card
+     *  - a trump that is better than all the trumps played so far gives
+     *      the new trumps above
+     * The summary must not be full.
+     * @param pkSummary
+     * @param pkCard
+     * @return
+     */
+    public static int withAddedCard(int pkSummary, int pkCard) {
+        assert PackedCard.isValid(pkCard);
+        assert !isFull(pkSummary);
+
+        int color = pkCard >>> CARD_RANK_SIZE;
+        int rank = pkCard & CARD_RANK_MASK;
+        int size = size(pkSummary);
+
+        if(size == 0) {
+            pkSummary |= color << BASE_START;
+            pkSummary = withWinningCard(pkSummary, 0, pkCard);
+        } else if(PackedCard.isBetter(trump(pkSummary), pkCard, winningCard(pkSummary))) {
+            pkSummary = withWinningCard(pkSummary, size, pkCard);
+        }
+
+        if(color == trumpOrdinal(pkSummary) && (pkSummary & (1 << rank)) != 0)
+            pkSummary = (pkSummary & ~RANKS_MASK) | precomputedTrumpsAbove[rank];
+
+        return pkSummary + (1 << SIZE_START);
+    }
+
+    private static int withWinningCard(int pkSummary, int index, int pkCard) {
+        int winningMask = (WINNING_INDEX_MASK << WINNING_INDEX_START) | (WINNING_CARD_MASK << WINNING_CARD_START);
+        return (pkSummary & ~winningMask) | (index << WINNING_INDEX_START) | (pkCard << WINNING_CARD_START);
+    }
+
+    /**
+     * Gives the number of cards in the trick
+     * @param pkSummary
+     * @return
+     */
+    public static int size(int pkSummary) {
+        return (pkSummary >>> SIZE_START) & SIZE_MASK;
+    }
+
+    /**
+     * A summary is empty iff no card has been added to its trick
+     * @param pkSummary
+     * @return
+     */
+    public static boolean isEmpty(int pkSummary) {
+        return size(pkSummary) == 0;
+    }
+
+    /**
+     * A summary is full iff 4 cards have been added to its trick
+     * @param pkSummary
+     * @return
+     */
+    public static boolean isFull(int pkSummary) {
+        return size(pkSummary) == FULL_SIZE;
+    }
+
+    /**
+     * Gives the index in the trick of the best card played so far.
+     * The trick must not be empty.
+     * @param pkSummary
+     * @return
+     */
+    public static int winningIndex(int pkSummary) {
+        assert !isEmpty(pkSummary);
+
+        return (pkSummary >>> WINNING_INDEX_START) & WINNING_INDEX_MASK;
+    }
+
+    /**
+     * Gives the best card played so far in the trick, 
+     * or PackedCard.INVALID if the trick is empty
+     * @param pkSummary
+     * @return
+     */
+    public static int winningCard(int pkSummary) {
+        return (pkSummary >>> WINNING_CARD_START) & WINNING_CARD_MASK;
+    }
+
+    /**
+     * Returns the trump of the trick
+     * @param pkSummary
+     * @return
+     */
+    public static Card.Color trump(int pkSummary) {
+        return Card.Color.ALL.get(trumpOrdinal(pkSummary));
+    }
+
+    private static int trumpOrdinal(int pkSummary) {
+        return (pkSummary >>> TRUMP_START) & COLOR_MASK;
+    }
+
+    private static int baseOrdinal(int pkSummary) {
+        return (pkSummary >>> BASE_START) & COLOR_MASK;
+    }
+
+    /**
+     * Get all the cards that can be played given the trick summarized
+     * by pkSummary and the pkHand. It gives the same result as
+     * PackedTrick.playableCards(int, long), where:
+     *  - "no trump played" is the case where the trumps above are all the trumps,
+     *      so that it does not need its own branch
+     *  - playableTrump is the trumps of the hand above the best trump played, or all
+     *      the trumps of the hand if there is none.
+     * @param pkSummary
+     * @param pkHand
+     * @return
+     */
+    public static long playableCards(int pkSummary, long pkHand) {
+        if(isEmpty(pkSummary))
+            return pkHand;
+
+        int trumpShift = trumpOrdinal(pkSummary) * CARD_SET_COLOR_SIZE;
+        int baseShift = baseOrdinal(pkSummary) * CARD_SET_COLOR_SIZE;
+
+        long trumpCards = pkHand & ((long) RANKS_MASK << trumpShift);
+        long baseCards = pkHand & ((long) RANKS_MASK << baseShift);
+
+        long playableTrump = pkHand & ((long) (pkSummary & RANKS_MASK) << trumpShift);
+        if(playableTrump == PackedCardSet.EMPTY)
+            playableTrump = trumpCards;
+
+        if(baseCards == PackedCardSet.EMPTY)
+            return playableTrump | (pkHand & ~trumpCards);
+
+        if(trumpShift == baseShift) {
+            if(trumpCards == 1L << (trumpShift + JACK_ORDINAL))
+                return pkHand;
+            return playableTrump;
+        }
+
+        return playableTrump | baseCards;
+    }
+}
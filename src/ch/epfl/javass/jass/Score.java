@@ -39,6 +39,18 @@ public final class Score {
         return new Score(packed);
     }
     
+    /**
+     * Same as ofPacked(long), for packed that are known to be valid
+     * (e.g. the score of a TurnState): the validity is only checked 
+     * when the assertions are enabled.
+     * @param packed
+     * @return
+     */
+    static Score ofPackedUnchecked(long packed) {
+        assert PackedScore.isValid(packed);
+        return new Score(packed);
+    }
+    
     /**
      * @return packedScore representation of the score
      */
@@ -42,6 +42,18 @@ public final class Trick {
         return new Trick(packed);
     }
     
+    /**
+     * Same as ofPacked(int), for packed that are known to be valid
+     * (e.g. the current trick of a TurnState): the validity is only checked 
+     * when the assertions are enabled.
+     * @param packed
+     * @return
+     */
+    static Trick ofPackedUnchecked(int packed) {
+        assert PackedTrick.isValid(packed);
+        return new Trick(packed);
+    }
+    
     /**
      * Gives the packed representation of this Trick
      * @return
@@ -182,7 +194,7 @@ public final class Trick {
     public CardSet playableCards(CardSet hand) {
         checkState(!isFull());
         long playablePkSet = PackedTrick.playableCards(packed(), hand.packed());
-        return CardSet.ofPacked(playablePkSet);
+        return CardSet.ofPackedUnchecked(playablePkSet);
     }
     
     /**
@@ -15,6 +15,12 @@ import static ch.epfl.javass.Preconditions.checkState;
  *  - how a score is represented go to Score.java
  *  - how a set of cards is represented go to CardSet.java
  *  - how a trick is represented go to Trick.java
+ *  
+ * The packed components are only validated when they come from outside 
+ * (see ofPackedComponents(long, long, int)). The transitions start from valid 
+ * components and give valid components, so they do not validate them again, 
+ * as they are done for every card played by the AI. When the assertions are 
+ * enabled (java -ea), every state created is fully validated.
  * @author xavier
  *
  */
@@ -22,17 +28,28 @@ public final class TurnState {
     private final long packedScore;
     private final long packedUnplayedCards;
     private final int packedCurrentTrick;
+    // summary of the current trick, which gives its size and winner
+    // without going through its cards (see PackedTrickSummary)
+    private final int packedCurrentTrickSummary;
     
     private TurnState(Card.Color trump, Score score, PlayerId firstPlayer) {
         this.packedScore = score.packed();
         this.packedUnplayedCards = PackedCardSet.ALL_CARDS;
         this.packedCurrentTrick = PackedTrick.firstEmpty(trump, firstPlayer);
+        this.packedCurrentTrickSummary = PackedTrickSummary.empty(trump);
     }
     
-    private TurnState(long pkScore, long pkUnplayedCards, int pkTrick) {
+    private TurnState(long pkScore, long pkUnplayedCards, int pkTrick, int pkTrickSummary) {
+        assert PackedScore.isValid(pkScore);
+        assert PackedCardSet.isValid(pkUnplayedCards);
+        // the current trick is invalid once the last trick of the turn is collected
+        assert pkTrick == PackedTrick.INVALID || PackedTrick.isValid(pkTrick);
+        assert pkTrick == PackedTrick.INVALID || pkTrickSummary == PackedTrickSummary.ofPackedTrick(pkTrick);
+        
         this.packedScore = pkScore;
         this.packedUnplayedCards = pkUnplayedCards;
         this.packedCurrentTrick = pkTrick;
+        this.packedCurrentTrickSummary = pkTrickSummary;
     }
     
     /**
@@ -61,7 +78,22 @@ public final class TurnState {
         checkArgument(PackedCardSet.isValid(pkUnplayedCards));
         checkArgument(PackedTrick.isValid(pkTrick));
         
-        return new TurnState(pkScore, pkUnplayedCards, pkTrick);
+        return new TurnState(pkScore, pkUnplayedCards, pkTrick, PackedTrickSummary.ofPackedTrick(pkTrick));
+    }
+    
+    /**
+     * Same as ofPackedComponents(long, long, int), for components that are known
+     * to be valid (e.g. coming from a MutableTurnState), and whose trick summary
+     * is already known: the components are only checked when the assertions are enabled.
+     * The trick can be invalid if the last trick of the turn has been collected.
+     * @param pkScore
+     * @param pkUnplayedCards
+     * @param pkTrick
+     * @param pkTrickSummary
+     * @return
+     */
+    static TurnState ofPackedComponentsUnchecked(long pkScore, long pkUnplayedCards, int pkTrick, int pkTrickSummary) {
+        return new TurnState(pkScore, pkUnplayedCards, pkTrick, pkTrickSummary);
     }
     
     /**
@@ -89,12 +121,20 @@ public final class TurnState {
         return packedCurrentTrick;
     }
     
+    /**
+     * A getter for the summary of the current trick of the turn (see PackedTrickSummary)
+     * @return
+     */
+    int packedTrickSummary() {
+        return packedCurrentTrickSummary;
+    }
+    
     /**
      * A getter for the score of the turn
      * @return
      */
     public Score score() {
-        return Score.ofPacked(packedScore);
+        return Score.ofPackedUnchecked(packedScore);
     }
     
     /**
@@ -103,26 +143,30 @@ public final class TurnState {
      * @return
      */
     public CardSet unplayedCards() {
-        return CardSet.ofPacked(packedUnplayedCards);
+        return CardSet.ofPackedUnchecked(packedUnplayedCards);
     }
     
     /**
      * A getter for the current trick of the turn
+     * Throws IllegalArgumentException if the last trick of the turn has
+     * been collected, as the current trick is then invalid
      * @return
      */
     public Trick trick() {
-        return Trick.ofPacked(packedCurrentTrick);
+        checkArgument(packedCurrentTrick != PackedTrick.INVALID);
+        return Trick.ofPackedUnchecked(packedCurrentTrick);
     }
     
     /**
      * a turn is terminal if the current trick is the last possible trick
-     * i.e. it's the 9th trick of the turn and if the current trick is full
+     * i.e. it's the 9th trick of the turn and if the current trick is full,
+     * or if the last trick has been collected (the current trick is then invalid)
      * @return
      */
     public boolean isTerminal() {
-        if(!PackedTrick.isValid(packedCurrentTrick))
+        if(packedCurrentTrick == PackedTrick.INVALID)
             return true;
-        return ((trick().index() == Jass.TRICKS_PER_TURN-1) & trick().isFull());
+        return PackedTrick.isLast(packedCurrentTrick) & PackedTrickSummary.isFull(packedCurrentTrickSummary);
     }
     
     /**
@@ -132,22 +176,27 @@ public final class TurnState {
      * @return
      */
     public PlayerId nextPlayer() {
-        checkState(!PackedTrick.isFull(packedCurrentTrick));
-        return PackedTrick.player(packedCurrentTrick, PackedTrick.size(packedCurrentTrick));
+        checkState(!PackedTrickSummary.isFull(packedCurrentTrickSummary));
+        return PackedTrick.player(packedCurrentTrick, PackedTrickSummary.size(packedCurrentTrickSummary));
     }
     
     /**
      * Returns the TurnState in which we added the given card to the current trick.
      * We also removed the given card from the set of unplayed cards
-     * Therefore, it throws IllegalStateException if the current trick is full
+     * Therefore, it throws IllegalStateException if the current trick is full,
+     * and IllegalArgumentException if the last trick of the turn has been collected
      * @param card
      * @return
      */
     public TurnState withNewCardPlayed(Card card) {
-        checkState(!PackedTrick.isFull(packedCurrentTrick));
-        int packedNextTrick = PackedTrick.withAddedCard(packedCurrentTrick, card.packed());
+        checkState(!PackedTrickSummary.isFull(packedCurrentTrickSummary));
+        checkArgument(packedCurrentTrick != PackedTrick.INVALID);
+        
+        int size = PackedTrickSummary.size(packedCurrentTrickSummary);
+        int packedNextTrick = PackedTrick.withAddedCard(packedCurrentTrick, card.packed(), size);
+        int packedNextTrickSummary = PackedTrickSummary.withAddedCard(packedCurrentTrickSummary, card.packed());
         long packedNextUnplayedCards = PackedCardSet.remove(packedUnplayedCards, card.packed());
-        return TurnState.ofPackedComponents(packedScore, packedNextUnplayedCards, packedNextTrick);
+        return new TurnState(packedScore, packedNextUnplayedCards, packedNextTrick, packedNextTrickSummary);
     }
     
     /**
@@ -158,14 +207,16 @@ public final class TurnState {
      * @return
      */
     public TurnState withTrickCollected() {
-        checkState(PackedTrick.isFull(packedCurrentTrick));
+        checkState(PackedTrickSummary.isFull(packedCurrentTrickSummary));
         
-        int packedNextTrick = PackedTrick.nextEmpty(packedCurrentTrick);
-        PlayerId winningPlayer = PackedTrick.winningPlayer(packedCurrentTrick);
+        int winningIndex = PackedTrickSummary.winningIndex(packedCurrentTrickSummary);
+        PlayerId winningPlayer = PackedTrick.player(packedCurrentTrick, winningIndex);
+        int packedNextTrick = PackedTrick.nextEmpty(packedCurrentTrick, winningPlayer);
         TeamId winningTeam = winningPlayer.team();
-        long packedNextScore = PackedScore.withAdditionalTrick(packedScore, winningTeam, trick().points());
+        long packedNextScore = PackedScore.withAdditionalTrick(packedScore, winningTeam, PackedTrick.points(packedCurrentTrick));
+        int packedNextTrickSummary = PackedTrickSummary.empty(PackedTrickSummary.trump(packedCurrentTrickSummary));
         
-        return new TurnState(packedNextScore, packedUnplayedCards, packedNextTrick);
+        return new TurnState(packedNextScore, packedUnplayedCards, packedNextTrick, packedNextTrickSummary);
     }
     
     /**
@@ -178,10 +229,10 @@ public final class TurnState {
      * @return
      */
     public TurnState withNewCardPlayedAndTrickCollected(Card card) {
-        checkState(!PackedTrick.isFull(packedCurrentTrick));
+        checkState(!PackedTrickSummary.isFull(packedCurrentTrickSummary));
         
         TurnState nextTurn = this.withNewCardPlayed(card);
-        if(PackedTrick.isFull(nextTurn.packedTrick())) {
+        if(PackedTrickSummary.isFull(nextTurn.packedCurrentTrickSummary)) {
             nextTurn = nextTurn.withTrickCollected();
         }
         return nextTurn;
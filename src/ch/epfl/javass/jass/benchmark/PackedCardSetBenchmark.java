@@ -0,0 +1,100 @@
+package ch.epfl.javass.jass.benchmark;
+
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.jass.PackedCardSet;
+
+/**
+ * Compares PackedCardSet.get(long, int), which selects the card without any loop,
+ * with the previous implementation, which removed the lowest card of the set index times.
+ * 
+ * For each size from 1 to 36, we pick random cards in random sets of that size,
+ * and print (size, nanoseconds per get with the loop, nanoseconds per get with PackedCardSet.get).
+ * @author xavier
+ *
+ */
+public class PackedCardSetBenchmark {
+    
+    private static final int SETS_PER_SIZE = 1 << 10;
+    private static final int GETS_PER_SET = 1 << 10;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int RNG_SEED = 0;
+
+    public static void main(String[] args) {
+        SplittableRandom rng = new SplittableRandom(RNG_SEED);
+        
+        long[][] sets = new long[PackedCardSet.size(PackedCardSet.ALL_CARDS)+1][SETS_PER_SIZE];
+        int[] indices = new int[GETS_PER_SET];
+        for(int size=1; size<sets.length; size++) {
+            for(int i=0; i<SETS_PER_SIZE; i++)
+                sets[size][i] = randomSetOfSize(size, rng);
+        }
+        for(int i=0; i<GETS_PER_SET; i++)
+            indices[i] = rng.nextInt(Integer.MAX_VALUE);
+        
+        /**
+         * The measures of the first rounds are much higher than the subsequent ones,
+         * as the code has not been compiled yet. To remedy this, we ignore them.
+         */
+        long sink = 0;
+        for(int round=0; round<WARMUP_ROUNDS; round++) {
+            for(int size=1; size<sets.length; size++) {
+                sink += runLoop(sets[size], indices, size);
+                sink += runSelect(sets[size], indices, size);
+            }
+        }
+        
+        for(int size=1; size<sets.length; size++) {
+            long beginTime = System.nanoTime();
+            sink += runLoop(sets[size], indices, size);
+            long loopTime = System.nanoTime() - beginTime;
+            
+            beginTime = System.nanoTime();
+            sink += runSelect(sets[size], indices, size);
+            long selectTime = System.nanoTime() - beginTime;
+            
+            double operations = SETS_PER_SIZE * GETS_PER_SET;
+            System.out.println(size + "\t" + (loopTime/operations) + "\t" + (selectTime/operations));
+        }
+        
+        // printed so that the computations cannot be optimised away
+        System.out.println(sink);
+    }
+    
+    private static long randomSetOfSize(int size, SplittableRandom rng) {
+        long set = PackedCardSet.EMPTY;
+        while(PackedCardSet.size(set) < size)
+            set = PackedCardSet.add(set, PackedCardSet.get(PackedCardSet.ALL_CARDS, rng.nextInt(PackedCardSet.size(PackedCardSet.ALL_CARDS))));
+        return set;
+    }
+    
+    private static long runLoop(long[] sets, int[] indices, int size) {
+        long sum = 0;
+        for(long set: sets) {
+            for(int index: indices)
+                sum += getByRemovingLowestCards(set, index % size);
+        }
+        return sum;
+    }
+    
+    private static long runSelect(long[] sets, int[] indices, int size) {
+        long sum = 0;
+        for(long set: sets) {
+            for(int index: indices)
+                sum += PackedCardSet.get(set, index % size);
+        }
+        return sum;
+    }
+    
+    /**
+     * The previous implementation of PackedCardSet.get(long, int)
+     */
+    private static int getByRemovingLowestCards(long pkCardSet, int index) {
+        long lowestOneBit = Long.lowestOneBit(pkCardSet);
+        while(lowestOneBit != 0 & index-->0) {
+            pkCardSet -= lowestOneBit;
+            lowestOneBit = Long.lowestOneBit(pkCardSet);
+        }
+        return Long.numberOfTrailingZeros(lowestOneBit);
+    }
+}
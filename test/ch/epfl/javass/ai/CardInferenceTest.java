@@ -0,0 +1,104 @@
+package ch.epfl.javass.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TurnState;
+
+public class CardInferenceTest {
+    private static long colorCards(Color color) {
+        return PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS, color);
+    }
+
+    private static int pk(Color color, Rank rank) {
+        return Card.of(color, rank).packed();
+    }
+
+    @Test
+    void cardsShownMissingFollowTheColorRules() {
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SEVEN))
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.CLUB, Rank.SIX));
+        int trick = state.packedTrick();
+        // followed, then trumped, then discarded
+        assertEquals(PackedCardSet.EMPTY, CardInference.cardsShownMissing(trick, 1));
+        assertEquals(PackedCardSet.EMPTY, CardInference.cardsShownMissing(trick, 2));
+        assertEquals(colorCards(Color.HEART), CardInference.cardsShownMissing(trick, 3));
+    }
+
+    @Test
+    void cardsShownMissingKeepTheJackOfTrump() {
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SEVEN));
+        long missing = CardInference.cardsShownMissing(state.packedTrick(), 1);
+        assertEquals(8, PackedCardSet.size(missing));
+        assertFalse(PackedCardSet.contains(missing, pk(Color.SPADE, Rank.JACK)));
+    }
+
+    @Test
+    void cardsShownMissingIncludeTheTrumpsAboveAnUndertrump() {
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.KING))
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.SEVEN));
+        long missing = CardInference.cardsShownMissing(state.packedTrick(), 2);
+        assertEquals(PackedCardSet.trumpAbove(pk(Color.SPADE, Rank.KING)), missing);
+    }
+
+    @Test
+    void updateTrickRemovesPlayedAndMissingCards() {
+        CardInference inference = new CardInference();
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_3)
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.CLUB, Rank.SEVEN));
+        inference.updateTrick(state.packedTrick());
+        // given twice, as by updateTrick(Trick) and then cardToPlay(_,_)
+        inference.updateTrick(state.packedTrick());
+
+        long withoutPlayed = PackedCardSet.difference(PackedCardSet.ALL_CARDS,
+                PackedCardSet.union(PackedCardSet.singleton(pk(Color.HEART, Rank.SIX)), PackedCardSet.singleton(pk(Color.CLUB, Rank.SEVEN))));
+        assertEquals(withoutPlayed, inference.possibleCards(PlayerId.PLAYER_3));
+        assertEquals(PackedCardSet.difference(withoutPlayed, colorCards(Color.HEART)), inference.possibleCards(PlayerId.PLAYER_4));
+
+        // the void is kept in the next tricks
+        state = state.withNewCardPlayed(Card.of(Color.HEART, Rank.SEVEN))
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.EIGHT));
+        inference.updateTrick(state.packedTrick());
+        state = state.withTrickCollected()
+                .withNewCardPlayed(Card.of(Color.DIAMOND, Rank.SIX));
+        inference.updateTrick(state.packedTrick());
+        assertFalse(PackedCardSet.contains(inference.possibleCards(PlayerId.PLAYER_4), pk(Color.HEART, Rank.NINE)));
+        assertFalse(PackedCardSet.contains(inference.possibleCards(PlayerId.PLAYER_1), pk(Color.HEART, Rank.SEVEN)));
+
+        // a new turn forgets everything
+        inference.updateTrick(TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1).packedTrick());
+        for (PlayerId player : PlayerId.ALL)
+            assertEquals(PackedCardSet.ALL_CARDS, inference.possibleCards(player));
+    }
+
+    @Test
+    void possibleCardsFallBackOnTheGivenSet() {
+        CardInference inference = new CardInference();
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.CLUB, Rank.SEVEN));
+        inference.updateTrick(state.packedTrick());
+
+        long hearts = colorCards(Color.HEART);
+        long clubEight = PackedCardSet.singleton(pk(Color.CLUB, Rank.EIGHT));
+        assertEquals(clubEight, inference.possibleCards(PlayerId.PLAYER_2, PackedCardSet.union(hearts, clubEight)));
+        // PLAYER_2 has no heart, thus the set does not come from the actual turn
+        assertEquals(hearts, inference.possibleCards(PlayerId.PLAYER_2, hearts));
+    }
+}
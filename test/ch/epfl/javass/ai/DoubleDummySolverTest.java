@@ -0,0 +1,121 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TeamId;
+
+public class DoubleDummySolverTest {
+    private static final int POSITIONS = 200;
+
+    private static long[] randomHands(SplittableRandom rng) {
+        long[] hands = new long[PlayerId.COUNT];
+        long deck = PackedCardSet.ALL_CARDS;
+        for (int p = 0; p < PlayerId.COUNT; ++p) {
+            for (int i = 0; i < 9; ++i) {
+                int pkCard = PackedCardSet.get(deck, rng.nextInt(PackedCardSet.size(deck)));
+                deck = PackedCardSet.remove(deck, pkCard);
+                hands[p] = PackedCardSet.add(hands[p], pkCard);
+            }
+        }
+        return hands;
+    }
+
+    // plays random cards till there are only the given number of cards left to play
+    private static int playRandomly(long[] score, int pkTrick, long[] hands, int cardsLeft, SplittableRandom rng) {
+        int played = (PackedTrick.index(pkTrick) * 4) + PackedTrick.size(pkTrick);
+        while (36 - played > cardsLeft) {
+            int player = PackedRollouts.nextPlayer(pkTrick).ordinal();
+            long playable = PackedTrick.playableCards(pkTrick, hands[player]);
+            int pkCard = PackedCardSet.get(playable, rng.nextInt(PackedCardSet.size(playable)));
+            hands[player] = PackedCardSet.remove(hands[player], pkCard);
+            pkTrick = PackedTrick.withAddedCard(pkTrick, pkCard);
+            if (PackedTrick.isFull(pkTrick)) {
+                score[0] = PackedRollouts.withTrickCollected(score[0], pkTrick);
+                pkTrick = PackedTrick.nextEmpty(pkTrick);
+            }
+            played++;
+        }
+        return pkTrick;
+    }
+
+    // plain minimax on the difference of the points of the turn
+    private static int bruteForce(long pkScore, int pkTrick, long[] hands) {
+        if (PackedRollouts.isTerminal(pkTrick))
+            return PackedScore.turnPoints(pkScore, TeamId.TEAM_1) - PackedScore.turnPoints(pkScore, TeamId.TEAM_2);
+        PlayerId player = PackedRollouts.nextPlayer(pkTrick);
+        boolean maximizes = player.team() == TeamId.TEAM_1;
+        long playable = PackedTrick.playableCards(pkTrick, hands[player.ordinal()]);
+        int best = maximizes ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int i = 0; i < PackedCardSet.size(playable); ++i) {
+            int pkCard = PackedCardSet.get(playable, i);
+            hands[player.ordinal()] = PackedCardSet.remove(hands[player.ordinal()], pkCard);
+            int trick = PackedTrick.withAddedCard(pkTrick, pkCard);
+            long score = pkScore;
+            if (PackedTrick.isFull(trick)) {
+                score = PackedRollouts.withTrickCollected(score, trick);
+                trick = PackedTrick.nextEmpty(trick);
+            }
+            int value = bruteForce(score, trick, hands);
+            hands[player.ordinal()] = PackedCardSet.add(hands[player.ordinal()], pkCard);
+            best = maximizes ? Math.max(best, value) : Math.min(best, value);
+        }
+        return best;
+    }
+
+    @Test
+    void solveGivesTheMinimaxValueOfTheLastTricks() {
+        SplittableRandom rng = newRandom();
+        DoubleDummySolver solver = new DoubleDummySolver(1 << 10);
+        for (int i = 0; i < POSITIONS; ++i) {
+            long[] hands = randomHands(rng);
+            Card.Color trump = Card.Color.ALL.get(rng.nextInt(Card.Color.COUNT));
+            long[] score = { Score.INITIAL.packed() };
+            int cardsLeft = 1 + rng.nextInt(12);
+            int pkTrick = playRandomly(score, PackedTrick.firstEmpty(trump, PlayerId.ALL.get(rng.nextInt(4))), hands, cardsLeft, rng);
+
+            int result = solver.solve(score[0], pkTrick, hands);
+            int expected = bruteForce(score[0], pkTrick, hands) - PackedScore.turnPoints(score[0], TeamId.TEAM_1) + PackedScore.turnPoints(score[0], TeamId.TEAM_2);
+            assertEquals(expected, DoubleDummySolver.points(result, TeamId.TEAM_1) - DoubleDummySolver.points(result, TeamId.TEAM_2));
+
+            int player = PackedRollouts.nextPlayer(pkTrick).ordinal();
+            assertTrue(PackedCardSet.contains(PackedTrick.playableCards(pkTrick, hands[player]), solver.bestCard()));
+        }
+    }
+
+    @Test
+    void solveGivesAllThePointsOfTheTurn() {
+        SplittableRandom rng = newRandom();
+        DoubleDummySolver solver = new DoubleDummySolver(1 << 16);
+        for (int i = 0; i < POSITIONS; ++i) {
+            long[] hands = randomHands(rng);
+            long[] score = { Score.INITIAL.packed() };
+            int pkTrick = playRandomly(score, PackedTrick.firstEmpty(Card.Color.SPADE, PlayerId.PLAYER_1), hands, 20, rng);
+            long[] handsBefore = hands.clone();
+
+            int result = solver.solve(score[0], pkTrick, hands);
+            assertEquals(handsBefore[0], hands[0]);
+            int points = DoubleDummySolver.points(result, TeamId.TEAM_1) + DoubleDummySolver.points(result, TeamId.TEAM_2)
+                    + PackedScore.turnPoints(score[0], TeamId.TEAM_1) + PackedScore.turnPoints(score[0], TeamId.TEAM_2);
+            // 157 points, and 100 more if a team won all the tricks
+            assertTrue(points == 157 || points == 257);
+        }
+    }
+
+    @Test
+    void terminalPositionIsWorthNothing() {
+        DoubleDummySolver solver = new DoubleDummySolver(1);
+        assertEquals(0, solver.solve(Score.INITIAL.packed(), PackedTrick.INVALID, new long[PlayerId.COUNT]));
+    }
+}
@@ -0,0 +1,105 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TurnState;
+
+public class MctsDeterminizerTest {
+    private static long[] anyHiddenCards(TurnState state, CardSet hand) {
+        long[] possibleCards = new long[PlayerId.COUNT];
+        for (int p = 0; p < PlayerId.COUNT; ++p)
+            possibleCards[p] = PackedCardSet.difference(state.packedUnplayedCards(), hand.packed());
+        return possibleCards;
+    }
+
+    private static void assertIsDeal(long[] hands, TurnState state, CardSet hand) {
+        long dealt = PackedCardSet.EMPTY;
+        for (PlayerId player : PlayerId.ALL) {
+            long h = hands[player.ordinal()];
+            assertEquals(0, h & dealt);
+            dealt |= h;
+            assertEquals(MctsDeterminizer.handSize(player, state.packedUnplayedCards(), state.packedTrick()), PackedCardSet.size(h));
+        }
+        assertEquals(state.packedUnplayedCards(), dealt);
+        assertEquals(hand.packed(), hands[PlayerId.PLAYER_2.ordinal()]);
+    }
+
+    @Test
+    void dealGivesEveryHiddenCardToAPlayerWhoCanHoldIt() {
+        SplittableRandom rng = newRandom();
+        MctsDeterminizer determinizer = new MctsDeterminizer(PlayerId.PLAYER_2);
+        // PLAYER_1 has no heart, PLAYER_3 has no club and PLAYER_4 has no spade
+        TurnState state = TurnState.initial(Color.DIAMOND, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.DIAMOND, Rank.SIX));
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.EIGHT))
+                .add(Card.of(Color.SPADE, Rank.NINE))
+                .add(Card.of(Color.SPADE, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.SEVEN))
+                .add(Card.of(Color.CLUB, Rank.EIGHT))
+                .add(Card.of(Color.CLUB, Rank.NINE))
+                .add(Card.of(Color.DIAMOND, Rank.TEN))
+                .add(Card.of(Color.DIAMOND, Rank.JACK));
+        long[] possibleCards = anyHiddenCards(state, hand);
+        possibleCards[PlayerId.PLAYER_1.ordinal()] = PackedCardSet.difference(possibleCards[0], PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS, Color.HEART));
+        possibleCards[PlayerId.PLAYER_3.ordinal()] = PackedCardSet.difference(possibleCards[2], PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS, Color.CLUB));
+        possibleCards[PlayerId.PLAYER_4.ordinal()] = PackedCardSet.difference(possibleCards[3], PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS, Color.SPADE));
+
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            long[] hands = determinizer.deal(state.packedUnplayedCards(), state.packedTrick(), hand.packed(), possibleCards, rng);
+            assertIsDeal(hands, state, hand);
+            for (int p = 0; p < PlayerId.COUNT; ++p) {
+                if (p != PlayerId.PLAYER_2.ordinal())
+                    assertEquals(hands[p], hands[p] & possibleCards[p]);
+            }
+        }
+    }
+
+    @Test
+    void dealGivesAllTheCardsOfAColorToItsOnlyPossibleHolder() {
+        SplittableRandom rng = newRandom();
+        MctsDeterminizer determinizer = new MctsDeterminizer(PlayerId.PLAYER_2);
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_2);
+        CardSet hand = CardSet.EMPTY;
+        for (int i = 0; i < 9; ++i)
+            hand = hand.add(Card.of(Color.SPADE, Rank.ALL.get(i)));
+        // only PLAYER_3 can hold hearts
+        long hearts = PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS, Color.HEART);
+        long[] possibleCards = anyHiddenCards(state, hand);
+        possibleCards[PlayerId.PLAYER_1.ordinal()] &= ~hearts;
+        possibleCards[PlayerId.PLAYER_4.ordinal()] &= ~hearts;
+
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            long[] hands = determinizer.deal(state.packedUnplayedCards(), state.packedTrick(), hand.packed(), possibleCards, rng);
+            assertIsDeal(hands, state, hand);
+            assertEquals(hearts, hands[PlayerId.PLAYER_3.ordinal()]);
+        }
+    }
+
+    @Test
+    void handSizeTakesTheCurrentTrickIntoAccount() {
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_3)
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SEVEN));
+        long unplayed = state.packedUnplayedCards();
+        int trick = state.packedTrick();
+        assertEquals(9, MctsDeterminizer.handSize(PlayerId.PLAYER_1, unplayed, trick));
+        assertEquals(9, MctsDeterminizer.handSize(PlayerId.PLAYER_2, unplayed, trick));
+        assertEquals(8, MctsDeterminizer.handSize(PlayerId.PLAYER_3, unplayed, trick));
+        assertEquals(8, MctsDeterminizer.handSize(PlayerId.PLAYER_4, unplayed, trick));
+    }
+}
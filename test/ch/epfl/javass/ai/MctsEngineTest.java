@@ -0,0 +1,193 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.TurnState;
+
+public class MctsEngineTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+    private static final int ITERATIONS = 200;
+
+    private static MctsParallelism[] parallelisms() {
+        return new MctsParallelism[] {
+                MctsParallelism.sequential(),
+                MctsParallelism.root(2, MctsExecutors.shared()),
+                MctsParallelism.leaf(2, 4, MctsExecutors.shared()),
+                MctsParallelism.tree(2, MctsExecutors.shared()),
+        };
+    }
+
+    private static MctsEngine engine(MctsSelection selection, MctsReward reward, MctsParallelism parallelism) {
+        return new MctsEngine(PlayerId.PLAYER_1, 0, MctsBudget.ofIterations(ITERATIONS), selection, reward,
+                RolloutPolicy.uniform(), parallelism);
+    }
+
+    private static CardSet[] randomHands(SplittableRandom rng) {
+        CardSet[] hands = new CardSet[PlayerId.COUNT];
+        CardSet deck = CardSet.ALL_CARDS;
+        for (int p = 0; p < PlayerId.COUNT; ++p) {
+            hands[p] = CardSet.EMPTY;
+            for (int i = 0; i < Jass.HAND_SIZE; ++i) {
+                Card card = deck.get(rng.nextInt(deck.size()));
+                deck = deck.remove(card);
+                hands[p] = hands[p].add(card);
+            }
+        }
+        return hands;
+    }
+
+    @Test
+    void ucb1IsTheMeanPlusItsExploration() {
+        MctsSelection ucb1 = MctsSelection.ucb1(2);
+        double logOfParentVisits = Math.log(100);
+        assertEquals(30.0 / 10 + 2 * Math.sqrt(2 * logOfParentVisits / 10), ucb1.value(30, 500, 10, logOfParentVisits), 1e-9);
+        assertEquals(3.0, MctsSelection.ucb1(0).value(30, 500, 10, logOfParentVisits), 1e-9);
+    }
+
+    @Test
+    void ucb1TunedExploresLessTheChildrenWhoseRewardsVaryLess() {
+        MctsSelection tuned = MctsSelection.ucb1Tuned(1);
+        double logOfParentVisits = Math.log(10_000);
+        // two children of mean 0.5, whose rewards are always 0.5 or either 0 or 1
+        double constant = tuned.value(500, 250, 1000, logOfParentVisits);
+        double varying = tuned.value(500, 500, 1000, logOfParentVisits);
+        double variance = 0.5*0.5 - 0.5*0.5 + Math.sqrt(2 * logOfParentVisits / 1000);
+        assertEquals(0.5 + Math.sqrt(logOfParentVisits / 1000 * variance), constant, 1e-9);
+        assertEquals(0.5 + Math.sqrt(logOfParentVisits / 1000 * 0.25), varying, 1e-9);
+        assertTrue(constant < varying);
+        assertEquals(0.5, MctsSelection.ucb1Tuned(0).value(500, 500, 1000, logOfParentVisits), 1e-9);
+    }
+
+    @Test
+    void rewardsAreTheOnesOfTheGivenTeam() {
+        long pkScore = PackedScore.pack(6, 120, 0, 3, 37, 0);
+        assertEquals(120, MctsReward.points().reward(pkScore, TeamId.TEAM_1));
+        assertEquals(37, MctsReward.points().reward(pkScore, TeamId.TEAM_2));
+        assertEquals(120.0 / 38, MctsReward.fraction().reward(pkScore, TeamId.TEAM_1), 1e-9);
+        assertEquals(37.0 / 121, MctsReward.fraction().reward(pkScore, TeamId.TEAM_2), 1e-9);
+    }
+
+    @Test
+    void everyConfigurationPlaysPlayableCardsAndCountsItsTurns() {
+        SplittableRandom rng = newRandom();
+        MctsSelection[] selections = { MctsSelection.ucb1(40), MctsSelection.ucb1Tuned(1) };
+        MctsReward[] rewards = { MctsReward.points(), MctsReward.fraction() };
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (MctsParallelism parallelism : parallelisms()) {
+                for (int i = 0; i < selections.length; ++i) {
+                    MctsEngine engine = engine(selections[i], rewards[i], parallelism);
+                    CardSet[] hands = randomHands(rng);
+                    TurnState state = TurnState.initial(Color.ALL.get(rng.nextInt(Color.COUNT)), Score.INITIAL,
+                            PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT)));
+                    boolean hasReusedTurns = false;
+                    while (!state.isTerminal()) {
+                        int player = state.nextPlayer().ordinal();
+                        CardSet playable = state.trick().playableCards(hands[player]);
+                        Card c;
+                        if (state.nextPlayer() == PlayerId.PLAYER_1) {
+                            c = engine.cardToPlay(state, hands[player]);
+                            assertTrue(playable.contains(c));
+                            // each tree performs its share of the iterations
+                            assertEquals(ITERATIONS, engine.lastIterations());
+                            hasReusedTurns |= engine.lastReusedTurns() > 0;
+                        } else {
+                            c = playable.get(rng.nextInt(playable.size()));
+                        }
+                        hands[player] = hands[player].remove(c);
+                        state = state.withNewCardPlayedAndTrickCollected(c);
+                    }
+                    // the search goes on from the tree of the previous card, at least at the end of the turn
+                    assertTrue(hasReusedTurns);
+                }
+            }
+        });
+    }
+
+    @Test
+    void everyConfigurationOnlyDependsOnItsSeed() {
+        SplittableRandom rng = newRandom();
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (int i = 0; i < 5; ++i) {
+                CardSet hand = randomHands(rng)[0];
+                TurnState state = TurnState.initial(Color.ALL.get(rng.nextInt(Color.COUNT)), Score.INITIAL, PlayerId.PLAYER_1);
+                for (MctsParallelism parallelism : parallelisms()) {
+                    // the threads of a tree parallel search share their iterations as they go
+                    if (parallelism.mode() == MctsParallelism.Mode.TREE)
+                        continue;
+                    MctsEngine e1 = engine(MctsSelection.ucb1(40), MctsReward.points(), parallelism);
+                    MctsEngine e2 = engine(MctsSelection.ucb1(40), MctsReward.points(), parallelism);
+                    assertEquals(e1.cardToPlay(state, hand), e2.cardToPlay(state, hand));
+                }
+            }
+        });
+    }
+
+    @Test
+    void leafParallelismFailsWithMoreRolloutsPerLeafThanIterations() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            engine(MctsSelection.ucb1(40), MctsReward.points(), MctsParallelism.leaf(2, ITERATIONS + 1, MctsExecutors.shared()));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            MctsParallelism.root(0, MctsExecutors.shared());
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            MctsParallelism.tree(0, MctsExecutors.shared());
+        });
+    }
+
+    @Test
+    void parallelSearchRethrowsTheExceptionOfAFailedTask() {
+        RolloutPolicy failing = (pkTrick, pkPlayable, rng) -> {
+            throw new UnsupportedOperationException();
+        };
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1);
+        CardSet hand = randomHands(newRandom())[0];
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (MctsParallelism parallelism : parallelisms()) {
+                MctsEngine engine = new MctsEngine(PlayerId.PLAYER_1, 0, MctsBudget.ofIterations(ITERATIONS),
+                        MctsSelection.ucb1(40), MctsReward.points(), failing, parallelism);
+                assertThrows(UnsupportedOperationException.class, () -> {
+                    engine.cardToPlay(state, hand);
+                });
+            }
+        });
+    }
+
+    @Test
+    void interruptedSearchStopsAndRestoresTheInterrupt() {
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1);
+        CardSet hand = randomHands(newRandom())[0];
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (MctsParallelism parallelism : parallelisms()) {
+                if (parallelism.mode() == MctsParallelism.Mode.SEQUENTIAL)
+                    continue;
+                // the budget is much longer than the timeout: the search must stop right away
+                MctsEngine engine = new MctsEngine(PlayerId.PLAYER_1, 0, MctsBudget.ofDuration(Duration.ofMinutes(1)),
+                        MctsSelection.ucb1(40), MctsReward.points(), RolloutPolicy.uniform(), parallelism);
+                Thread.currentThread().interrupt();
+                assertThrows(CancellationException.class, () -> {
+                    engine.cardToPlay(state, hand);
+                });
+                assertTrue(Thread.interrupted());
+            }
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package ch.epfl.javass.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TurnState;
+
+public class MctsExecutorsTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    @Test
+    void sharedExecutorIsAlwaysTheSame() {
+        assertSame(MctsExecutors.shared(), MctsExecutors.shared());
+        assertFalse(MctsExecutors.shared().isShutdown());
+    }
+
+    @Test
+    void newWorkStealingPoolFailsWithNonPositiveParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            MctsExecutors.newWorkStealingPool(0);
+        });
+    }
+
+    @Test
+    void playersShareAnExecutorAcrossMovesWithoutShuttingItDown() {
+        // Opponent team will win this trick, we have to minimize loss
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK));
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.EIGHT))
+                .add(Card.of(Color.SPADE, Rank.NINE))
+                .add(Card.of(Color.SPADE, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.SEVEN))
+                .add(Card.of(Color.HEART, Rank.EIGHT))
+                .add(Card.of(Color.HEART, Rank.NINE))
+                .add(Card.of(Color.HEART, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.JACK));
+
+        ExecutorService executor = MctsExecutors.newWorkStealingPool(2);
+        try {
+            ImprovedMctsPlayer improved = new ImprovedMctsPlayer(PlayerId.PLAYER_2, 10_000, 2, executor);
+            MctsRootParallelisationPlayer root = new MctsRootParallelisationPlayer(PlayerId.PLAYER_2, 0, 10_000, 4, executor);
+            assertTimeoutPreemptively(TIMEOUT, () -> {
+                for (int i = 0; i < 3; ++i) {
+                    assertEquals(Card.of(Color.SPADE, Rank.EIGHT), improved.cardToPlay(state, hand));
+                    assertEquals(Card.of(Color.SPADE, Rank.EIGHT), root.cardToPlay(state, hand));
+                }
+            });
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ch.epfl.javass.ai;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
 
@@ -12,6 +13,7 @@ import ch.epfl.javass.ai.MctsLeafParallelisationPlayer;
 import ch.epfl.javass.ai.MctsPlayer;
 import ch.epfl.javass.jass.Card;
 import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.Jass;
 import ch.epfl.javass.jass.PlayerId;
 import ch.epfl.javass.jass.Score;
 import ch.epfl.javass.jass.TurnState;
@@ -33,6 +35,28 @@ public class MctsLeafParallelisationPlayerTest {
         }
     }
 
+    @Test
+    void timedPlayerPlaysCorrectly() {
+        // Same as mctsPlayerPlaysCorrectly1, with a time budget
+        MctsLeafParallelisationPlayer p = new MctsLeafParallelisationPlayer(PlayerId.PLAYER_2, SEED, Duration.ofMillis(300), 2);
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK));
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.EIGHT))
+                .add(Card.of(Color.SPADE, Rank.NINE))
+                .add(Card.of(Color.SPADE, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.SEVEN))
+                .add(Card.of(Color.HEART, Rank.EIGHT))
+                .add(Card.of(Color.HEART, Rank.NINE))
+                .add(Card.of(Color.HEART, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.JACK));
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            assertEquals(Card.of(Color.SPADE, Rank.EIGHT), p.cardToPlay(state, hand));
+            assertTrue(p.getLastNumberOfIterations() >= Jass.HAND_SIZE);
+        });
+    }
+
     @Test
     void mctsPlayerPlaysCorrectly1() {
         // Opponent team will win this trick, we have to minimize loss
@@ -399,6 +423,42 @@ public class MctsLeafParallelisationPlayerTest {
         });
     }
 
+    @Test
+    void batchedPlayerPlaysCorrectlyAndOnlyDependsOnItsSeed() {
+        // Opponent team will win this trick, we have to minimize loss
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK));
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.EIGHT))
+                .add(Card.of(Color.SPADE, Rank.NINE))
+                .add(Card.of(Color.SPADE, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.SEVEN))
+                .add(Card.of(Color.HEART, Rank.EIGHT))
+                .add(Card.of(Color.HEART, Rank.NINE))
+                .add(Card.of(Color.HEART, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.JACK));
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (long seed = 0; seed < 10; ++seed) {
+                MctsLeafParallelisationPlayer p1 = new MctsLeafParallelisationPlayer(PlayerId.PLAYER_2, seed, ITERATIONS, 4, 16, MctsExecutors.shared());
+                MctsLeafParallelisationPlayer p2 = new MctsLeafParallelisationPlayer(PlayerId.PLAYER_2, seed, ITERATIONS, 4, 16, MctsExecutors.shared());
+                Card c = p1.cardToPlay(state, hand);
+                assertEquals(Card.of(Color.SPADE, Rank.EIGHT), c);
+                assertEquals(c, p2.cardToPlay(state, hand));
+            }
+        });
+    }
+
+    @Test
+    void constructorFailsWithInvalidRolloutsPerLeaf() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new MctsLeafParallelisationPlayer(PlayerId.PLAYER_1, 0, ITERATIONS, 4, 0, MctsExecutors.shared());
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new MctsLeafParallelisationPlayer(PlayerId.PLAYER_1, 0, ITERATIONS, 4, Integer.MAX_VALUE, MctsExecutors.shared());
+        });
+    }
+
     private static TurnState stateAfterPlayingAllCardsIn(CardSet cards, Color trump, PlayerId firstPlayer) {
         TurnState s = TurnState.initial(trump, Score.INITIAL, firstPlayer);
         for (int i = 0; i < cards.size(); ++i)
@@ -0,0 +1,76 @@
+package ch.epfl.javass.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class MctsNodeArenaTest {
+    private static int addChild(MctsNodeArena arena, int parent, int id) {
+        // the id of a node is stored in all its packed components, so that it can be found after a move
+        int child = arena.addChild(parent, id, id, id, id, id, id);
+        arena.addTurn(child, id);
+        return child;
+    }
+
+    @Test
+    void keepSubtreeOfKeepsExactlyTheSubtree() {
+        MctsNodeArena arena = new MctsNodeArena(2);
+        int root = arena.addRoot(0, 0, 0, 0, 0);
+        int a = addChild(arena, root, 1);
+        int b = addChild(arena, root, 2);
+        int a1 = addChild(arena, a, 3);
+        int b1 = addChild(arena, b, 4);
+        addChild(arena, a, 5);
+        addChild(arena, a1, 6);
+        addChild(arena, b1, 7);
+        assertEquals(8, arena.size());
+
+        int newRoot = arena.keepSubtreeOf(a);
+        assertEquals(0, newRoot);
+        assertEquals(4, arena.size());
+        assertEquals(MctsNodeArena.NONE, arena.parent(newRoot));
+        assertEquals(MctsNodeArena.NONE, arena.nextSibling(newRoot));
+        assertEquals(1, arena.trick(newRoot));
+        assertEquals(1, arena.visits(newRoot));
+        assertEquals(1.0, arena.rewards(newRoot));
+
+        // children are linked from the last added to the first added
+        int first = arena.firstChild(newRoot);
+        assertEquals(5, arena.card(first));
+        int second = arena.nextSibling(first);
+        assertEquals(3, arena.card(second));
+        assertEquals(MctsNodeArena.NONE, arena.nextSibling(second));
+        assertEquals(newRoot, arena.parent(first));
+        assertEquals(newRoot, arena.parent(second));
+
+        int grandChild = arena.firstChild(second);
+        assertEquals(6, arena.card(grandChild));
+        assertEquals(6L, arena.score(grandChild));
+        assertEquals(6L, arena.unplayedCards(grandChild));
+        assertEquals(6L, arena.hand(grandChild));
+        assertEquals(6L, arena.unexpandedCards(grandChild));
+        assertEquals(6.0, arena.rewards(grandChild));
+        assertEquals(second, arena.parent(grandChild));
+        assertEquals(MctsNodeArena.NONE, arena.firstChild(grandChild));
+        assertEquals(MctsNodeArena.NONE, arena.firstChild(first));
+
+        // the arena can still be used after
+        int added = addChild(arena, grandChild, 8);
+        assertEquals(4, added);
+        assertEquals(added, arena.firstChild(grandChild));
+    }
+
+    @Test
+    void arenaGrowsWhenFull() {
+        MctsNodeArena arena = new MctsNodeArena(1);
+        int node = arena.addRoot(0, 0, 0, 0, 0);
+        for (int i = 1; i < 100; ++i)
+            node = addChild(arena, node, i);
+        assertEquals(100, arena.size());
+        for (int i = 99; i > 0; --i) {
+            assertEquals(i, arena.card(node));
+            node = arena.parent(node);
+        }
+        assertEquals(0, node);
+    }
+}
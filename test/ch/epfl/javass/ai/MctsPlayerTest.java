@@ -3,14 +3,19 @@ package ch.epfl.javass.ai;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 import org.junit.jupiter.api.Test;
 
 import ch.epfl.javass.ai.MctsPlayer;
 import ch.epfl.javass.jass.Card;
 import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.Player;
 import ch.epfl.javass.jass.PlayerId;
 import ch.epfl.javass.jass.Score;
 import ch.epfl.javass.jass.TurnState;
@@ -398,6 +403,165 @@ public class MctsPlayerTest {
         });
     }
 
+    @Test
+    void constructorFailsWithNonPositiveTimeBudget() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new MctsPlayer(PlayerId.PLAYER_1, 0, Duration.ZERO);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new MctsPlayer(PlayerId.PLAYER_1, 0, Duration.ofMillis(-1));
+        });
+    }
+
+    @Test
+    void timedPlayersPlayCorrectly() {
+        // Opponent team will win this trick, we have to minimize loss
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK));
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.EIGHT))
+                .add(Card.of(Color.SPADE, Rank.NINE))
+                .add(Card.of(Color.SPADE, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.SEVEN))
+                .add(Card.of(Color.HEART, Rank.EIGHT))
+                .add(Card.of(Color.HEART, Rank.NINE))
+                .add(Card.of(Color.HEART, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.JACK));
+        Duration budget = Duration.ofMillis(300);
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_2, SEED, budget);
+        MctsTunedPlayer tuned = new MctsTunedPlayer(PlayerId.PLAYER_2, SEED, budget);
+        ImprovedMctsPlayer improved = new ImprovedMctsPlayer(PlayerId.PLAYER_2, budget, 2);
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            assertEquals(Card.of(Color.SPADE, Rank.EIGHT), p.cardToPlay(state, hand));
+            assertTrue(p.getLastNumberOfIterations() >= Jass.HAND_SIZE);
+            assertEquals(Card.of(Color.SPADE, Rank.EIGHT), tuned.cardToPlay(state, hand));
+            assertTrue(tuned.getLastNumberOfIterations() >= Jass.HAND_SIZE);
+            assertEquals(Card.of(Color.SPADE, Rank.EIGHT), improved.cardToPlay(state, hand));
+            assertTrue(improved.getLastNumberOfIterations() >= 2 * Jass.HAND_SIZE);
+        });
+    }
+
+    @Test
+    void playersWithOtherRolloutPoliciesPlayCorrectly() {
+        // Opponent team will win this trick, we have to minimize loss
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK));
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.EIGHT))
+                .add(Card.of(Color.SPADE, Rank.NINE))
+                .add(Card.of(Color.SPADE, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.SEVEN))
+                .add(Card.of(Color.HEART, Rank.EIGHT))
+                .add(Card.of(Color.HEART, Rank.NINE))
+                .add(Card.of(Color.HEART, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.JACK));
+        RolloutPolicy[] policies = {
+                RolloutPolicy.simple(),
+                RolloutPolicy.epsilonGreedy(RolloutPolicy.simple(), 0.1),
+                RolloutPolicy.softmax(5),
+        };
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (RolloutPolicy policy : policies) {
+                MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_2, SEED, ITERATIONS, policy);
+                assertEquals(Card.of(Color.SPADE, Rank.EIGHT), p.cardToPlay(state, hand));
+                ImprovedMctsPlayer improved = new ImprovedMctsPlayer(PlayerId.PLAYER_2, SEED, ITERATIONS, 2, policy);
+                assertEquals(Card.of(Color.SPADE, Rank.EIGHT), improved.cardToPlay(state, hand));
+                Player[] others = {
+                        new MctsTunedPlayer(PlayerId.PLAYER_2, SEED, ITERATIONS, policy),
+                        new MctsRootParallelisationPlayer(PlayerId.PLAYER_2, SEED, ITERATIONS, 2, policy),
+                        new MctsLeafParallelisationPlayer(PlayerId.PLAYER_2, SEED, ITERATIONS, 2, policy),
+                        new MctsTreeParallelisationPlayer(PlayerId.PLAYER_2, SEED, ITERATIONS, 2, policy),
+                        new MctsDagPlayer(PlayerId.PLAYER_2, SEED, ITERATIONS, policy),
+                };
+                for (Player other : others)
+                    assertEquals(Card.of(Color.SPADE, Rank.EIGHT), other.cardToPlay(state, hand));
+            }
+        });
+    }
+
+    @Test
+    void timedPlayerVisitsEveryCardOnceEvenWithTinyBudget() {
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_1, SEED, Duration.ofNanos(1));
+        TurnState state = TurnState.initial(Color.HEART, Score.INITIAL, PlayerId.PLAYER_1);
+        CardSet hand = CardSet.EMPTY;
+        for (Rank r : Rank.ALL)
+            hand = hand.add(Card.of(Color.CLUB, r));
+        Card c = p.cardToPlay(state, hand);
+        assertTrue(hand.contains(c));
+        assertTrue(p.getLastNumberOfIterations() >= Jass.HAND_SIZE);
+    }
+
+    @Test
+    void iterationsPlayerReportsItsIterations() {
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_1, SEED, 100);
+        TurnState state = TurnState.initial(Color.HEART, Score.INITIAL, PlayerId.PLAYER_1);
+        CardSet hand = CardSet.EMPTY;
+        for (Rank r : Rank.ALL)
+            hand = hand.add(Card.of(Color.CLUB, r));
+        p.cardToPlay(state, hand);
+        assertEquals(100, p.getLastNumberOfIterations());
+    }
+
+    @Test
+    void playerReusesItsTreeWithinATurnAndPlaysValidCards() {
+        SplittableRandom rng = new SplittableRandom(SEED);
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_1, SEED, 2_000);
+        for (int turn = 0; turn < 10; ++turn) {
+            // a random deal, where the other players play random cards
+            CardSet[] hands = new CardSet[PlayerId.COUNT];
+            Arrays.fill(hands, CardSet.EMPTY);
+            CardSet deck = CardSet.ALL_CARDS;
+            for (int i = 0; i < CardSet.ALL_CARDS.size(); ++i) {
+                Card c = deck.get(rng.nextInt(deck.size()));
+                deck = deck.remove(c);
+                hands[i % PlayerId.COUNT] = hands[i % PlayerId.COUNT].add(c);
+            }
+            PlayerId first = PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT));
+            TurnState state = TurnState.initial(Color.ALL.get(rng.nextInt(Color.COUNT)), Score.INITIAL, first);
+            int reusingMoves = 0;
+            while (!state.isTerminal()) {
+                int player = state.nextPlayer().ordinal();
+                CardSet playable = state.trick().playableCards(hands[player]);
+                Card c;
+                if (state.nextPlayer() == PlayerId.PLAYER_1) {
+                    c = p.cardToPlay(state, hands[player]);
+                    assertTrue(playable.contains(c));
+                    if (p.getLastNumberOfReusedTurns() > 0)
+                        reusingMoves++;
+                } else {
+                    c = playable.get(rng.nextInt(playable.size()));
+                }
+                hands[player] = hands[player].remove(c);
+                state = state.withNewCardPlayedAndTrickCollected(c);
+            }
+            // the first move of a turn never reuses a tree, and the last one has a single card
+            assertTrue(reusingMoves >= 1);
+        }
+    }
+
+    @Test
+    void improvedPlayerOnlyDependsOnItsSeedAndThreads() {
+        // the first card of a turn, where several cards are almost as good
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1);
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (long seed = 0; seed < 10; ++seed) {
+                CardSet hand = randomHand(new SplittableRandom(seed));
+                ImprovedMctsPlayer p1 = new ImprovedMctsPlayer(PlayerId.PLAYER_1, seed, 2_000, 4);
+                ImprovedMctsPlayer p2 = new ImprovedMctsPlayer(PlayerId.PLAYER_1, seed, 2_000, 4);
+                assertEquals(p1.cardToPlay(state, hand), p2.cardToPlay(state, hand));
+            }
+        });
+    }
+
+    private static CardSet randomHand(SplittableRandom rng) {
+        CardSet hand = CardSet.EMPTY;
+        while (hand.size() < Jass.HAND_SIZE)
+            hand = hand.add(CardSet.ALL_CARDS.get(rng.nextInt(CardSet.ALL_CARDS.size())));
+        return hand;
+    }
+
     private static TurnState stateAfterPlayingAllCardsIn(CardSet cards, Color trump, PlayerId firstPlayer) {
         TurnState s = TurnState.initial(trump, Score.INITIAL, firstPlayer);
         for (int i = 0; i < cards.size(); ++i)
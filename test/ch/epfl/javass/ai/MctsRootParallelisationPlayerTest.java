@@ -3,8 +3,10 @@ package ch.epfl.javass.ai;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
+import java.util.SplittableRandom;
 
 import org.junit.jupiter.api.Test;
 
@@ -12,6 +14,7 @@ import ch.epfl.javass.ai.MctsPlayer;
 import ch.epfl.javass.ai.MctsRootParallelisationPlayer;
 import ch.epfl.javass.jass.Card;
 import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.Jass;
 import ch.epfl.javass.jass.PlayerId;
 import ch.epfl.javass.jass.Score;
 import ch.epfl.javass.jass.TurnState;
@@ -33,6 +36,28 @@ public class MctsRootParallelisationPlayerTest {
         }
     }
 
+    @Test
+    void timedPlayerPlaysCorrectly() {
+        // Same as mctsPlayerPlaysCorrectly1, with a time budget
+        MctsRootParallelisationPlayer p = new MctsRootParallelisationPlayer(PlayerId.PLAYER_2, SEED, Duration.ofMillis(300), 2);
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK));
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.EIGHT))
+                .add(Card.of(Color.SPADE, Rank.NINE))
+                .add(Card.of(Color.SPADE, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.SEVEN))
+                .add(Card.of(Color.HEART, Rank.EIGHT))
+                .add(Card.of(Color.HEART, Rank.NINE))
+                .add(Card.of(Color.HEART, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.JACK));
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            assertEquals(Card.of(Color.SPADE, Rank.EIGHT), p.cardToPlay(state, hand));
+            assertTrue(p.getLastNumberOfIterations() >= Jass.HAND_SIZE);
+        });
+    }
+
     @Test
     void mctsPlayerPlaysCorrectly1() {
         // Opponent team will win this trick, we have to minimize loss
@@ -399,6 +424,27 @@ public class MctsRootParallelisationPlayerTest {
         });
     }
 
+    @Test
+    void rootPlayerOnlyDependsOnItsSeedAndThreads() {
+        // the first card of a turn, where several cards are almost as good
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1);
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (long seed = 0; seed < 10; ++seed) {
+                CardSet hand = randomHand(new SplittableRandom(seed));
+                MctsRootParallelisationPlayer p1 = new MctsRootParallelisationPlayer(PlayerId.PLAYER_1, seed, 2_000, 4);
+                MctsRootParallelisationPlayer p2 = new MctsRootParallelisationPlayer(PlayerId.PLAYER_1, seed, 2_000, 4);
+                assertEquals(p1.cardToPlay(state, hand), p2.cardToPlay(state, hand));
+            }
+        });
+    }
+
+    private static CardSet randomHand(SplittableRandom rng) {
+        CardSet hand = CardSet.EMPTY;
+        while (hand.size() < Jass.HAND_SIZE)
+            hand = hand.add(CardSet.ALL_CARDS.get(rng.nextInt(CardSet.ALL_CARDS.size())));
+        return hand;
+    }
+
     private static TurnState stateAfterPlayingAllCardsIn(CardSet cards, Color trump, PlayerId firstPlayer) {
         TurnState s = TurnState.initial(trump, Score.INITIAL, firstPlayer);
         for (int i = 0; i < cards.size(); ++i)
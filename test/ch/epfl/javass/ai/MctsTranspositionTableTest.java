@@ -0,0 +1,74 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class MctsTranspositionTableTest {
+    @Test
+    void getReturnsWhatWasPut() {
+        SplittableRandom rng = newRandom();
+        MctsTranspositionTable table = new MctsTranspositionTable(RANDOM_ITERATIONS);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            long hash = rng.nextLong();
+            assertTrue(table.put(hash, i));
+            expected.put(hash, i);
+        }
+        assertEquals(RANDOM_ITERATIONS, table.size());
+        for (Map.Entry<Long, Integer> e : expected.entrySet())
+            assertEquals((int) e.getValue(), table.get(e.getKey()));
+        assertEquals(MctsTranspositionTable.NONE, table.get(rng.nextLong()));
+    }
+
+    @Test
+    void putKeepsTheFirstNodeOfAHash() {
+        MctsTranspositionTable table = new MctsTranspositionTable(10);
+        assertTrue(table.put(42, 1));
+        assertFalse(table.put(42, 2));
+        assertEquals(1, table.get(42));
+    }
+
+    @Test
+    void tableIsBoundedAndCanBeCleared() {
+        MctsTranspositionTable table = new MctsTranspositionTable(3);
+        for (int i = 0; i < 3; ++i)
+            assertTrue(table.put(i, i));
+        assertFalse(table.put(3, 3));
+        assertEquals(MctsTranspositionTable.NONE, table.get(3));
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(MctsTranspositionTable.NONE, table.get(0));
+        assertTrue(table.put(3, 3));
+        assertEquals(3, table.get(3));
+    }
+
+    @Test
+    void hashDependsOnEveryComponent() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            long score = rng.nextLong(), unplayed = rng.nextLong(), hand = rng.nextLong();
+            int trick = rng.nextInt();
+            long hash = MctsTranspositionTable.hash(score, unplayed, trick, hand);
+            assertEquals(hash, MctsTranspositionTable.hash(score, unplayed, trick, hand));
+
+            int bit = rng.nextInt(Long.SIZE);
+            assertNotEquals(hash, MctsTranspositionTable.hash(score ^ (1L << bit), unplayed, trick, hand));
+            assertNotEquals(hash, MctsTranspositionTable.hash(score, unplayed ^ (1L << bit), trick, hand));
+            assertNotEquals(hash, MctsTranspositionTable.hash(score, unplayed, trick ^ (1 << (bit % Integer.SIZE)), hand));
+            assertNotEquals(hash, MctsTranspositionTable.hash(score, unplayed, trick, hand ^ (1L << bit)));
+            // the components do not play the same role
+            assertNotEquals(hash, MctsTranspositionTable.hash(unplayed, score, trick, hand));
+        }
+    }
+}
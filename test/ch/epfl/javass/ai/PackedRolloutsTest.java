@@ -0,0 +1,98 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TurnState;
+
+public class PackedRolloutsTest {
+    private static CardSet[] randomHands(SplittableRandom rng) {
+        CardSet[] hands = new CardSet[PlayerId.COUNT];
+        CardSet deck = CardSet.ALL_CARDS;
+        for (int p = 0; p < PlayerId.COUNT; ++p) {
+            hands[p] = CardSet.EMPTY;
+            for (int i = 0; i < 9; ++i) {
+                Card card = deck.get(rng.nextInt(deck.size()));
+                deck = deck.remove(card);
+                hands[p] = hands[p].add(card);
+            }
+        }
+        return hands;
+    }
+
+    private static TurnState randomInitialState(SplittableRandom rng) {
+        Card.Color trump = Card.Color.ALL.get(rng.nextInt(Card.Color.COUNT));
+        return TurnState.initial(trump, Score.INITIAL, PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT)));
+    }
+
+    private static Card simplePlayerCard(TurnState state, CardSet cards) {
+        SimplePlayer player = new SimplePlayer();
+        player.setPlayers(state.nextPlayer(), null);
+        return player.cardToPlay(state, cards);
+    }
+
+    @Test
+    void simpleCardPlaysAsSimplePlayer() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 10; ++i) {
+            CardSet[] hands = randomHands(rng);
+            TurnState state = randomInitialState(rng);
+            while (!state.isTerminal()) {
+                int player = state.nextPlayer().ordinal();
+                // its actual hand, and every card it could hold for another player
+                CardSet[] candidates = { hands[player], state.unplayedCards().difference(hands[(player + 1) % PlayerId.COUNT]) };
+                for (CardSet cards : candidates) {
+                    long playable = PackedTrick.playableCards(state.packedTrick(), cards.packed());
+                    assertEquals(simplePlayerCard(state, cards).packed(), PackedRollouts.simpleCard(state.packedTrick(), playable));
+                }
+
+                CardSet playable = state.trick().playableCards(hands[player]);
+                Card card = playable.get(rng.nextInt(playable.size()));
+                hands[player] = hands[player].remove(card);
+                state = state.withNewCardPlayedAndTrickCollected(card);
+            }
+        }
+    }
+
+    @Test
+    void simpleTurnPlaysAsSimplePlayers() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 10; ++i) {
+            CardSet[] hands = randomHands(rng);
+            PlayerId ownId = PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT));
+            TurnState state = randomInitialState(rng);
+            int cardsPlayed = rng.nextInt(36);
+            for (int j = 0; j < cardsPlayed; ++j) {
+                int player = state.nextPlayer().ordinal();
+                CardSet playable = state.trick().playableCards(hands[player]);
+                Card card = playable.get(rng.nextInt(playable.size()));
+                hands[player] = hands[player].remove(card);
+                state = state.withNewCardPlayedAndTrickCollected(card);
+            }
+            CardSet hand = hands[ownId.ordinal()];
+
+            // the turn played with the objects, ownId only knowing its hand
+            TurnState turn = state;
+            while (!turn.isTerminal()) {
+                CardSet cards = turn.nextPlayer() == ownId ? hand : turn.unplayedCards().difference(hand);
+                Card card = simplePlayerCard(turn, turn.trick().playableCards(cards));
+                hand = hand.remove(card);
+                turn = turn.withNewCardPlayedAndTrickCollected(card);
+            }
+
+            long pkScore = PackedRollouts.simpleTurn(state.packedScore(), state.packedUnplayedCards(), state.packedTrick(),
+                    hands[ownId.ordinal()].packed(), ownId);
+            assertEquals(turn.score().packed(), pkScore);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ch.epfl.javass.ai;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TurnState;
+
+public class RolloutPolicyTest {
+    private static final RolloutPolicy[] POLICIES = {
+            RolloutPolicy.uniform(),
+            RolloutPolicy.simple(),
+            RolloutPolicy.epsilonGreedy(RolloutPolicy.simple(), 0.2),
+            RolloutPolicy.softmax(5),
+    };
+
+    private static TurnState randomState(SplittableRandom rng) {
+        Color trump = Color.ALL.get(rng.nextInt(Color.COUNT));
+        TurnState state = TurnState.initial(trump, Score.INITIAL, PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT)));
+        int cardsPlayed = rng.nextInt(36);
+        for (int i = 0; i < cardsPlayed; ++i) {
+            long playable = PackedTrick.playableCards(state.packedTrick(), state.packedUnplayedCards());
+            int pkCard = PackedCardSet.get(playable, rng.nextInt(PackedCardSet.size(playable)));
+            state = state.withNewCardPlayedAndTrickCollected(Card.ofPacked(pkCard));
+        }
+        return state;
+    }
+
+    // the playable cards of a random hand among the unplayed cards
+    private static long randomPlayableCards(TurnState state, SplittableRandom rng) {
+        long hand = state.packedUnplayedCards() & rng.nextLong();
+        if (PackedCardSet.isEmpty(hand))
+            hand = state.packedUnplayedCards();
+        return PackedTrick.playableCards(state.packedTrick(), hand);
+    }
+
+    @Test
+    void everyPolicyPlaysAPlayableCard() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            TurnState state = randomState(rng);
+            if (state.isTerminal())
+                continue;
+            long playable = randomPlayableCards(state, rng);
+            for (RolloutPolicy policy : POLICIES)
+                assertTrue(PackedCardSet.contains(playable, policy.cardToPlay(state.packedTrick(), playable, rng)));
+        }
+    }
+
+    @Test
+    void epsilonGreedyPlaysAsItsPolicyOrUniformly() {
+        SplittableRandom rng = newRandom();
+        RolloutPolicy greedy = RolloutPolicy.epsilonGreedy(RolloutPolicy.simple(), 0);
+        RolloutPolicy random = RolloutPolicy.epsilonGreedy(RolloutPolicy.simple(), 1);
+        for (int i = 0; i < RANDOM_ITERATIONS / 10; ++i) {
+            TurnState state = randomState(rng);
+            if (state.isTerminal())
+                continue;
+            long playable = randomPlayableCards(state, rng);
+            assertEquals(PackedRollouts.simpleCard(state.packedTrick(), playable), greedy.cardToPlay(state.packedTrick(), playable, rng));
+
+            long played = PackedCardSet.EMPTY;
+            for (int j = 0; j < 200; ++j)
+                played = PackedCardSet.add(played, random.cardToPlay(state.packedTrick(), playable, rng));
+            assertEquals(playable, played);
+        }
+    }
+
+    @Test
+    void softmaxWinsTricksWithPointsAndLosesThemWithoutPoints() {
+        SplittableRandom rng = newRandom();
+        RolloutPolicy softmax = RolloutPolicy.softmax(1);
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.KING));
+        // the ace wins the trick with 11 points
+        long winning = CardSet.EMPTY
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.ACE)).packed();
+        // the ten loses the trick with 10 points
+        long losing = CardSet.EMPTY
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.TEN)).packed();
+
+        int aces = 0, sixes = 0;
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            if (softmax.cardToPlay(state.packedTrick(), winning, rng) == Card.of(Color.HEART, Rank.ACE).packed())
+                aces++;
+            if (softmax.cardToPlay(state.packedTrick(), losing, rng) == Card.of(Color.HEART, Rank.SIX).packed())
+                sixes++;
+        }
+        assertTrue(aces > RANDOM_ITERATIONS * 99 / 100);
+        assertTrue(sixes > RANDOM_ITERATIONS * 99 / 100);
+    }
+
+    @Test
+    void policiesFailWithInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> RolloutPolicy.epsilonGreedy(RolloutPolicy.simple(), -0.1));
+        assertThrows(IllegalArgumentException.class, () -> RolloutPolicy.epsilonGreedy(RolloutPolicy.simple(), 1.1));
+        assertThrows(IllegalArgumentException.class, () -> RolloutPolicy.softmax(0));
+    }
+}
@@ -248,4 +248,26 @@ public final class Bits32Test {
             Bits32.pack(0, 4, 0, 4, 0, 5, 0, 5, 0, 5, 0, 5, 0, 5);
         });
     }
+
+    @Test
+    void extractUncheckedIsSameAsExtract() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int bits = rng.nextInt();
+            for (int size = 1; size <= Integer.SIZE; ++size) {
+                for (int start = 0; start <= Integer.SIZE - size; ++start)
+                    assertEquals(Bits32.extract(bits, start, size), Bits32.extractUnchecked(bits, start, size));
+            }
+        }
+    }
+
+    @Test
+    void packUncheckedIsSameAsPack() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int[] s = getSizes(rng, 2);
+            int[] v = getValues(rng, s);
+            assertEquals(Bits32.pack(v[0], s[0], v[1], s[1]), Bits32.packUnchecked(v[0], s[0], v[1], s[1]));
+        }
+    }
 }
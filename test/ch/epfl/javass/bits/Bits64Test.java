@@ -166,4 +166,32 @@ public final class Bits64Test {
             Bits64.pack(0, 32, 0, 33);
         });
     }
+
+    @Test
+    void extractUncheckedIsSameAsExtract() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            long bits = rng.nextLong();
+            for (int size = 1; size <= Long.SIZE; ++size) {
+                for (int start = 0; start <= Long.SIZE - size; ++start)
+                    assertEquals(Bits64.extract(bits, start, size), Bits64.extractUnchecked(bits, start, size));
+            }
+        }
+    }
+
+    @Test
+    void packUncheckedIsSameAsPack() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int[] s = getSizes(rng, 2);
+            long[] v = getValues(rng, s);
+            assertEquals(Bits64.pack(v[0], s[0], v[1], s[1]), Bits64.packUnchecked(v[0], s[0], v[1], s[1]));
+        }
+    }
+
+    @Test
+    void extractDoesNotExtendTheSignBit() {
+        assertEquals(0b1111L, Bits64.extract(-1L, Long.SIZE - 4, 4));
+        assertEquals(0xFFFF_FFFFL, Bits64.extract(-1L, Integer.SIZE, Integer.SIZE));
+    }
 }
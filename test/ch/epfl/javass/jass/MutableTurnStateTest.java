@@ -0,0 +1,118 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class MutableTurnStateTest {
+    private static void assertSameState(TurnState expected, MutableTurnState actual) {
+        assertEquals(expected.packedScore(), actual.packedScore());
+        assertEquals(expected.packedUnplayedCards(), actual.packedUnplayedCards());
+        assertEquals(expected.packedTrick(), actual.packedTrick());
+        assertEquals(expected.isTerminal(), actual.isTerminal());
+    }
+    
+    private static TurnState randomInitialState(SplittableRandom rng) {
+        Card.Color trump = Card.Color.ALL.get(rng.nextInt(Card.Color.COUNT));
+        PlayerId firstPlayer = PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT));
+        return TurnState.initial(trump, Score.INITIAL, firstPlayer);
+    }
+    
+    private static Card randomPlayableCard(SplittableRandom rng, TurnState state) {
+        CardSet playable = state.trick().playableCards(state.unplayedCards());
+        return playable.get(rng.nextInt(playable.size()));
+    }
+    
+    @Test
+    void playCardAndCollectTrickWorkLikeTurnState() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            TurnState state = randomInitialState(rng);
+            MutableTurnState mutableState = MutableTurnState.of(state);
+            
+            while(!state.isTerminal()) {
+                Card card = randomPlayableCard(rng, state);
+                assertEquals(state.nextPlayer(), mutableState.nextPlayer());
+                assertEquals(state.trick().playableCards(state.unplayedCards()).packed(), 
+                        mutableState.playableCards(state.packedUnplayedCards()));
+                
+                state = state.withNewCardPlayed(card);
+                mutableState.playCard(card.packed());
+                assertSameState(state, mutableState);
+                
+                if(state.trick().isFull()) {
+                    state = state.withTrickCollected();
+                    mutableState.collectTrick();
+                    assertSameState(state, mutableState);
+                }
+            }
+            assertSameState(mutableState.toTurnState(), mutableState);
+        }
+    }
+    
+    @Test
+    void undoGoesBackToThePreviousStates() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            TurnState state = randomInitialState(rng);
+            MutableTurnState mutableState = MutableTurnState.of(state);
+            
+            TurnState[] previousStates = new TurnState[Jass.TRICKS_PER_TURN * (PlayerId.COUNT + 1) + 1];
+            int modifications = 0;
+            previousStates[modifications] = state;
+            while(!state.isTerminal()) {
+                Card card = randomPlayableCard(rng, state);
+                state = state.withNewCardPlayed(card);
+                mutableState.playCard(card.packed());
+                previousStates[++modifications] = state;
+                
+                if(state.trick().isFull()) {
+                    state = state.withTrickCollected();
+                    mutableState.collectTrick();
+                    previousStates[++modifications] = state;
+                }
+            }
+            
+            assertEquals(modifications, mutableState.modifications());
+            while(modifications > 0) {
+                mutableState.undo();
+                assertSameState(previousStates[--modifications], mutableState);
+            }
+            assertThrows(IllegalStateException.class, () -> {
+                mutableState.undo();
+            });
+        }
+    }
+    
+    @Test
+    void playCardAndCollectTrickCollectsFullTricks() {
+        TurnState state = TurnState.initial(Card.Color.SPADE, Score.INITIAL, PlayerId.PLAYER_2);
+        MutableTurnState mutableState = MutableTurnState.of(state);
+        for(Card.Rank rank: new Card.Rank[] {Card.Rank.TEN, Card.Rank.JACK, Card.Rank.QUEEN, Card.Rank.KING})
+            mutableState.playCardAndCollectTrick(Card.of(Card.Color.HEART, rank).packed());
+        
+        assertEquals(1, PackedTrick.index(mutableState.packedTrick()));
+        assertTrue(PackedTrick.isEmpty(mutableState.packedTrick()));
+        assertEquals(PlayerId.PLAYER_1, mutableState.nextPlayer());
+        assertEquals(19, PackedScore.turnPoints(mutableState.packedScore(), TeamId.TEAM_1));
+    }
+    
+    @Test
+    void playCardFailsOnFullTrickAndCollectTrickFailsOnNonFullTrick() {
+        MutableTurnState mutableState = MutableTurnState.of(TurnState.initial(Card.Color.CLUB, Score.INITIAL, PlayerId.PLAYER_1));
+        assertThrows(IllegalStateException.class, () -> {
+            mutableState.collectTrick();
+        });
+        for(Card.Rank rank: new Card.Rank[] {Card.Rank.SIX, Card.Rank.SEVEN, Card.Rank.EIGHT, Card.Rank.NINE})
+            mutableState.playCard(Card.of(Card.Color.HEART, rank).packed());
+        assertThrows(IllegalStateException.class, () -> {
+            mutableState.playCard(Card.of(Card.Color.HEART, Card.Rank.TEN).packed());
+        });
+    }
+}
@@ -2,6 +2,7 @@ package ch.epfl.javass.jass;
 
 import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
 import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -185,6 +186,21 @@ public class PackedCardSetTest {
         }
     }
     
+    @Test
+    void getIsCorrectForAllIndicesOfRandomSets() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            long packedSet = rng.nextLong() & PackedCardSet.ALL_CARDS;
+            
+            // the card of index j is found by removing the j lowest cards
+            long remaining = packedSet;
+            for(int j=0; j<PackedCardSet.size(packedSet); j++) {
+                assertEquals(Long.numberOfTrailingZeros(remaining), PackedCardSet.get(packedSet, j));
+                remaining &= remaining-1;
+            }
+        }
+    }
+    
     @Test
     void addIsCorrectForSome() {
         SplittableRandom rng = newRandom();
@@ -1,9 +1,13 @@
 package ch.epfl.javass.jass;
 
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.SplittableRandom;
+
 import org.junit.jupiter.api.Test;
 
 public class PackedScoreTest {
@@ -142,6 +146,27 @@ public class PackedScoreTest {
         assertEquals(PackedScore.gamePoints(s, TeamId.TEAM_2), turn2[turn2.length-1]);
     }
     
+    @Test
+    void withAdditionalTrickOnlyChangesTheWinningTeam() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int tricks1 = rng.nextInt(Jass.TRICKS_PER_TURN), tricks2 = rng.nextInt(Jass.TRICKS_PER_TURN - tricks1);
+            int turn1 = rng.nextInt(100), turn2 = rng.nextInt(100);
+            int game1 = rng.nextInt(2000), game2 = rng.nextInt(2000);
+            long s = PackedScore.pack(tricks1, turn1, game1, tricks2, turn2, game2);
+            
+            TeamId w = TeamId.ALL.get(rng.nextInt(TeamId.COUNT));
+            int p = rng.nextInt(58);
+            int tricks = (w == TeamId.TEAM_1 ? tricks1 : tricks2) + 1;
+            int bonus = tricks == Jass.TRICKS_PER_TURN ? Jass.MATCH_ADDITIONAL_POINTS : 0;
+            
+            long expected = w == TeamId.TEAM_1
+                    ? PackedScore.pack(tricks1 + 1, turn1 + p + bonus, game1, tricks2, turn2, game2)
+                    : PackedScore.pack(tricks1, turn1, game1, tricks2 + 1, turn2 + p + bonus, game2);
+            assertEquals(expected, PackedScore.withAdditionalTrick(s, w, p));
+        }
+    }
+    
     /* not testing toString as it used for debugging and is
      does not have a predefined behavior */
 }
@@ -0,0 +1,126 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class PackedTrickSummaryTest {
+    private static final int HANDS_PER_TRICK = 4;
+
+    private static int[] allPkCards() {
+        int[] pkCards = new int[Card.Color.COUNT * Card.Rank.COUNT];
+        int i = 0;
+        for(Card.Color c: Card.Color.ALL)
+            for(Card.Rank r: Card.Rank.ALL)
+                pkCards[i++] = PackedCard.pack(c, r);
+        return pkCards;
+    }
+
+    private static long randomHand(SplittableRandom rng, long notInHand) {
+        long hand = PackedCardSet.EMPTY;
+        int[] pkCards = allPkCards();
+        int size = rng.nextInt(1, 10);
+        while(PackedCardSet.size(hand) < size) {
+            int pkCard = pkCards[rng.nextInt(pkCards.length)];
+            if(!PackedCardSet.contains(notInHand, pkCard))
+                hand = PackedCardSet.add(hand, pkCard);
+        }
+        return hand;
+    }
+
+    private static void assertSameAsPackedTrick(SplittableRandom rng, int pkTrick, int pkSummary) {
+        assertEquals(PackedTrick.size(pkTrick), PackedTrickSummary.size(pkSummary));
+        assertEquals(PackedTrick.isFull(pkTrick), PackedTrickSummary.isFull(pkSummary));
+        assertEquals(PackedTrick.trump(pkTrick), PackedTrickSummary.trump(pkSummary));
+        if(!PackedTrick.isEmpty(pkTrick)) {
+            int winningIndex = PackedTrickSummary.winningIndex(pkSummary);
+            assertEquals(PackedTrick.winningPlayer(pkTrick), PackedTrick.player(pkTrick, winningIndex));
+            assertEquals(PackedTrick.card(pkTrick, winningIndex), PackedTrickSummary.winningCard(pkSummary));
+        } else {
+            assertEquals(PackedCard.INVALID, PackedTrickSummary.winningCard(pkSummary));
+        }
+        assertSamePlayableCards(rng, pkTrick, pkSummary);
+    }
+
+    private static void assertSamePlayableCards(SplittableRandom rng, int pkTrick, int pkSummary) {
+        long inTrick = PackedCardSet.EMPTY;
+        for(int i=0; i<PackedTrick.size(pkTrick); i++)
+            inTrick = PackedCardSet.add(inTrick, PackedTrick.card(pkTrick, i));
+
+        for(int i=0; i<HANDS_PER_TRICK; i++) {
+            long hand = randomHand(rng, inTrick);
+            assertEquals(PackedTrick.playableCards(pkTrick, hand), PackedTrickSummary.playableCards(pkSummary, hand));
+        }
+    }
+
+    @Test
+    void summaryIsSameAsPackedTrickForAllTricks() {
+        SplittableRandom rng = newRandom();
+        int[] pkCards = allPkCards();
+        for(Card.Color trump: Card.Color.ALL) {
+            int pkTrick0 = PackedTrick.firstEmpty(trump, PlayerId.PLAYER_1);
+            int pkSummary0 = PackedTrickSummary.empty(trump);
+            assertSameAsPackedTrick(rng, pkTrick0, pkSummary0);
+
+            for(int c1: pkCards) {
+                int pkTrick1 = PackedTrick.withAddedCard(pkTrick0, c1);
+                int pkSummary1 = PackedTrickSummary.withAddedCard(pkSummary0, c1);
+                assertSameAsPackedTrick(rng, pkTrick1, pkSummary1);
+
+                for(int c2: pkCards) {
+                    if(c2 == c1)
+                        continue;
+                    int pkTrick2 = PackedTrick.withAddedCard(pkTrick1, c2);
+                    int pkSummary2 = PackedTrickSummary.withAddedCard(pkSummary1, c2);
+                    assertSameAsPackedTrick(rng, pkTrick2, pkSummary2);
+
+                    for(int c3: pkCards) {
+                        if(c3 == c1 || c3 == c2)
+                            continue;
+                        int pkTrick3 = PackedTrick.withAddedCard(pkTrick2, c3);
+                        int pkSummary3 = PackedTrickSummary.withAddedCard(pkSummary2, c3);
+                        assertSameAsPackedTrick(rng, pkTrick3, pkSummary3);
+
+                        int c4 = pkCards[rng.nextInt(pkCards.length)];
+                        if(c4 == c1 || c4 == c2 || c4 == c3)
+                            continue;
+                        int pkTrick4 = PackedTrick.withAddedCard(pkTrick3, c4);
+                        int pkSummary4 = PackedTrickSummary.withAddedCard(pkSummary3, c4);
+                        assertEquals(PackedTrick.winningPlayer(pkTrick4), PackedTrick.player(pkTrick4, PackedTrickSummary.winningIndex(pkSummary4)));
+                        assertTrue(PackedTrickSummary.isFull(pkSummary4));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void ofPackedTrickIsSameAsAddingCards() {
+        int[] pkCards = allPkCards();
+        for(Card.Color trump: Card.Color.ALL) {
+            int pkTrick = PackedTrick.firstEmpty(trump, PlayerId.PLAYER_3);
+            int pkSummary = PackedTrickSummary.empty(trump);
+            assertEquals(pkSummary, PackedTrickSummary.ofPackedTrick(pkTrick));
+
+            for(int i=0; i<3; i++) {
+                int pkCard = pkCards[(7*i + 5*trump.ordinal()) % pkCards.length];
+                pkTrick = PackedTrick.withAddedCard(pkTrick, pkCard);
+                pkSummary = PackedTrickSummary.withAddedCard(pkSummary, pkCard);
+                assertEquals(pkSummary, PackedTrickSummary.ofPackedTrick(pkTrick));
+            }
+        }
+    }
+
+    @Test
+    void isEmptyWorks() {
+        int pkSummary = PackedTrickSummary.empty(Card.Color.HEART);
+        assertTrue(PackedTrickSummary.isEmpty(pkSummary));
+        pkSummary = PackedTrickSummary.withAddedCard(pkSummary, PackedCard.pack(Card.Color.SPADE, Card.Rank.SIX));
+        assertFalse(PackedTrickSummary.isEmpty(pkSummary));
+    }
+}
@@ -556,4 +556,20 @@ public class PackedTrickTestOwn {
             assertTrue(PackedTrick.isValid(trick));
         }
     }
+    
+    @Test
+    void playableCardsMustBeatBestTrumpAndNotLastTrump() {
+        int trick = PackedTrick.firstEmpty(Card.Color.SPADE, PlayerId.PLAYER_1);
+        trick = PackedTrick.withAddedCard(trick, PackedCard.pack(Card.Color.HEART, Card.Rank.ACE));
+        trick = PackedTrick.withAddedCard(trick, PackedCard.pack(Card.Color.SPADE, Card.Rank.NINE));
+        trick = PackedTrick.withAddedCard(trick, PackedCard.pack(Card.Color.SPADE, Card.Rank.SEVEN));
+        
+        int queenOfSpade = PackedCard.pack(Card.Color.SPADE, Card.Rank.QUEEN);
+        int jackOfSpade = PackedCard.pack(Card.Color.SPADE, Card.Rank.JACK);
+        int sixOfDiamond = PackedCard.pack(Card.Color.DIAMOND, Card.Rank.SIX);
+        long hand = PackedCardSet.add(PackedCardSet.add(PackedCardSet.singleton(queenOfSpade), jackOfSpade), sixOfDiamond);
+        
+        long playable = PackedCardSet.add(PackedCardSet.singleton(jackOfSpade), sixOfDiamond);
+        assertEquals(playable, PackedTrick.playableCards(trick, hand));
+    }
 }